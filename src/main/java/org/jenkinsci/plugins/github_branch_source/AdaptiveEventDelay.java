@@ -0,0 +1,403 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.github_branch_source;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.plugins.git.AbstractGitSCMSource;
+import jenkins.scm.api.SCMEvent;
+import jenkins.scm.api.SCMHead;
+import jenkins.scm.api.SCMHeadEvent;
+import jenkins.scm.api.SCMRevision;
+import jenkins.scm.api.SCMSource;
+import jenkins.util.Timer;
+import net.jcip.annotations.GuardedBy;
+import org.apache.commons.lang.StringUtils;
+import org.eclipse.jgit.lib.ObjectId;
+
+/**
+ * Fires head events shortly after they are received, rather than after
+ * {@link GitHubSCMSource#getEventDelaySeconds()}, and fires them again with an exponential backoff when a source
+ * retrieves revisions from the API that do not match the revisions reported by the event, i.e. when the API has not
+ * caught up with the event yet. The event stops being retried once it has waited for
+ * {@link GitHubSCMSource#getEventDelaySeconds()} in total.
+ * <p>
+ * The time that the API took to catch up is tracked per endpoint. The journaled deliveries of an event are only
+ * marked fired once the event has settled, i.e. the API caught up with it or it stopped being retried, so that an
+ * event waiting for a retry when the controller stops is replayed when it starts again.
+ */
+final class AdaptiveEventDelay {
+
+    /**
+     * Our logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(AdaptiveEventDelay.class.getName());
+
+    /**
+     * Set to {@code true} to fire events immediately and retry them until the API catches up.
+     */
+    private static /*mostly final*/ boolean enabled =
+            Boolean.getBoolean(GitHubSCMSource.class.getName() + ".adaptiveEventDelay");
+
+    /**
+     * How long to wait before firing an event for the first time, so that a burst of events for the same head is
+     * still coalesced into a single event.
+     */
+    private static final int DEBOUNCE_SECONDS = 2;
+
+    /**
+     * The delay before the first retry, doubled for each further retry.
+     */
+    private static final long BACKOFF_MILLIS = 500L;
+
+    /**
+     * The retries of the events that did not match the API, only weakly referenced once the event is done with.
+     */
+    @GuardedBy("AdaptiveEventDelay.class")
+    private static final Map<SCMHeadEvent<?>, Retries> RETRIES = new WeakHashMap<>();
+
+    /**
+     * The moving average of the time that the API of each endpoint took to catch up with events.
+     */
+    private static final Map<String, Long> EFFECTIVE_DELAY_MILLIS = new ConcurrentHashMap<>();
+
+    private AdaptiveEventDelay() {
+        throw new IllegalAccessError("Utility class");
+    }
+
+    /**
+     * Returns {@code true} if events are fired immediately and retried until the API catches up.
+     *
+     * @return {@code true} if the adaptive event delay is enabled.
+     */
+    static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enables or disables the adaptive event delay, for testing.
+     *
+     * @param enabled {@code true} to fire events immediately and retry them until the API catches up.
+     */
+    static void setEnabled(boolean enabled) {
+        AdaptiveEventDelay.enabled = enabled;
+    }
+
+    /**
+     * Returns how long to wait before firing a head event for the first time.
+     *
+     * @return the delay in seconds.
+     */
+    static int getInitialDelaySeconds() {
+        int delay = GitHubSCMSource.getEventDelaySeconds();
+        return enabled ? Math.min(DEBOUNCE_SECONDS, delay) : delay;
+    }
+
+    /**
+     * Returns the moving average of the time that the API of an endpoint took to catch up with events.
+     *
+     * @param apiUri the API endpoint.
+     * @return the delay in milliseconds or {@code -1} if no event from the endpoint has been checked yet.
+     */
+    static long getEffectiveDelayMillis(@CheckForNull String apiUri) {
+        Long delay = EFFECTIVE_DELAY_MILLIS.get(endpoint(apiUri));
+        return delay == null ? -1L : delay;
+    }
+
+    /**
+     * Starts checking the revisions that a source retrieves for an event against the revisions the event reports.
+     *
+     * @param event  the event that triggered the retrieval, if any.
+     * @param source the source.
+     * @return the check.
+     */
+    @NonNull
+    static Check check(@CheckForNull SCMHeadEvent<?> event, @NonNull GitHubSCMSource source) {
+        if (!enabled || event == null || event.getType() == SCMEvent.Type.REMOVED
+                || !(event.getPayload() instanceof WebhookPayloadSummary)) {
+            return new Check(null, source, new HashMap<>(), null);
+        }
+        String before = event instanceof WebhookHeadEvent ? ((WebhookHeadEvent) event).getBeforeHash() : null;
+        if (before != null && (ObjectId.zeroId().name().equals(before)
+                || !before.matches(GitHubSCMSource.VALID_GIT_SHA1))) {
+            before = null;
+        }
+        Map<String, String> expected = new HashMap<>();
+        for (Map.Entry<SCMHead, SCMRevision> entry : event.heads(source).entrySet()) {
+            SCMHead head = entry.getKey();
+            SCMRevision revision = entry.getValue();
+            if (head instanceof BranchSCMHead && revision instanceof AbstractGitSCMSource.SCMRevisionImpl) {
+                expected.put(head.getName(), ((AbstractGitSCMSource.SCMRevisionImpl) revision).getHash());
+            } else if (head instanceof PullRequestSCMHead && revision instanceof PullRequestSCMRevision) {
+                expected.put(pullRequestKey(((PullRequestSCMHead) head).getNumber()),
+                        ((PullRequestSCMRevision) revision).getPullHash());
+            }
+        }
+        return new Check(event, source, expected, before);
+    }
+
+    private static String pullRequestKey(int number) {
+        return "#" + number;
+    }
+
+    private static String endpoint(@CheckForNull String apiUri) {
+        return StringUtils.defaultIfBlank(apiUri, GitHubSCMSource.GITHUB_URL);
+    }
+
+    /**
+     * Records that the API of an endpoint caught up with an event.
+     *
+     * @param apiUri the API endpoint.
+     * @param millis how long the event waited for the API to catch up.
+     */
+    static void record(@CheckForNull String apiUri, long millis) {
+        EFFECTIVE_DELAY_MILLIS.merge(endpoint(apiUri), millis, (average, latest) -> (average * 3 + latest) / 4);
+    }
+
+    /**
+     * Schedules the event to be fired again unless that is already scheduled or the event has waited long enough.
+     *
+     * @param event  the event.
+     * @param apiUri the API endpoint.
+     */
+    private static void retry(@NonNull SCMHeadEvent<?> event, @CheckForNull String apiUri) {
+        long delay;
+        List<Runnable> settled;
+        synchronized (AdaptiveEventDelay.class) {
+            Retries retries = RETRIES.computeIfAbsent(event, e -> new Retries());
+            if (retries.scheduled || retries.done) {
+                // another source has already asked for a retry of this attempt
+                return;
+            }
+            long maxMillis = TimeUnit.SECONDS.toMillis(GitHubSCMSource.getEventDelaySeconds());
+            delay = Math.min(BACKOFF_MILLIS << Math.min(retries.count, 20), maxMillis - retries.waitedMillis);
+            if (delay <= 0) {
+                LOGGER.log(Level.FINE, "Gave up waiting for {0} to catch up with {1}",
+                        new Object[]{endpoint(apiUri), event.description()});
+                record(apiUri, retries.waitedMillis);
+                settled = retries.settle();
+            } else {
+                retries.count++;
+                retries.waitedMillis += delay;
+                retries.scheduled = true;
+                settled = null;
+            }
+        }
+        if (settled != null) {
+            settled.forEach(Runnable::run);
+            return;
+        }
+        LOGGER.log(Level.FINE, "{0} has not caught up with {1}, firing it again in {2}ms",
+                new Object[]{endpoint(apiUri), event.description(), delay});
+        Timer.get().schedule(() -> {
+            synchronized (AdaptiveEventDelay.class) {
+                Retries retries = RETRIES.get(event);
+                if (retries != null) {
+                    retries.scheduled = false;
+                }
+            }
+            SCMHeadEvent.fireNow(event);
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Records that a source retrieved the revisions reported by the event.
+     *
+     * @param event  the event.
+     * @param apiUri the API endpoint.
+     */
+    private static void caughtUp(@NonNull SCMHeadEvent<?> event, @CheckForNull String apiUri) {
+        long waited;
+        List<Runnable> settled;
+        synchronized (AdaptiveEventDelay.class) {
+            Retries retries = RETRIES.computeIfAbsent(event, e -> new Retries());
+            if (retries.done) {
+                return;
+            }
+            waited = retries.waitedMillis;
+            settled = retries.settle();
+        }
+        record(apiUri, waited);
+        settled.forEach(Runnable::run);
+    }
+
+    /**
+     * Runs a callback once an event that has just been fired has settled, i.e. once the API caught up with it or it
+     * stopped being retried. Runs the callback immediately when the adaptive event delay is disabled.
+     *
+     * @param event    the event.
+     * @param callback the callback.
+     */
+    static void whenSettled(@NonNull SCMHeadEvent<?> event, @NonNull Runnable callback) {
+        if (enabled) {
+            synchronized (AdaptiveEventDelay.class) {
+                Retries retries = RETRIES.computeIfAbsent(event, e -> new Retries());
+                if (!retries.done) {
+                    retries.settled.add(callback);
+                    // retries never wait longer than the event delay in total, so by then every source that checks
+                    // the event has either caught up or given up, unless no source checks the event at all
+                    Timer.get().schedule(() -> settle(event), 2L * GitHubSCMSource.getEventDelaySeconds(),
+                            TimeUnit.SECONDS);
+                    return;
+                }
+            }
+        }
+        callback.run();
+    }
+
+    /**
+     * Stops retrying an event and runs the callbacks waiting for it to settle.
+     *
+     * @param event the event.
+     */
+    private static void settle(@NonNull SCMHeadEvent<?> event) {
+        List<Runnable> settled;
+        synchronized (AdaptiveEventDelay.class) {
+            Retries retries = RETRIES.get(event);
+            if (retries == null || retries.done) {
+                return;
+            }
+            settled = retries.settle();
+        }
+        settled.forEach(Runnable::run);
+    }
+
+    /**
+     * The retries of an event.
+     */
+    private static final class Retries {
+        private final List<Runnable> settled = new ArrayList<>();
+        private int count;
+        private long waitedMillis;
+        private boolean scheduled;
+        private boolean done;
+
+        /**
+         * Marks the event as done with.
+         *
+         * @return the callbacks waiting for the event to settle, to be run outside of the lock.
+         */
+        @GuardedBy("AdaptiveEventDelay.class")
+        List<Runnable> settle() {
+            done = true;
+            if (settled.isEmpty()) {
+                return Collections.emptyList();
+            }
+            List<Runnable> result = new ArrayList<>(settled);
+            settled.clear();
+            return result;
+        }
+    }
+
+    /**
+     * Compares the revisions retrieved by a source with the revisions reported by an event. A head is only taken to
+     * be stale when the API still reports the revision it had before the event, or when the event created it and the
+     * API does not list it yet. Any other revision means that the API caught up with the event and the head has
+     * moved on since.
+     */
+    static final class Check {
+        @CheckForNull
+        private final SCMHeadEvent<?> event;
+        @NonNull
+        private final GitHubSCMSource source;
+        @NonNull
+        private final Map<String, String> expected;
+        @CheckForNull
+        private final String before;
+        private final Set<String> retrieved = new HashSet<>();
+        private boolean matched;
+        private boolean stale;
+
+        private Check(@CheckForNull SCMHeadEvent<?> event, @NonNull GitHubSCMSource source,
+                      @NonNull Map<String, String> expected, @CheckForNull String before) {
+            this.event = event;
+            this.source = source;
+            this.expected = expected;
+            this.before = before;
+        }
+
+        /**
+         * Compares a retrieved branch.
+         *
+         * @param name the name of the branch.
+         * @param sha  the retrieved revision.
+         */
+        void branch(@NonNull String name, @CheckForNull String sha) {
+            compare(name, sha);
+        }
+
+        /**
+         * Compares a retrieved pull request.
+         *
+         * @param number the number of the pull request.
+         * @param sha    the retrieved revision of the head of the pull request.
+         */
+        void pullRequest(int number, @CheckForNull String sha) {
+            compare(pullRequestKey(number), sha);
+        }
+
+        private void compare(String key, @CheckForNull String sha) {
+            String revision = expected.get(key);
+            if (revision == null) {
+                return;
+            }
+            retrieved.add(key);
+            if (before != null && before.equals(sha)) {
+                stale = true;
+            } else {
+                matched = true;
+            }
+        }
+
+        /**
+         * Completes the check, scheduling a retry of the event if the API had not caught up with it.
+         */
+        void complete() {
+            if (event == null) {
+                return;
+            }
+            if (event.getType() == SCMEvent.Type.CREATED && !retrieved.containsAll(expected.keySet())) {
+                // a head that was created by the event may not be listed at all yet
+                stale = true;
+            }
+            if (stale) {
+                retry(event, source.getApiUri());
+            } else if (matched) {
+                caughtUp(event, source.getApiUri());
+            }
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.github_branch_source;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * Decides from the paths changed by a push whether the push is relevant to a source, so that pushes that only
+ * change ignored paths (such as documentation) do not trigger builds.
+ * <p>
+ * Globs are matched against paths relative to the root of the repository and follow the usual conventions:
+ * {@code *} and {@code ?} do not cross directory separators, {@code **} does, a glob without a {@code /} matches
+ * the file name at any depth and a glob ending in {@code /} matches everything below that directory.
+ *
+ * @see ChangedPathFilterTrait
+ * @since 2.9.2
+ */
+public final class ChangedPathFilter {
+
+    /**
+     * The number of pushes that did not trigger a build because they only changed ignored paths.
+     */
+    private static final AtomicLong SUPPRESSED = new AtomicLong();
+
+    /**
+     * The paths to consider, empty to consider every path.
+     */
+    @NonNull
+    private final List<Pattern> includes;
+
+    /**
+     * The paths to ignore.
+     */
+    @NonNull
+    private final List<Pattern> excludes;
+
+    /**
+     * Constructor.
+     *
+     * @param includes the whitespace or comma separated globs of the paths to consider, blank for every path.
+     * @param excludes the whitespace or comma separated globs of the paths to ignore.
+     */
+    public ChangedPathFilter(@CheckForNull String includes, @CheckForNull String excludes) {
+        this.includes = compile(includes);
+        this.excludes = compile(excludes);
+    }
+
+    /**
+     * Checks if a changed path is relevant.
+     *
+     * @param path the path relative to the root of the repository.
+     * @return {@code true} if changes to the path should trigger builds.
+     */
+    public boolean isRelevant(@NonNull String path) {
+        return (includes.isEmpty() || matches(includes, path)) && !matches(excludes, path);
+    }
+
+    /**
+     * Checks if every one of the changed paths is ignored.
+     *
+     * @param paths the changed paths.
+     * @return {@code true} if there are changed paths and none of them are relevant.
+     */
+    public boolean isIgnored(@NonNull Collection<String> paths) {
+        if (paths.isEmpty()) {
+            // nothing to go on, e.g. an empty commit or a push of existing commits
+            return false;
+        }
+        for (String path : paths) {
+            if (isRelevant(path)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Records that a push did not trigger a build because it only changed ignored paths.
+     *
+     * @return the number of pushes suppressed so far.
+     */
+    static long suppressed() {
+        return SUPPRESSED.incrementAndGet();
+    }
+
+    /**
+     * Returns the number of pushes that did not trigger a build because they only changed ignored paths.
+     *
+     * @return the number of suppressed pushes.
+     */
+    public static long getSuppressedCount() {
+        return SUPPRESSED.get();
+    }
+
+    private static boolean matches(List<Pattern> patterns, String path) {
+        for (Pattern pattern : patterns) {
+            if (pattern.matcher(path).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @NonNull
+    private static List<Pattern> compile(@CheckForNull String globs) {
+        if (StringUtils.isBlank(globs)) {
+            return Collections.emptyList();
+        }
+        List<Pattern> result = new ArrayList<>();
+        for (String glob : globs.trim().split("[\\s,]+")) {
+            if (!glob.isEmpty()) {
+                result.add(toPattern(glob));
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Converts a glob to a regular expression.
+     *
+     * @param glob the glob.
+     * @return the regular expression.
+     */
+    @NonNull
+    static Pattern toPattern(@NonNull String glob) {
+        if (glob.endsWith("/")) {
+            glob = glob + "**";
+        }
+        if (glob.startsWith("/")) {
+            glob = glob.substring(1);
+        } else if (glob.indexOf('/') == -1) {
+            glob = "**/" + glob;
+        }
+        StringBuilder regex = new StringBuilder();
+        int length = glob.length();
+        for (int i = 0; i < length; i++) {
+            char c = glob.charAt(i);
+            if (c == '*' && i + 1 < length && glob.charAt(i + 1) == '*') {
+                if (i + 2 < length && glob.charAt(i + 2) == '/') {
+                    regex.append("(?:.*/)?");
+                    i += 2;
+                } else {
+                    regex.append(".*");
+                    i++;
+                }
+            } else if (c == '*') {
+                regex.append("[^/]*");
+            } else if (c == '?') {
+                regex.append("[^/]");
+            } else {
+                if ("\\.[]{}()<>+-=!^$|".indexOf(c) != -1) {
+                    regex.append('\\');
+                }
+                regex.append(c);
+            }
+        }
+        return Pattern.compile(regex.toString());
+    }
+}
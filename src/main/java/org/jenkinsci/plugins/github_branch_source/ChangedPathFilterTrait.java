@@ -0,0 +1,131 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.github_branch_source;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import jenkins.scm.api.SCMSource;
+import jenkins.scm.api.trait.SCMSourceContext;
+import jenkins.scm.api.trait.SCMSourceTrait;
+import jenkins.scm.api.trait.SCMSourceTraitDescriptor;
+import jenkins.scm.impl.trait.Selection;
+import org.apache.commons.lang.StringUtils;
+import org.jenkinsci.Symbol;
+import org.kohsuke.stapler.DataBoundConstructor;
+
+/**
+ * A {@link SCMSourceTrait} that ignores push events to branches that only change paths that are not relevant to
+ * the build, such as documentation. Only the event is dropped: scans of the repository are not affected, so the next
+ * scan still builds the new revision of the branch.
+ *
+ * @since 2.9.2
+ */
+public class ChangedPathFilterTrait extends SCMSourceTrait {
+
+    /**
+     * The globs of the paths to consider, blank for every path.
+     */
+    @NonNull
+    private final String includes;
+
+    /**
+     * The globs of the paths to ignore.
+     */
+    @NonNull
+    private final String excludes;
+
+    /**
+     * Constructor for stapler.
+     *
+     * @param includes the whitespace or comma separated globs of the paths to consider, blank for every path.
+     * @param excludes the whitespace or comma separated globs of the paths to ignore.
+     */
+    @DataBoundConstructor
+    public ChangedPathFilterTrait(@CheckForNull String includes, @CheckForNull String excludes) {
+        this.includes = StringUtils.defaultString(includes).trim();
+        this.excludes = StringUtils.defaultString(excludes).trim();
+    }
+
+    /**
+     * Returns the globs of the paths to consider.
+     *
+     * @return the globs of the paths to consider, blank for every path.
+     */
+    @NonNull
+    public String getIncludes() {
+        return includes;
+    }
+
+    /**
+     * Returns the globs of the paths to ignore.
+     *
+     * @return the globs of the paths to ignore.
+     */
+    @NonNull
+    public String getExcludes() {
+        return excludes;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void decorateContext(SCMSourceContext<?, ?> context) {
+        ((GitHubSCMSourceContext) context).withChangedPathFilter(new ChangedPathFilter(includes, excludes));
+    }
+
+    /**
+     * Our descriptor.
+     */
+    @Symbol("gitHubChangedPathFilter")
+    @Extension
+    @Selection
+    public static class DescriptorImpl extends SCMSourceTraitDescriptor {
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String getDisplayName() {
+            return Messages.ChangedPathFilterTrait_displayName();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Class<? extends SCMSourceContext> getContextClass() {
+            return GitHubSCMSourceContext.class;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Class<? extends SCMSource> getSourceClass() {
+            return GitHubSCMSource.class;
+        }
+    }
+}
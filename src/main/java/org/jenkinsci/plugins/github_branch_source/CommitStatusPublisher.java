@@ -0,0 +1,429 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.github_branch_source;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.Computer;
+import hudson.model.Job;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.util.Timer;
+import net.jcip.annotations.GuardedBy;
+
+/**
+ * Publishes commit statuses in the background so that a slow or unavailable GitHub never holds up a build.
+ * <p>
+ * Statuses are queued per repository, commit and context. A status that is still queued when a later status for
+ * the same repository, commit and context is submitted is dropped, e.g. a pending status is never posted after the
+ * build result. Statuses for the same key are posted one at a time, in order, and failed posts are retried with an
+ * exponential backoff. A status identical to the last one posted for the same key is not posted again.
+ */
+final class CommitStatusPublisher {
+
+    /**
+     * Our logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(CommitStatusPublisher.class.getName());
+
+    /**
+     * How many times to try posting a status.
+     */
+    static final int MAX_ATTEMPTS = 5;
+
+    /**
+     * The delay before the first retry, doubled for each further retry.
+     */
+    static final long BACKOFF_MILLIS = 1000L;
+
+    /**
+     * How long to remember the last status posted for each key.
+     */
+    static final long POSTED_TTL_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    /**
+     * How many keys to remember the last posted status of.
+     */
+    static final int POSTED_MAX_ENTRIES = 10000;
+
+    /**
+     * The publisher of the build statuses.
+     */
+    static final CommitStatusPublisher STATUSES = new CommitStatusPublisher(
+            task -> Computer.threadPoolForRemoting.submit(task),
+            (task, delayMillis) -> Timer.get().schedule(task, delayMillis, TimeUnit.MILLISECONDS),
+            GitHubBuildStatusNotification::postCommitStatus);
+
+    /**
+     * Runs the posts.
+     */
+    @NonNull
+    private final Executor executor;
+
+    /**
+     * Schedules the retries.
+     */
+    @NonNull
+    private final Scheduler scheduler;
+
+    /**
+     * Posts a status.
+     */
+    @NonNull
+    private final Poster poster;
+
+    /**
+     * The latest status of each key that has yet to be posted.
+     */
+    @GuardedBy("this")
+    private final Map<String, Status> queued = new LinkedHashMap<>();
+
+    /**
+     * The keys that are being posted or waiting for a retry.
+     */
+    @GuardedBy("this")
+    private final Set<String> active = new HashSet<>();
+
+    /**
+     * The keys waiting for a retry.
+     */
+    @GuardedBy("this")
+    private final Set<String> retrying = new HashSet<>();
+
+    /**
+     * {@code true} once shutting down, when failed posts are no longer retried.
+     */
+    @GuardedBy("this")
+    private boolean draining;
+
+    /**
+     * The number of statuses that were dropped because a later status replaced them.
+     */
+    private final AtomicLong superseded = new AtomicLong();
+
+    /**
+     * The last status posted for each key.
+     */
+    private final TimedCache<String, String> posted = new TimedCache<>(POSTED_TTL_MILLIS, POSTED_MAX_ENTRIES);
+
+    /**
+     * The number of statuses that were not posted because they were identical to the last one posted.
+     */
+    private final AtomicLong unchanged = new AtomicLong();
+
+    /**
+     * Constructor.
+     *
+     * @param executor  runs the posts.
+     * @param scheduler schedules the retries.
+     * @param poster    posts a status.
+     */
+    CommitStatusPublisher(@NonNull Executor executor, @NonNull Scheduler scheduler, @NonNull Poster poster) {
+        this.executor = executor;
+        this.scheduler = scheduler;
+        this.poster = poster;
+    }
+
+    /**
+     * Queues a status to be posted.
+     *
+     * @param status the status.
+     */
+    void submit(@NonNull Status status) {
+        boolean start;
+        synchronized (this) {
+            if (queued.put(status.key, status) != null) {
+                long count = superseded.incrementAndGet();
+                LOGGER.log(Level.FINE, "Replaced the queued status of {0}, {1} statuses replaced so far",
+                        new Object[]{status.key, count});
+            }
+            start = active.add(status.key);
+        }
+        if (start) {
+            executor.execute(() -> run(status.key));
+        }
+    }
+
+    /**
+     * Posts the queued statuses of a key until there are none left or a post fails.
+     *
+     * @param key the key.
+     */
+    private void run(@NonNull String key) {
+        while (true) {
+            Status status;
+            synchronized (this) {
+                status = queued.remove(key);
+                if (status == null) {
+                    active.remove(key);
+                    notifyAll();
+                    return;
+                }
+            }
+            long retryMillis = publish(status);
+            if (retryMillis >= 0) {
+                synchronized (this) {
+                    // a later status replaces the one that failed
+                    queued.putIfAbsent(key, status);
+                    retrying.add(key);
+                }
+                scheduler.schedule(() -> resume(key), retryMillis);
+                return;
+            }
+        }
+    }
+
+    private void resume(@NonNull String key) {
+        synchronized (this) {
+            if (!retrying.remove(key)) {
+                // already resumed by the drain
+                return;
+            }
+        }
+        run(key);
+    }
+
+    /**
+     * Posts a status.
+     *
+     * @param status the status.
+     * @return the delay before retrying or {@code -1} if the status does not need to be retried.
+     */
+    private long publish(@NonNull Status status) {
+        String payload = status.payload();
+        if (payload.equals(posted.get(status.key))) {
+            long count = unchanged.incrementAndGet();
+            LOGGER.log(Level.FINER, "Commit status of {0} unchanged, {1} statuses not posted again so far",
+                    new Object[]{status.key, count});
+            return -1L;
+        }
+        try {
+            poster.post(status);
+            posted.put(status.key, payload);
+            return -1L;
+        } catch (FileNotFoundException e) {
+            if (!status.request.isIgnoreError()) {
+                LOGGER.log(Level.WARNING, "Could not update commit status of " + status.description
+                        + ", please check if your scan credentials belong to a member of the organization or a "
+                        + "collaborator of the repository and repo:status scope is selected",
+                        LOGGER.isLoggable(Level.FINE) ? e : null);
+            }
+            return -1L;
+        } catch (IOException | RuntimeException e) {
+            status.attempts++;
+            boolean retry;
+            synchronized (this) {
+                retry = !draining && status.attempts < MAX_ATTEMPTS;
+            }
+            if (!retry) {
+                LOGGER.log(Level.WARNING, "Could not update commit status of " + status.description + " after "
+                        + status.attempts + " attempts. Message: " + e.getMessage(),
+                        LOGGER.isLoggable(Level.FINE) ? e : null);
+                return -1L;
+            }
+            LOGGER.log(Level.FINE, "Could not update commit status of " + status.description + ", will retry", e);
+            return BACKOFF_MILLIS << (status.attempts - 1);
+        }
+    }
+
+    /**
+     * Posts the queued statuses, without retrying failed posts, waiting at most the timeout for them to complete.
+     *
+     * @param timeoutMillis the timeout in milliseconds.
+     * @return {@code true} if every status has been posted or given up on.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    boolean drain(long timeoutMillis) throws InterruptedException {
+        List<String> resume;
+        synchronized (this) {
+            draining = true;
+            resume = new ArrayList<>(retrying);
+            retrying.clear();
+        }
+        for (String key : resume) {
+            executor.execute(() -> run(key));
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        synchronized (this) {
+            while (!active.isEmpty()) {
+                long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remaining <= 0) {
+                    LOGGER.log(Level.WARNING, "Gave up waiting for {0} commit statuses to be posted", active.size());
+                    return false;
+                }
+                wait(remaining);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of statuses that were dropped because a later status replaced them.
+     *
+     * @return the number of superseded statuses.
+     */
+    long getSupersededCount() {
+        return superseded.get();
+    }
+
+    /**
+     * Returns the number of statuses that were not posted because they were identical to the last one posted.
+     *
+     * @return the number of unchanged statuses.
+     */
+    long getUnchangedCount() {
+        return unchanged.get();
+    }
+
+    /**
+     * Returns the number of keys with statuses being posted or waiting to be posted.
+     *
+     * @return the number of active keys.
+     */
+    synchronized int getActiveCount() {
+        return active.size();
+    }
+
+    /**
+     * A status to post.
+     */
+    static final class Status {
+        /**
+         * Identifies the repository, commit and context.
+         */
+        @NonNull
+        private final String key;
+        /**
+         * The job whose credentials are used to post the status.
+         */
+        @NonNull
+        private final Job<?, ?> job;
+        /**
+         * The commit.
+         */
+        @NonNull
+        private final String hash;
+        /**
+         * The status.
+         */
+        @NonNull
+        private final GitHubNotificationRequest request;
+        /**
+         * Describes the status in log messages.
+         */
+        @NonNull
+        private final String description;
+        /**
+         * The number of failed attempts to post the status.
+         */
+        private int attempts;
+
+        /**
+         * Constructor.
+         *
+         * @param source      the source of the repository.
+         * @param job         the job whose credentials are used to post the status.
+         * @param hash        the commit.
+         * @param request     the status.
+         * @param description describes the status in log messages.
+         */
+        Status(@NonNull GitHubSCMSource source, @NonNull Job<?, ?> job, @NonNull String hash,
+               @NonNull GitHubNotificationRequest request, @NonNull String description) {
+            this(source.getApiUri() + ' ' + source.getRepoOwner() + '/' + source.getRepository() + '@' + hash + ' '
+                    + request.getContext(), job, hash, request, description);
+        }
+
+        Status(@NonNull String key, @NonNull Job<?, ?> job, @NonNull String hash,
+               @NonNull GitHubNotificationRequest request, @NonNull String description) {
+            this.key = key;
+            this.job = job;
+            this.hash = hash;
+            this.request = request;
+            this.description = description;
+        }
+
+        @NonNull
+        Job<?, ?> getJob() {
+            return job;
+        }
+
+        @NonNull
+        String getHash() {
+            return hash;
+        }
+
+        @NonNull
+        GitHubNotificationRequest getRequest() {
+            return request;
+        }
+
+        /**
+         * Returns what is posted for this status, to tell if it differs from the last status posted.
+         *
+         * @return the state, target URL and description.
+         */
+        @NonNull
+        String payload() {
+            return request.getState() + "\n" + request.getUrl() + "\n" + request.getMessage();
+        }
+    }
+
+    /**
+     * Posts a status.
+     */
+    @FunctionalInterface
+    interface Poster {
+        /**
+         * Posts a status.
+         *
+         * @param status the status.
+         * @throws IOException if the status could not be posted.
+         */
+        void post(@NonNull Status status) throws IOException;
+    }
+
+    /**
+     * Schedules a task.
+     */
+    @FunctionalInterface
+    interface Scheduler {
+        /**
+         * Schedules a task.
+         *
+         * @param task        the task.
+         * @param delayMillis the delay in milliseconds.
+         */
+        void schedule(@NonNull Runnable task, long delayMillis);
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.github_branch_source;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import jenkins.scm.api.SCMHeadObserver;
+import jenkins.scm.api.mixin.ChangeRequestCheckoutStrategy;
+import jenkins.scm.api.trait.SCMHeadPrefilter;
+import jenkins.scm.api.trait.SCMSourceTrait;
+
+/**
+ * An immutable view of what the traits of a {@link GitHubSCMSource} decorate a {@link GitHubSCMSourceContext} with,
+ * so that the paths that only need to know the configuration (events, notifications, single head retrieval) do not
+ * decorate a new context every time.
+ *
+ * @see GitHubSCMSource#compiledTraits()
+ */
+final class CompiledTraits {
+
+    /**
+     * The traits this view was compiled from.
+     */
+    @NonNull
+    private final SCMSourceTrait[] traits;
+    private final boolean wantBranches;
+    private final boolean wantTags;
+    private final boolean wantOriginPRs;
+    private final boolean wantForkPRs;
+    @NonNull
+    private final Set<ChangeRequestCheckoutStrategy> originPRStrategies;
+    @NonNull
+    private final Set<ChangeRequestCheckoutStrategy> forkPRStrategies;
+    @NonNull
+    private final List<SCMHeadPrefilter> prefilters;
+    @NonNull
+    private final List<AbstractGitHubNotificationStrategy> notificationStrategies;
+    private final boolean notificationsDisabled;
+    @NonNull
+    private final List<ChangedPathFilter> changedPathFilters;
+    @CheckForNull
+    private final List<String> refPrefixes;
+
+    /**
+     * Constructor.
+     *
+     * @param traits the traits.
+     */
+    CompiledTraits(@NonNull List<SCMSourceTrait> traits) {
+        this.traits = traits.toArray(new SCMSourceTrait[0]);
+        GitHubSCMSourceContext context = new GitHubSCMSourceContext(null, SCMHeadObserver.none())
+                .withTraits(traits);
+        this.wantBranches = context.wantBranches();
+        this.wantTags = context.wantTags();
+        this.wantOriginPRs = context.wantOriginPRs();
+        this.wantForkPRs = context.wantForkPRs();
+        this.originPRStrategies = immutable(context.originPRStrategies());
+        this.forkPRStrategies = immutable(context.forkPRStrategies());
+        this.prefilters = Collections.unmodifiableList(new ArrayList<>(context.prefilters()));
+        this.notificationStrategies = Collections.unmodifiableList(new ArrayList<>(context.notificationStrategies()));
+        this.notificationsDisabled = context.notificationsDisabled();
+        this.changedPathFilters = Collections.unmodifiableList(new ArrayList<>(context.changedPathFilters()));
+        this.refPrefixes = RefPrefixes.of(traits);
+    }
+
+    private static Set<ChangeRequestCheckoutStrategy> immutable(Set<ChangeRequestCheckoutStrategy> strategies) {
+        return Collections.unmodifiableSet(strategies.isEmpty()
+                ? EnumSet.noneOf(ChangeRequestCheckoutStrategy.class)
+                : EnumSet.copyOf(strategies));
+    }
+
+    /**
+     * Checks if this view was compiled from the supplied traits, which may have been changed in place.
+     *
+     * @param traits the current traits.
+     * @return {@code true} if the traits are the same instances, in the same order, as when compiled.
+     */
+    boolean isCompiledFrom(@NonNull List<SCMSourceTrait> traits) {
+        if (traits.size() != this.traits.length) {
+            return false;
+        }
+        for (int i = 0; i < this.traits.length; i++) {
+            if (traits.get(i) != this.traits[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns {@code true} if the traits want information about branches.
+     *
+     * @return {@code true} if the traits want information about branches.
+     * @see GitHubSCMSourceContext#wantBranches()
+     */
+    boolean wantBranches() {
+        return wantBranches;
+    }
+
+    /**
+     * Returns {@code true} if the traits want information about tags.
+     *
+     * @return {@code true} if the traits want information about tags.
+     * @see GitHubSCMSourceContext#wantTags()
+     */
+    boolean wantTags() {
+        return wantTags;
+    }
+
+    /**
+     * Returns {@code true} if the traits want information about origin or fork pull requests.
+     *
+     * @return {@code true} if the traits want information about pull requests.
+     * @see GitHubSCMSourceContext#wantPRs()
+     */
+    boolean wantPRs() {
+        return wantOriginPRs || wantForkPRs;
+    }
+
+    /**
+     * Returns {@code true} if the traits want information about pull requests from the origin repository.
+     *
+     * @return {@code true} if the traits want information about origin pull requests.
+     * @see GitHubSCMSourceContext#wantOriginPRs()
+     */
+    boolean wantOriginPRs() {
+        return wantOriginPRs;
+    }
+
+    /**
+     * Returns {@code true} if the traits want information about pull requests from forks.
+     *
+     * @return {@code true} if the traits want information about fork pull requests.
+     * @see GitHubSCMSourceContext#wantForkPRs()
+     */
+    boolean wantForkPRs() {
+        return wantForkPRs;
+    }
+
+    /**
+     * Returns the set of {@link ChangeRequestCheckoutStrategy} to create for each origin pull request.
+     *
+     * @return the unmodifiable set of strategies for each origin pull request.
+     * @see GitHubSCMSourceContext#originPRStrategies()
+     */
+    @NonNull
+    Set<ChangeRequestCheckoutStrategy> originPRStrategies() {
+        return originPRStrategies;
+    }
+
+    /**
+     * Returns the set of {@link ChangeRequestCheckoutStrategy} to create for each fork pull request.
+     *
+     * @return the unmodifiable set of strategies for each fork pull request.
+     * @see GitHubSCMSourceContext#forkPRStrategies()
+     */
+    @NonNull
+    Set<ChangeRequestCheckoutStrategy> forkPRStrategies() {
+        return forkPRStrategies;
+    }
+
+    /**
+     * Returns the {@link SCMHeadPrefilter} instances that the traits apply before heads are observed.
+     *
+     * @return the unmodifiable list of prefilters.
+     * @see GitHubSCMSourceContext#prefilters()
+     */
+    @NonNull
+    List<SCMHeadPrefilter> prefilters() {
+        return prefilters;
+    }
+
+    /**
+     * Returns the strategies used to notify GitHub of build status.
+     *
+     * @return the unmodifiable list of notification strategies.
+     * @see GitHubSCMSourceContext#notificationStrategies()
+     */
+    @NonNull
+    List<AbstractGitHubNotificationStrategy> notificationStrategies() {
+        return notificationStrategies;
+    }
+
+    /**
+     * Returns {@code true} if the traits disable build status notifications.
+     *
+     * @return {@code true} if notifications are disabled.
+     * @see GitHubSCMSourceContext#notificationsDisabled()
+     */
+    boolean notificationsDisabled() {
+        return notificationsDisabled;
+    }
+
+    /**
+     * Returns the filters that decide whether a change to some paths is relevant to the source.
+     *
+     * @return the unmodifiable list of changed path filters.
+     * @see GitHubSCMSourceContext#changedPathFilters()
+     */
+    @NonNull
+    List<ChangedPathFilter> changedPathFilters() {
+        return changedPathFilters;
+    }
+
+    /**
+     * Returns the prefixes that the names of every wanted branch and tag start with.
+     *
+     * @return the prefixes or {@code null} if every branch and tag needs to be listed.
+     * @see RefPrefixes
+     */
+    @CheckForNull
+    List<String> refPrefixes() {
+        return refPrefixes;
+    }
+}
@@ -313,17 +313,7 @@ public class Connector {
     }
 
     public static void checkApiUrlValidity(@Nonnull GitHub gitHub, @CheckForNull StandardCredentials credentials) throws IOException {
-        String hash;
-        if (credentials == null) {
-            hash = "anonymous";
-        } else if (credentials instanceof StandardUsernamePasswordCredentials) {
-            StandardUsernamePasswordCredentials c = (StandardUsernamePasswordCredentials) credentials;
-            hash = Util.getDigestOf(c.getPassword().getPlainText() + SALT);
-        } else {
-            // TODO OAuth support
-            throw new IOException("Unsupported credential type: " + credentials.getClass().getName());
-        }
-        String key = gitHub.getApiUrl() + "::" + hash;
+        String key = gitHub.getApiUrl() + "::" + getCredentialsHash(credentials);
         synchronized (apiUrlValid) {
             Long last = apiUrlValid.get(key);
             if (last != null && last > System.currentTimeMillis() - API_URL_REVALIDATE_MILLIS) {
@@ -334,6 +324,27 @@ public class Connector {
         }
     }
 
+    /**
+     * Returns a salted digest of the secret of the credentials, which identifies the credentials for the lifetime of
+     * this Jenkins process without revealing the secret.
+     *
+     * @param credentials the credentials or {@code null} for anonymous access.
+     * @return the digest.
+     * @throws IOException if the credentials are not supported.
+     */
+    @Nonnull
+    static String getCredentialsHash(@CheckForNull StandardCredentials credentials) throws IOException {
+        if (credentials == null) {
+            return "anonymous";
+        } else if (credentials instanceof StandardUsernamePasswordCredentials) {
+            StandardUsernamePasswordCredentials c = (StandardUsernamePasswordCredentials) credentials;
+            return Util.getDigestOf(c.getPassword().getPlainText() + SALT);
+        } else {
+            // TODO OAuth support
+            throw new IOException("Unsupported credential type: " + credentials.getClass().getName());
+        }
+    }
+
     public static @Nonnull GitHub connect(@CheckForNull String apiUri, @CheckForNull StandardCredentials credentials) throws IOException {
         String apiUrl = Util.fixEmptyAndTrim(apiUri);
         apiUrl = apiUrl != null ? apiUrl : GitHubServerConfig.GITHUB_URL;
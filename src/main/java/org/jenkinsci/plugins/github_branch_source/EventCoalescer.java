@@ -0,0 +1,231 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.github_branch_source;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.scm.api.SCMHeadEvent;
+import jenkins.util.Timer;
+
+/**
+ * Merges the events received for the same head while waiting to fire them, so that a burst of pushes to a branch
+ * or of updates to a pull request results in a single event, carrying the latest payload, being fired once the
+ * event delay has passed since the first event of the burst.
+ *
+ * @param <E> the type of event.
+ */
+final class EventCoalescer<E> {
+
+    /**
+     * Our logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(EventCoalescer.class.getName());
+
+    /**
+     * The coalescer of the head events fired by the webhook subscribers, other than push events which
+     * {@link PushGHEventSubscriber} coalesces itself as it prepares them before firing.
+     */
+    static final EventCoalescer<SCMHeadEvent<?>> HEAD_EVENTS = new EventCoalescer<>(
+            (task, delay) -> Timer.get().schedule(task, delay, TimeUnit.SECONDS), SCMHeadEvent::fireNow,
+            AdaptiveEventDelay::whenSettled);
+
+    /**
+     * Schedules the firing of the pending events.
+     */
+    @NonNull
+    private final Scheduler scheduler;
+
+    /**
+     * Fires an event.
+     */
+    @NonNull
+    private final Consumer<E> fire;
+
+    /**
+     * Runs the callback once a fired event no longer needs to be fired again.
+     */
+    @NonNull
+    private final BiConsumer<E, Runnable> settle;
+
+    /**
+     * The pending event of each head.
+     */
+    private final Map<String, Pending<E>> pending = new ConcurrentHashMap<>();
+
+    /**
+     * The number of events that have been superseded by a later event for the same head.
+     */
+    private final AtomicLong suppressed = new AtomicLong();
+
+    /**
+     * Constructor.
+     *
+     * @param scheduler schedules the firing of the pending events.
+     * @param fire      fires an event.
+     */
+    EventCoalescer(@NonNull Scheduler scheduler, @NonNull Consumer<E> fire) {
+        this(scheduler, fire, (event, callback) -> callback.run());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param scheduler schedules the firing of the pending events.
+     * @param fire      fires an event.
+     * @param settle    runs the callback once a fired event no longer needs to be fired again.
+     */
+    EventCoalescer(@NonNull Scheduler scheduler, @NonNull Consumer<E> fire, @NonNull BiConsumer<E, Runnable> settle) {
+        this.scheduler = scheduler;
+        this.fire = fire;
+        this.settle = settle;
+    }
+
+    /**
+     * Fires the event after the delay, unless another event for the same head is submitted in the meantime, in which
+     * case only the later event is fired, still at the end of the delay of the first event.
+     *
+     * @param key          identifies the repository and head of the event.
+     * @param event        the event.
+     * @param delaySeconds the delay in seconds.
+     */
+    void submit(@NonNull final String key, @NonNull E event, long delaySeconds) {
+        submit(key, event, delaySeconds, (previous, latest) -> latest);
+    }
+
+    /**
+     * Fires the event after the delay, unless another event for the same head is submitted in the meantime, in which
+     * case the events are merged and the result is fired, still at the end of the delay of the first event.
+     *
+     * @param key          identifies the repository and head of the event.
+     * @param event        the event.
+     * @param delaySeconds the delay in seconds.
+     * @param merge        merges the pending event with a later one, returning the event to fire.
+     */
+    void submit(@NonNull final String key, @NonNull E event, long delaySeconds, @NonNull BinaryOperator<E> merge) {
+        submit(key, event, delaySeconds, merge, null);
+    }
+
+    /**
+     * Fires the event after the delay, unless another event for the same head is submitted in the meantime, in which
+     * case the events are merged and the result is fired, still at the end of the delay of the first event.
+     *
+     * @param key          identifies the repository and head of the event.
+     * @param event        the event.
+     * @param delaySeconds the delay in seconds.
+     * @param merge        merges the pending event with a later one, returning the event to fire.
+     * @param fired        (optional) notified once the event, or the event it was merged into, has been fired and
+     *                     no longer needs to be fired again.
+     */
+    void submit(@NonNull final String key, @NonNull E event, long delaySeconds, @NonNull BinaryOperator<E> merge,
+                @CheckForNull Runnable fired) {
+        boolean[] first = new boolean[1];
+        pending.compute(key, (k, previous) -> {
+            first[0] = previous == null;
+            Pending<E> result = previous == null
+                    ? new Pending<>(event)
+                    : new Pending<>(merge.apply(previous.event, event), previous.fired);
+            if (fired != null) {
+                result.fired.add(fired);
+            }
+            return result;
+        });
+        if (!first[0]) {
+            long count = suppressed.incrementAndGet();
+            LOGGER.log(Level.FINE, "Coalesced event for {0} with a pending event, {1} events coalesced so far",
+                    new Object[]{key, count});
+            return;
+        }
+        scheduler.schedule(() -> {
+            Pending<E> latest = pending.remove(key);
+            if (latest != null) {
+                fire.accept(latest.event);
+                if (!latest.fired.isEmpty()) {
+                    settle.accept(latest.event, () -> latest.fired.forEach(Runnable::run));
+                }
+            }
+        }, Math.max(0L, delaySeconds));
+    }
+
+    /**
+     * Returns the number of events that were not fired because a later event for the same head replaced them.
+     *
+     * @return the number of suppressed events.
+     */
+    long getSuppressedCount() {
+        return suppressed.get();
+    }
+
+    /**
+     * Returns the number of heads with an event waiting to be fired.
+     *
+     * @return the number of pending events.
+     */
+    int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * An event waiting to be fired.
+     *
+     * @param <E> the type of event.
+     */
+    private static final class Pending<E> {
+        private final E event;
+        private final List<Runnable> fired;
+
+        Pending(E event) {
+            this(event, new ArrayList<>());
+        }
+
+        Pending(E event, List<Runnable> fired) {
+            this.event = event;
+            this.fired = fired;
+        }
+    }
+
+    /**
+     * Schedules a task.
+     */
+    @FunctionalInterface
+    interface Scheduler {
+        /**
+         * Schedules a task.
+         *
+         * @param task         the task.
+         * @param delaySeconds the delay in seconds.
+         */
+        void schedule(@NonNull Runnable task, long delaySeconds);
+    }
+}
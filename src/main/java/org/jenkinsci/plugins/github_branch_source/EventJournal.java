@@ -0,0 +1,412 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.github_branch_source;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.model.listeners.ItemListener;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.Jenkins;
+import net.jcip.annotations.GuardedBy;
+import org.apache.commons.codec.binary.Hex;
+import org.jenkinsci.plugins.github.extension.GHSubscriberEvent;
+import org.kohsuke.github.GHEvent;
+
+/**
+ * An append only journal of the webhook events that are waiting for the event delay to pass before they are fired,
+ * so that the events that were waiting when the controller stopped are fired once it starts again rather than
+ * being lost until the next full scan.
+ * <p>
+ * The journal also remembers the events received recently, so that a webhook delivered twice is only processed
+ * once. The delivery identifier header is not available to subscribers, so deliveries are identified by a digest
+ * of the event type and payload, which is the same for every delivery of a webhook.
+ */
+final class EventJournal {
+
+    /**
+     * Our logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(EventJournal.class.getName());
+
+    /**
+     * Set to {@code false} to disable the journal.
+     */
+    private static final boolean ENABLED = Boolean.parseBoolean(
+            System.getProperty(GitHubSCMSource.class.getName() + ".eventJournal", "true"));
+
+    /**
+     * The name of the journal file in the Jenkins root directory.
+     */
+    static final String FILENAME = "github-branch-source-events.journal";
+
+    /**
+     * The journal of this controller, once opened.
+     */
+    @GuardedBy("EventJournal.class")
+    @CheckForNull
+    private static EventJournal instance;
+
+    /**
+     * The journal file.
+     */
+    @NonNull
+    private final File file;
+
+    /**
+     * The deliveries received recently.
+     */
+    private final TimedCache<String, Boolean> seen = new TimedCache<>(TimeUnit.HOURS.toMillis(1), 10000);
+
+    /**
+     * The journaled deliveries that have not been fired yet, in order of receipt.
+     */
+    @GuardedBy("this")
+    private final Map<String, Delivery> pending = new LinkedHashMap<>();
+
+    /**
+     * The channel to append to, once opened.
+     */
+    @GuardedBy("this")
+    @CheckForNull
+    private FileChannel channel;
+
+    /**
+     * Constructor.
+     *
+     * @param file the journal file.
+     */
+    EventJournal(@NonNull File file) {
+        this.file = file;
+    }
+
+    /**
+     * Computes the identifier of a delivery.
+     *
+     * @param event the event.
+     * @return the identifier.
+     */
+    @NonNull
+    static String deliveryId(@NonNull GHSubscriberEvent event) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(String.valueOf(event.getGHEvent()).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+            digest.update(event.getPayload().getBytes(StandardCharsets.UTF_8));
+            return Hex.encodeHexString(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is required by the Java platform", e);
+        }
+    }
+
+    /**
+     * Checks if a delivery should be processed, i.e. it has not been received recently.
+     *
+     * @param deliveryId the identifier of the delivery.
+     * @return {@code false} if the delivery is a duplicate.
+     */
+    static boolean accept(@NonNull String deliveryId) {
+        EventJournal journal = get();
+        return journal == null || journal.markSeen(deliveryId);
+    }
+
+    /**
+     * Records a delivery that is waiting to be fired.
+     *
+     * @param deliveryId the identifier of the delivery.
+     * @param event      the event.
+     * @return the callback to run once the delivery has been fired or {@code null} if the journal is not open.
+     */
+    @CheckForNull
+    static Runnable record(@NonNull String deliveryId, @NonNull GHSubscriberEvent event) {
+        EventJournal journal = get();
+        if (journal == null) {
+            return null;
+        }
+        journal.append(new Delivery(deliveryId, event.getGHEvent(), event.getOrigin(), event.getPayload()));
+        return () -> journal.fired(deliveryId);
+    }
+
+    @CheckForNull
+    private static synchronized EventJournal get() {
+        return instance;
+    }
+
+    /**
+     * Remembers a delivery.
+     *
+     * @param deliveryId the identifier of the delivery.
+     * @return {@code false} if the delivery had been seen already.
+     */
+    synchronized boolean markSeen(@NonNull String deliveryId) {
+        if (seen.get(deliveryId) != null) {
+            return false;
+        }
+        seen.put(deliveryId, Boolean.TRUE);
+        return true;
+    }
+
+    /**
+     * Opens the journal, compacting it to the deliveries that were not fired.
+     *
+     * @return the deliveries that were not fired, in order of receipt, to be processed again.
+     * @throws IOException if the journal could not be read or written.
+     */
+    @NonNull
+    synchronized List<Delivery> open() throws IOException {
+        Map<String, Delivery> unfired = new LinkedHashMap<>();
+        if (file.isFile()) {
+            try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] fields = line.split(" ");
+                    try {
+                        if (fields.length == 5 && "A".equals(fields[0])) {
+                            unfired.put(fields[1], Delivery.parse(fields));
+                        } else if (fields.length == 2 && "F".equals(fields[0])) {
+                            unfired.remove(fields[1]);
+                            seen.put(fields[1], Boolean.TRUE);
+                        }
+                        // anything else is a record torn by a crash
+                    } catch (IllegalArgumentException e) {
+                        LOGGER.log(Level.FINE, "Skipping corrupt record in " + file, e);
+                    }
+                }
+            }
+        }
+        File parent = file.getAbsoluteFile().getParentFile();
+        File compacted = File.createTempFile(file.getName(), ".tmp", parent);
+        try (FileChannel out = FileChannel.open(compacted.toPath(), StandardOpenOption.WRITE)) {
+            for (Delivery delivery : unfired.values()) {
+                write(out, delivery.toRecord());
+            }
+            out.force(false);
+        }
+        Files.move(compacted.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        pending.clear();
+        pending.putAll(unfired);
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        return new ArrayList<>(unfired.values());
+    }
+
+    /**
+     * Appends a delivery waiting to be fired.
+     *
+     * @param delivery the delivery.
+     */
+    synchronized void append(@NonNull Delivery delivery) {
+        if (channel == null || pending.containsKey(delivery.id)) {
+            // not open, or a delivery replayed from the journal
+            return;
+        }
+        try {
+            write(channel, delivery.toRecord());
+            channel.force(false);
+            pending.put(delivery.id, delivery);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not append to " + file, e);
+        }
+    }
+
+    /**
+     * Records that a delivery has been fired.
+     *
+     * @param deliveryId the identifier of the delivery.
+     */
+    synchronized void fired(@NonNull String deliveryId) {
+        if (channel == null || pending.remove(deliveryId) == null) {
+            return;
+        }
+        try {
+            if (pending.isEmpty()) {
+                // nothing left to replay, start over rather than growing the journal
+                channel.truncate(0);
+            } else {
+                write(channel, "F " + deliveryId + "\n");
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not append to " + file, e);
+        }
+    }
+
+    /**
+     * Returns the number of deliveries waiting to be fired.
+     *
+     * @return the number of deliveries waiting to be fired.
+     */
+    synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Closes the journal.
+     */
+    synchronized void close() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Could not close " + file, e);
+            }
+            channel = null;
+        }
+    }
+
+    private static void write(FileChannel channel, String record) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(record.getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * A journaled delivery.
+     */
+    static final class Delivery {
+        @NonNull
+        private final String id;
+        @CheckForNull
+        private final GHEvent type;
+        @CheckForNull
+        private final String origin;
+        @NonNull
+        private final String payload;
+
+        Delivery(@NonNull String id, @CheckForNull GHEvent type, @CheckForNull String origin,
+                 @NonNull String payload) {
+            this.id = id;
+            this.type = type;
+            this.origin = origin;
+            this.payload = payload;
+        }
+
+        /**
+         * Recreates the event of the delivery.
+         *
+         * @return the event.
+         */
+        @NonNull
+        GHSubscriberEvent toEvent() {
+            return new GHSubscriberEvent(origin, type, payload);
+        }
+
+        @CheckForNull
+        GHEvent getType() {
+            return type;
+        }
+
+        @NonNull
+        String toRecord() {
+            return "A " + id + ' ' + (type == null ? "-" : type.name()) + ' ' + encode(origin) + ' ' + encode(payload)
+                    + '\n';
+        }
+
+        @NonNull
+        static Delivery parse(@NonNull String[] fields) {
+            return new Delivery(fields[1], "-".equals(fields[2]) ? null : GHEvent.valueOf(fields[2]),
+                    decode(fields[3]), decode(fields[4]));
+        }
+
+        private static String encode(@CheckForNull String value) {
+            return value == null ? "-" : Base64.getEncoder().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        private static String decode(String value) {
+            return "-".equals(value) ? null : new String(Base64.getDecoder().decode(value), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Opens the journal once the items are loaded and replays the deliveries that were not fired before the
+     * controller stopped. Runs after {@link EventRoutingIndex.ListenerImpl} so that the replayed deliveries are
+     * routed by the index.
+     */
+    @Extension(ordinal = -100)
+    public static class ListenerImpl extends ItemListener {
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onLoaded() {
+            if (!ENABLED) {
+                return;
+            }
+            EventJournal journal = new EventJournal(new File(Jenkins.get().getRootDir(), FILENAME));
+            List<Delivery> unfired;
+            try {
+                unfired = journal.open();
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Could not open the webhook event journal, events waiting to be fired "
+                        + "when Jenkins stops will be lost", e);
+                return;
+            }
+            synchronized (EventJournal.class) {
+                if (instance != null) {
+                    instance.close();
+                }
+                instance = journal;
+            }
+            if (!unfired.isEmpty()) {
+                LOGGER.log(Level.INFO, "Replaying {0} webhook events that were waiting to be fired",
+                        unfired.size());
+            }
+            for (Delivery delivery : unfired) {
+                GHSubscriberEvent event = delivery.toEvent();
+                boolean scheduled;
+                if (delivery.getType() == GHEvent.PUSH) {
+                    scheduled = ExtensionList.lookupSingleton(PushGHEventSubscriber.class).process(event, true);
+                } else if (delivery.getType() == GHEvent.PULL_REQUEST) {
+                    scheduled = ExtensionList.lookupSingleton(PullRequestGHEventSubscriber.class).process(event, true);
+                } else {
+                    scheduled = false;
+                }
+                if (!scheduled) {
+                    // dropped this time, e.g. no item is interested any more, so it will never be fired
+                    journal.fired(delivery.id);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,308 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.github_branch_source;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.model.Item;
+import hudson.model.listeners.ItemListener;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.Jenkins;
+import jenkins.scm.api.SCMNavigator;
+import jenkins.scm.api.SCMNavigatorOwner;
+import jenkins.scm.api.SCMSource;
+import jenkins.scm.api.SCMSourceOwner;
+import net.jcip.annotations.GuardedBy;
+
+/**
+ * Indexes the repositories of the {@link GitHubSCMSource}s and the owners of the {@link GitHubSCMNavigator}s of
+ * every item, so that the webhook subscribers can drop events for repositories that no item is interested in
+ * rather than having every source of every item check the event.
+ * <p>
+ * The index is built once all items have been loaded and is maintained as items are created, saved, moved and
+ * deleted. Until the index has been built every event is considered interesting.
+ */
+final class EventRoutingIndex {
+
+    /**
+     * Our logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(EventRoutingIndex.class.getName());
+
+    /**
+     * Set to {@code false} to fire every event regardless of the index.
+     */
+    private static final boolean ENABLED = Boolean.parseBoolean(
+            System.getProperty(GitHubSCMSource.class.getName() + ".eventRoutingIndex", "true"));
+
+    /**
+     * The keys of each item, keyed by the item's full name.
+     */
+    @GuardedBy("EventRoutingIndex.class")
+    private static final Map<String, Set<String>> KEYS_BY_ITEM = new HashMap<>();
+
+    /**
+     * The full names of the items interested in each key.
+     */
+    @GuardedBy("EventRoutingIndex.class")
+    private static final Map<String, Set<String>> ITEMS_BY_KEY = new HashMap<>();
+
+    /**
+     * Whether the index has been built.
+     */
+    @GuardedBy("EventRoutingIndex.class")
+    private static boolean built;
+
+    private EventRoutingIndex() {
+        throw new IllegalAccessError("Utility class");
+    }
+
+    /**
+     * Checks if any item is interested in events for a repository.
+     *
+     * @param host       the host of the repository.
+     * @param owner      the owner of the repository.
+     * @param repository the name of the repository.
+     * @return {@code true} if a source of that repository or a navigator of that owner exists, or if the index has
+     * not been built yet.
+     */
+    static synchronized boolean isRouted(@NonNull String host, @NonNull String owner, @NonNull String repository) {
+        return !ENABLED || !built
+                || ITEMS_BY_KEY.containsKey(sourceKey(host, owner, repository))
+                || ITEMS_BY_KEY.containsKey(navigatorKey(host, owner));
+    }
+
+    /**
+     * Returns the items interested in events for a repository.
+     *
+     * @param host       the host of the repository.
+     * @param owner      the owner of the repository.
+     * @param repository the name of the repository.
+     * @return the full names of the items with a source of that repository or a navigator of that owner, or
+     * {@code null} if the index is disabled or has not been built yet.
+     */
+    @CheckForNull
+    static synchronized Set<String> itemsInterestedIn(@NonNull String host, @NonNull String owner,
+                                                      @NonNull String repository) {
+        if (!ENABLED || !built) {
+            return null;
+        }
+        Set<String> items = new HashSet<>();
+        items.addAll(ITEMS_BY_KEY.getOrDefault(sourceKey(host, owner, repository), Collections.emptySet()));
+        items.addAll(ITEMS_BY_KEY.getOrDefault(navigatorKey(host, owner), Collections.emptySet()));
+        return items;
+    }
+
+    /**
+     * Replaces the keys of an item.
+     *
+     * @param fullName the full name of the item.
+     * @param keys     the keys of the item.
+     */
+    static synchronized void update(@NonNull String fullName, @NonNull Set<String> keys) {
+        remove(fullName);
+        if (keys.isEmpty()) {
+            return;
+        }
+        KEYS_BY_ITEM.put(fullName, keys);
+        for (String key : keys) {
+            ITEMS_BY_KEY.computeIfAbsent(key, k -> new HashSet<>()).add(fullName);
+        }
+    }
+
+    /**
+     * Removes the keys of an item.
+     *
+     * @param fullName the full name of the item.
+     */
+    static synchronized void remove(@NonNull String fullName) {
+        Set<String> keys = KEYS_BY_ITEM.remove(fullName);
+        if (keys == null) {
+            return;
+        }
+        for (String key : keys) {
+            Set<String> items = ITEMS_BY_KEY.get(key);
+            if (items != null && items.remove(fullName) && items.isEmpty()) {
+                ITEMS_BY_KEY.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Marks the index as built, or not, for testing.
+     *
+     * @param built whether the index has been built.
+     */
+    static synchronized void setBuilt(boolean built) {
+        EventRoutingIndex.built = built;
+    }
+
+    /**
+     * Clears the index.
+     */
+    static synchronized void clear() {
+        KEYS_BY_ITEM.clear();
+        ITEMS_BY_KEY.clear();
+        built = false;
+    }
+
+    /**
+     * Computes the keys of an item.
+     *
+     * @param item the item.
+     * @return the keys.
+     */
+    @NonNull
+    static Set<String> keysOf(@CheckForNull Item item) {
+        Set<String> keys = new HashSet<>();
+        if (item instanceof SCMSourceOwner) {
+            for (SCMSource source : ((SCMSourceOwner) item).getSCMSources()) {
+                if (source instanceof GitHubSCMSource) {
+                    GitHubSCMSource s = (GitHubSCMSource) source;
+                    keys.add(sourceKey(RepositoryUriResolver.hostnameFromApiUri(s.getApiUri()), s.getRepoOwner(),
+                            s.getRepository()));
+                }
+            }
+        }
+        if (item instanceof SCMNavigatorOwner) {
+            for (SCMNavigator navigator : ((SCMNavigatorOwner) item).getSCMNavigators()) {
+                if (navigator instanceof GitHubSCMNavigator) {
+                    GitHubSCMNavigator n = (GitHubSCMNavigator) navigator;
+                    keys.add(navigatorKey(RepositoryUriResolver.hostnameFromApiUri(n.getApiUri()), n.getRepoOwner()));
+                }
+            }
+        }
+        return keys.isEmpty() ? Collections.emptySet() : keys;
+    }
+
+    /**
+     * Indexes an item.
+     *
+     * @param item the item.
+     */
+    static void index(@NonNull Item item) {
+        update(item.getFullName(), keysOf(item));
+    }
+
+    /**
+     * Computes the key of a source.
+     *
+     * @param host       the host of the repository.
+     * @param owner      the owner of the repository.
+     * @param repository the name of the repository.
+     * @return the key.
+     */
+    @NonNull
+    static String sourceKey(@NonNull String host, @NonNull String owner, @NonNull String repository) {
+        return (host + '/' + owner + '/' + repository).toLowerCase(Locale.ENGLISH);
+    }
+
+    /**
+     * Computes the key of a navigator.
+     *
+     * @param host  the host of the repositories.
+     * @param owner the owner of the repositories.
+     * @return the key.
+     */
+    @NonNull
+    static String navigatorKey(@NonNull String host, @NonNull String owner) {
+        return (host + '/' + owner).toLowerCase(Locale.ENGLISH);
+    }
+
+    /**
+     * Keeps the index in step with the items.
+     */
+    @Extension
+    public static class ListenerImpl extends ItemListener {
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onLoaded() {
+            Map<String, Set<String>> keys = new HashMap<>();
+            for (Item item : Jenkins.get().allItems(Item.class)) {
+                keys.put(item.getFullName(), keysOf(item));
+            }
+            synchronized (EventRoutingIndex.class) {
+                KEYS_BY_ITEM.clear();
+                ITEMS_BY_KEY.clear();
+                for (Map.Entry<String, Set<String>> entry : keys.entrySet()) {
+                    update(entry.getKey(), entry.getValue());
+                }
+                built = true;
+                LOGGER.log(Level.FINE, "Indexed {0} items with GitHub sources or navigators", KEYS_BY_ITEM.size());
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onCreated(Item item) {
+            index(item);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onCopied(Item src, Item item) {
+            index(item);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onUpdated(Item item) {
+            index(item);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onDeleted(Item item) {
+            remove(item.getFullName());
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+            remove(oldFullName);
+            index(item);
+        }
+    }
+}
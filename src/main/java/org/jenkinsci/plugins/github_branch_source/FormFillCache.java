@@ -0,0 +1,181 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.github_branch_source;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Caches the items listed by the form fill methods, such as the repositories of an owner, so that opening a
+ * configuration page does not list them from GitHub every time.
+ * <p>
+ * The first request for a key loads the items. Once the items are older than the refresh interval they are still
+ * returned, but they are reloaded in the background so that the next request gets the current items. Items that
+ * have not been requested for the retention period are discarded.
+ *
+ * @param <V> the type of items.
+ */
+final class FormFillCache<V> {
+
+    /**
+     * Our logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(FormFillCache.class.getName());
+
+    /**
+     * The age after which items are reloaded in the background.
+     */
+    private final long refreshMillis;
+
+    /**
+     * The executor to reload items with.
+     */
+    @NonNull
+    private final Executor executor;
+
+    /**
+     * The clock.
+     */
+    @NonNull
+    private final LongSupplier clock;
+
+    /**
+     * The cached items.
+     */
+    @NonNull
+    private final TimedCache<String, Entry<V>> entries;
+
+    /**
+     * The keys currently being reloaded.
+     */
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Constructor.
+     *
+     * @param refreshMillis the age in milliseconds after which items are reloaded in the background.
+     * @param retainMillis  the time in milliseconds to retain items for.
+     * @param maxEntries    the maximum number of keys to retain items for.
+     * @param executor      the executor to reload items with.
+     * @param clock         the source of the current time in milliseconds.
+     */
+    FormFillCache(long refreshMillis, long retainMillis, int maxEntries, @NonNull Executor executor,
+                  @NonNull LongSupplier clock) {
+        this.refreshMillis = refreshMillis;
+        this.executor = executor;
+        this.clock = clock;
+        this.entries = new TimedCache<>(refreshMillis > 0 ? Math.max(refreshMillis, retainMillis) : 0L, maxEntries,
+                clock);
+    }
+
+    /**
+     * Returns the items for the key, loading them if they are not cached.
+     *
+     * @param key    the key, which must identify the endpoint, the credentials and the items being listed.
+     * @param loader the loader of the items.
+     * @return the items or {@code null} if the loader did not find any.
+     * @throws IOException if the items were not cached and could not be loaded.
+     */
+    @CheckForNull
+    V get(@NonNull String key, @NonNull Loader<V> loader) throws IOException {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return load(key, loader);
+        }
+        if (clock.getAsLong() - entry.loaded >= refreshMillis && refreshing.add(key)) {
+            try {
+                executor.execute(() -> {
+                    try {
+                        load(key, loader);
+                    } catch (IOException | RuntimeException e) {
+                        LOGGER.log(Level.FINE, "Could not refresh the cached items of " + key, e);
+                    } finally {
+                        refreshing.remove(key);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                refreshing.remove(key);
+            }
+        }
+        return entry.value;
+    }
+
+    /**
+     * Discards all the cached items.
+     */
+    void invalidateAll() {
+        entries.invalidateAll();
+    }
+
+    @CheckForNull
+    private V load(@NonNull String key, @NonNull Loader<V> loader) throws IOException {
+        V value = loader.load();
+        if (value == null) {
+            entries.invalidate(key);
+        } else {
+            entries.put(key, new Entry<>(value, clock.getAsLong()));
+        }
+        return value;
+    }
+
+    /**
+     * Loads the items of a key.
+     *
+     * @param <V> the type of items.
+     */
+    @FunctionalInterface
+    interface Loader<V> {
+        /**
+         * Loads the items.
+         *
+         * @return the items or {@code null} if there are none to cache.
+         * @throws IOException if the items could not be loaded.
+         */
+        @CheckForNull
+        V load() throws IOException;
+    }
+
+    /**
+     * Cached items.
+     *
+     * @param <V> the type of items.
+     */
+    private static final class Entry<V> {
+        private final V value;
+        private final long loaded;
+
+        Entry(V value, long loaded) {
+            this.value = value;
+            this.loaded = loaded;
+        }
+    }
+}
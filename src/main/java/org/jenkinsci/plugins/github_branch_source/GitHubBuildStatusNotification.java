@@ -28,7 +28,8 @@ import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import hudson.Extension;
 import hudson.FilePath;
-import hudson.model.Computer;
+import hudson.init.Terminator;
+import hudson.model.Actionable;
 import hudson.model.Job;
 import hudson.model.Queue;
 import hudson.model.Result;
@@ -39,16 +40,22 @@ import hudson.model.listeners.SCMListener;
 import hudson.model.queue.QueueListener;
 import hudson.scm.SCM;
 import hudson.scm.SCMRevisionState;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import jenkins.model.Jenkins;
 import jenkins.plugins.git.AbstractGitSCMSource.SCMRevisionImpl;
 import jenkins.scm.api.SCMHead;
-import jenkins.scm.api.SCMHeadObserver;
+import jenkins.scm.api.SCMHeadOrigin;
 import jenkins.scm.api.SCMRevision;
 import jenkins.scm.api.SCMRevisionAction;
 import jenkins.scm.api.SCMSource;
@@ -68,64 +75,71 @@ public class GitHubBuildStatusNotification {
 
     private static final Logger LOGGER = Logger.getLogger(GitHubBuildStatusNotification.class.getName());
 
+    /**
+     * How long to wait on shutdown for queued commit statuses to be posted.
+     */
+    private static final long DRAIN_TIMEOUT_MILLIS = 10000L;
+
     private static void createBuildCommitStatus(Run<?, ?> build, TaskListener listener) {
         SCMSource src = SCMSource.SourceByItem.findSource(build.getParent());
         SCMRevision revision = src != null ? SCMRevisionAction.getRevision(src, build) : null;
-        if (revision != null) { // only notify if we have a revision to notify
-            try {
-                GitHub gitHub = lookUpGitHub(build.getParent());
-                try {
-                    GHRepository repo = lookUpRepo(gitHub, build.getParent());
-                    if (repo != null) {
-                        Result result = build.getResult();
-                        String revisionToNotify = resolveHeadCommit(revision);
-                        SCMHead head = revision.getHead();
-                        List<AbstractGitHubNotificationStrategy> strategies = new GitHubSCMSourceContext(null, SCMHeadObserver.none())
-                                .withTraits(((GitHubSCMSource) src).getTraits()).notificationStrategies();
-                        for (AbstractGitHubNotificationStrategy strategy : strategies) {
-                            // TODO allow strategies to combine/cooperate on a notification
-                            GitHubNotificationContext notificationContext = GitHubNotificationContext.build(null, build,
-                                    src, head);
-                            List<GitHubNotificationRequest> details = strategy.notifications(notificationContext, listener);
-                            for (GitHubNotificationRequest request : details) {
-                                boolean ignoreError = request.isIgnoreError();
-                                try {
-                                    repo.createCommitStatus(revisionToNotify, request.getState(), request.getUrl(), request.getMessage(),
-                                            request.getContext());
-                                } catch (FileNotFoundException fnfe) {
-                                    if (!ignoreError) {
-                                        listener.getLogger().format("%nCould not update commit status, please check if your scan " +
-                                                "credentials belong to a member of the organization or a collaborator of the " +
-                                                "repository and repo:status scope is selected%n%n");
-                                        if (LOGGER.isLoggable(Level.FINE)) {
-                                            LOGGER.log(Level.FINE, "Could not update commit status, for run "
-                                                    + build.getFullDisplayName()
-                                                    + " please check if your scan "
-                                                    + "credentials belong to a member of the organization or a "
-                                                    + "collaborator of the repository and repo:status scope is selected", fnfe);
-                                        }
-                                    }
-                                }
-                            }
-                        }
-                        if (result != null) {
-                            listener.getLogger().format("%n" + Messages.GitHubBuildStatusNotification_CommitStatusSet() + "%n%n");
-                        }
-                    }
-                } finally {
-                    Connector.release(gitHub);
-                }
-            } catch (IOException ioe) {
-                listener.getLogger().format("%n"
-                        + "Could not update commit status. Message: %s%n"
-                        + "%n", ioe.getMessage());
-                if (LOGGER.isLoggable(Level.FINE)) {
-                    LOGGER.log(Level.FINE, "Could not update commit status of run " + build.getFullDisplayName(), ioe);
+        if (revision != null && src instanceof GitHubSCMSource) { // only notify if we have a revision to notify
+            GitHubSCMSource source = (GitHubSCMSource) src;
+            CompiledTraits sourceContext = source.compiledTraits();
+            if (sourceContext.notificationsDisabled() || source.getScanCredentialsId() == null) {
+                return;
+            }
+            // the statuses are posted in the background so that a slow or unavailable GitHub does not hold up builds
+            Result result = build.getResult();
+            String revisionToNotify = resolveHeadCommit(revision);
+            SCMHead head = revision.getHead();
+            List<AbstractGitHubNotificationStrategy> strategies = sourceContext.notificationStrategies();
+            for (AbstractGitHubNotificationStrategy strategy : strategies) {
+                // TODO allow strategies to combine/cooperate on a notification
+                GitHubNotificationContext notificationContext = GitHubNotificationContext.build(null, build,
+                        src, head);
+                List<GitHubNotificationRequest> details = strategy.notifications(notificationContext, listener);
+                for (GitHubNotificationRequest request : details) {
+                    CommitStatusPublisher.STATUSES.submit(new CommitStatusPublisher.Status(source, build.getParent(),
+                            revisionToNotify, request, "run " + build.getFullDisplayName()));
                 }
             }
+            if (result != null) {
+                listener.getLogger().format("%n" + Messages.GitHubBuildStatusNotification_CommitStatusQueued() + "%n%n");
+            }
+        }
+    }
+
+    /**
+     * Posts a commit status queued by the {@link CommitStatusPublisher}.
+     *
+     * @param status the status.
+     * @throws IOException if the status could not be posted.
+     */
+    static void postCommitStatus(@NonNull CommitStatusPublisher.Status status) throws IOException {
+        GitHub gitHub = lookUpGitHub(status.getJob());
+        try {
+            GHRepository repo = lookUpRepo(gitHub, status.getJob());
+            if (repo != null) {
+                GitHubNotificationRequest request = status.getRequest();
+                repo.createCommitStatus(status.getHash(), request.getState(), request.getUrl(), request.getMessage(),
+                        request.getContext());
+            }
+        } finally {
+            Connector.release(gitHub);
         }
     }
 
+    /**
+     * Gives the queued commit statuses a chance to be posted before Jenkins stops.
+     *
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    @Terminator
+    public static void drainCommitStatuses() throws InterruptedException {
+        CommitStatusPublisher.STATUSES.drain(DRAIN_TIMEOUT_MILLIS);
+    }
+
     /**
      * Returns the GitHub Repository associated to a Job.
      *
@@ -161,9 +175,7 @@ public class GitHubBuildStatusNotification {
         SCMSource src = SCMSource.SourceByItem.findSource(job);
         if (src instanceof GitHubSCMSource) {
             GitHubSCMSource source = (GitHubSCMSource) src;
-            if (new GitHubSCMSourceContext(null, SCMHeadObserver.none())
-                    .withTraits(source.getTraits())
-                    .notificationsDisabled()) {
+            if (source.compiledTraits().notificationsDisabled()) {
                 return null;
             }
             if (source.getScanCredentialsId() != null) {
@@ -181,6 +193,41 @@ public class GitHubBuildStatusNotification {
     @Extension
     public static class JobScheduledListener extends QueueListener {
 
+        /**
+         * The maximum number of threads setting pending statuses.
+         */
+        private static final int MAX_THREADS = 2;
+
+        /**
+         * The maximum number of queued items waiting for their pending status. Beyond that the pending status is
+         * left to {@link JobCheckOutListener}.
+         */
+        private static final int MAX_WAITING = 1000;
+
+        /**
+         * The number of queued items that did not get a pending status because too many were waiting.
+         */
+        private static final AtomicLong DROPPED = new AtomicLong();
+
+        /**
+         * The number of queued items that did not get a pending status because the revision was not known.
+         */
+        private static final AtomicLong UNKNOWN = new AtomicLong();
+
+        /**
+         * Sets the pending statuses, without holding up the queue.
+         */
+        private static final ThreadPoolExecutor EXECUTOR = createExecutor();
+
+        private static ThreadPoolExecutor createExecutor() {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_THREADS, MAX_THREADS, 60L, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(MAX_WAITING),
+                    new NamingThreadFactory(new DaemonThreadFactory(), "GitHub pending status"),
+                    (task, pool) -> DROPPED.incrementAndGet());
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        }
+
         /**
          * Manages the GitHub Commit Pending Status.
          */
@@ -199,83 +246,108 @@ public class GitHubBuildStatusNotification {
             if (!(head instanceof PullRequestSCMHead)) {
                 return;
             }
-            final GitHubSCMSourceContext sourceContext = new GitHubSCMSourceContext(null, SCMHeadObserver.none())
-                    .withTraits(((GitHubSCMSource) source).getTraits());
+            final CompiledTraits sourceContext = ((GitHubSCMSource) source).compiledTraits();
             if (sourceContext.notificationsDisabled()) {
                 return;
             }
+            SCMRevision revision = knownRevision((GitHubSCMSource) source, head, wi);
+            if (revision == null) {
+                // we are an optimization to signal commit status early, the checkout will ensure the status is set
+                UNKNOWN.incrementAndGet();
+                return;
+            }
+            final String hash = resolveHeadCommit(revision);
             // prevent delays in the queue when updating github
-            Computer.threadPoolForRemoting.submit(new Runnable() {
-                @Override
-                public void run() {
-                    GitHub gitHub = null;
-                    try {
-                        gitHub = lookUpGitHub(job);
-                        try {
-                            if (gitHub == null || gitHub.rateLimit().remaining < 8) {
-                                // we are an optimization to signal commit status early, no point waiting for
-                                // the rate limit to refresh as the checkout will ensure the status is set
-                                return;
-                            }
-                            String hash = resolveHeadCommit(source.fetch(head, null));
-                            if (gitHub.rateLimit().remaining < 8) {  // should only need 2 but may be concurrent threads
-                                // we are an optimization to signal commit status early, no point waiting for
-                                // the rate limit to refresh as the checkout will ensure the status is set
-                                return;
-                            }
-                            GHRepository repo = lookUpRepo(gitHub, job);
-                            if (repo != null) {
-                                // The submitter might push another commit before this build even starts.
-                                if (Jenkins.get().getQueue().getItem(taskId) instanceof Queue.LeftItem) {
-                                    // we took too long and the item has left the queue, no longer valid to apply pending
-
-                                    // status. JobCheckOutListener is now responsible for setting the pending status.
-                                    return;
-                                }
-                                List<AbstractGitHubNotificationStrategy> strategies = sourceContext.notificationStrategies();
-                                for (AbstractGitHubNotificationStrategy strategy : strategies) {
-                                    // TODO allow strategies to combine/cooperate on a notification
-                                    GitHubNotificationContext notificationContext = GitHubNotificationContext.build(job, null,
-                                            source, head);
-                                    List<GitHubNotificationRequest> details = strategy.notifications(notificationContext, null);
-                                    for (GitHubNotificationRequest request : details) {
-                                        boolean ignoreErrors = request.isIgnoreError();
-                                        try {
-                                            repo.createCommitStatus(hash, request.getState(), request.getUrl(), request.getMessage(),
-                                                    request.getContext());
-                                        } catch (FileNotFoundException e) {
-                                            if (!ignoreErrors) {
-                                                LOGGER.log(Level.WARNING,
-                                                        "Could not update commit status to PENDING. Valid scan credentials? Valid scopes?",
-                                                        LOGGER.isLoggable(Level.FINE) ? e : null);
-                                            }
-                                        }
-                                    }
-                                }
-                            }
-                        } finally {
-                            Connector.release(gitHub);
+            EXECUTOR.execute(() -> {
+                GitHub gitHub = null;
+                try {
+                    gitHub = lookUpGitHub(job);
+                    // the rate limit last seen by the shared connection, rather than asking for it again
+                    if (gitHub == null || gitHub.getRateLimit().getRemaining() < 8) {
+                        // we are an optimization to signal commit status early, no point waiting for
+                        // the rate limit to refresh as the checkout will ensure the status is set
+                        return;
+                    }
+                    // The submitter might push another commit before this build even starts.
+                    if (Jenkins.get().getQueue().getItem(taskId) instanceof Queue.LeftItem) {
+                        // we took too long and the item has left the queue, no longer valid to apply pending
+
+                        // status. JobCheckOutListener is now responsible for setting the pending status.
+                        return;
+                    }
+                    List<AbstractGitHubNotificationStrategy> strategies = sourceContext.notificationStrategies();
+                    for (AbstractGitHubNotificationStrategy strategy : strategies) {
+                        // TODO allow strategies to combine/cooperate on a notification
+                        GitHubNotificationContext notificationContext = GitHubNotificationContext.build(job, null,
+                                source, head);
+                        List<GitHubNotificationRequest> details = strategy.notifications(notificationContext, null);
+                        for (GitHubNotificationRequest request : details) {
+                            CommitStatusPublisher.STATUSES.submit(new CommitStatusPublisher.Status(
+                                    (GitHubSCMSource) source, job, hash, request, "job " + job.getFullName()));
                         }
-                    } catch (FileNotFoundException e) {
-                        LOGGER.log(Level.WARNING,
-                                "Could not update commit status to PENDING. Valid scan credentials? Valid scopes?",
-                                LOGGER.isLoggable(Level.FINE) ? e : null);
-                    } catch (IOException e) {
-                        LOGGER.log(Level.WARNING,
-                                "Could not update commit status to PENDING. Message: " + e.getMessage(),
-                                LOGGER.isLoggable(Level.FINE) ? e : null);
-                    } catch (InterruptedException e) {
-                        LOGGER.log(Level.WARNING,
-                                "Could not update commit status to PENDING. Rate limit exhausted",
-                                LOGGER.isLoggable(Level.FINE) ? e : null);
-                        LOGGER.log(Level.FINE, null, e);
-                    } finally {
-                        Connector.release(gitHub);
                     }
+                } catch (FileNotFoundException e) {
+                    LOGGER.log(Level.WARNING,
+                            "Could not update commit status to PENDING. Valid scan credentials? Valid scopes?",
+                            LOGGER.isLoggable(Level.FINE) ? e : null);
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING,
+                            "Could not update commit status to PENDING. Message: " + e.getMessage(),
+                            LOGGER.isLoggable(Level.FINE) ? e : null);
+                } finally {
+                    Connector.release(gitHub);
                 }
             });
         }
 
+        /**
+         * Returns the revision a queued item is known to build, without asking GitHub.
+         *
+         * @param source the source of the job.
+         * @param head   the head of the job.
+         * @param item   the queued item.
+         * @return the revision or {@code null} if not known.
+         */
+        @CheckForNull
+        static SCMRevision knownRevision(@NonNull GitHubSCMSource source, @NonNull SCMHead head,
+                                         @NonNull Actionable item) {
+            // the revision the build was scheduled for by the scan or event, there is no point resolving it again
+            SCMRevision revision = SCMRevisionAction.getRevision(source, item);
+            if (revision == null && SCMHeadOrigin.DEFAULT.equals(head.getOrigin())) {
+                // pushes to a fork do not change the watermark of the repository, so the last full scan is only
+                // known to be current for heads pushed to the repository itself
+                revision = source.getLastScannedRevision(head);
+            }
+            return revision;
+        }
+
+        /**
+         * Returns the number of queued items waiting for their pending status.
+         *
+         * @return the number of waiting items.
+         */
+        static int getWaitingCount() {
+            return EXECUTOR.getQueue().size();
+        }
+
+        /**
+         * Returns the number of queued items that did not get a pending status because too many were waiting.
+         *
+         * @return the number of dropped items.
+         */
+        static long getDroppedCount() {
+            return DROPPED.get();
+        }
+
+        /**
+         * Returns the number of queued items that did not get a pending status because their revision was not known.
+         *
+         * @return the number of items with an unknown revision.
+         */
+        static long getUnknownRevisionCount() {
+            return UNKNOWN.get();
+        }
+
     }
 
     /**
@@ -40,6 +40,9 @@ import java.util.Set;
 import jenkins.model.GlobalConfiguration;
 import net.sf.json.JSONObject;
 import org.apache.commons.lang.StringUtils;
+import org.jenkinsci.plugins.github.GitHubPlugin;
+import org.jenkinsci.plugins.github.config.GitHubPluginConfig;
+import org.jenkinsci.plugins.github.config.HookSecretConfig;
 import org.kohsuke.stapler.StaplerRequest;
 
 @Extension public class GitHubConfiguration extends GlobalConfiguration {
@@ -52,6 +55,8 @@ import org.kohsuke.stapler.StaplerRequest;
 
     private ApiRateLimitChecker apiRateLimitChecker;
 
+    private boolean trustWebhookPayloads;
+
     public GitHubConfiguration() {
         load();
     }
@@ -79,6 +84,53 @@ import org.kohsuke.stapler.StaplerRequest;
         save();
     }
 
+    /**
+     * Returns {@code true} if the revisions reported by webhook payloads are used as is, rather than being fetched
+     * from GitHub when an event is processed.
+     *
+     * @return {@code true} if webhook payloads are trusted.
+     * @since 2.9.2
+     */
+    public synchronized boolean isTrustWebhookPayloads() {
+        return trustWebhookPayloads;
+    }
+
+    /**
+     * Sets whether the revisions reported by webhook payloads are used as is. This should only be enabled when the
+     * webhooks are configured with a shared secret so that the payload signatures are verified.
+     *
+     * @param trustWebhookPayloads {@code true} if webhook payloads are trusted.
+     * @since 2.9.2
+     */
+    public synchronized void setTrustWebhookPayloads(boolean trustWebhookPayloads) {
+        this.trustWebhookPayloads = trustWebhookPayloads;
+        save();
+    }
+
+    /**
+     * Checks if the revisions reported by webhook payloads can be used as is, that is if {@link
+     * #isTrustWebhookPayloads()} and the GitHub plugin has a shared secret configured. The GitHub plugin rejects
+     * deliveries without a valid signature when it has a secret, so without one a payload could come from anyone
+     * who can reach the webhook endpoint.
+     *
+     * @return {@code true} if webhook payloads are trusted and their signatures are verified.
+     * @since 2.9.2
+     */
+    public boolean isWebhookPayloadTrusted() {
+        return isTrustWebhookPayloads() && isHookSecretConfigured();
+    }
+
+    /**
+     * Checks if the GitHub plugin has a shared secret configured to verify the signatures of webhook payloads.
+     *
+     * @return {@code true} if a shared secret is configured.
+     */
+    static boolean isHookSecretConfigured() {
+        GitHubPluginConfig config = GitHubPlugin.configuration();
+        HookSecretConfig hookSecretConfig = config == null ? null : config.getHookSecretConfig();
+        return hookSecretConfig != null && hookSecretConfig.getHookSecret() != null;
+    }
+
     /**
      * Fix an apiUri.
      *
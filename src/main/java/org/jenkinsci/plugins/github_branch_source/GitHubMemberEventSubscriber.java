@@ -0,0 +1,120 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.github_branch_source;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hudson.Extension;
+import hudson.model.Item;
+import java.io.IOException;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Nullable;
+import jenkins.scm.api.SCMNavigator;
+import jenkins.scm.api.SCMNavigatorOwner;
+import jenkins.scm.api.SCMSource;
+import jenkins.scm.api.SCMSourceOwner;
+import org.jenkinsci.plugins.github.extension.GHEventsSubscriber;
+import org.jenkinsci.plugins.github.extension.GHSubscriberEvent;
+import org.kohsuke.github.GHEvent;
+
+import static com.google.common.collect.Sets.immutableEnumSet;
+import static org.kohsuke.github.GHEvent.MEMBER;
+import static org.kohsuke.github.GHEvent.MEMBERSHIP;
+import static org.kohsuke.github.GHEvent.ORGANIZATION;
+
+/**
+ * This subscriber invalidates the {@link PermissionCache} when the permissions of a user could have changed,
+ * i.e. on {@link GHEvent#MEMBER}, {@link GHEvent#MEMBERSHIP} and {@link GHEvent#ORGANIZATION} events.
+ */
+@Extension
+public class GitHubMemberEventSubscriber extends GHEventsSubscriber {
+
+    private static final Logger LOGGER = Logger.getLogger(GitHubMemberEventSubscriber.class.getName());
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Override
+    protected boolean isApplicable(@Nullable Item item) {
+        if (item instanceof SCMNavigatorOwner) {
+            for (SCMNavigator navigator : ((SCMNavigatorOwner) item).getSCMNavigators()) {
+                if (navigator instanceof GitHubSCMNavigator) {
+                    return true;
+                }
+            }
+        }
+        if (item instanceof SCMSourceOwner) {
+            for (SCMSource source : ((SCMSourceOwner) item).getSCMSources()) {
+                if (source instanceof GitHubSCMSource) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return set with MEMBER, MEMBERSHIP and ORGANIZATION events
+     */
+    @Override
+    protected Set<GHEvent> events() {
+        return immutableEnumSet(MEMBER, MEMBERSHIP, ORGANIZATION);
+    }
+
+    @Override
+    protected void onEvent(GHSubscriberEvent event) {
+        try {
+            JsonNode payload = MAPPER.readTree(event.getPayload());
+            String owner;
+            String repo;
+            String username;
+            if (event.getGHEvent() == MEMBER) {
+                // a collaborator of a repository
+                owner = payload.path("repository").path("owner").path("login").asText(null);
+                repo = payload.path("repository").path("name").asText(null);
+                username = payload.path("member").path("login").asText(null);
+            } else if (event.getGHEvent() == MEMBERSHIP) {
+                // a member of a team, which could have access to any of the organization's repositories
+                owner = payload.path("organization").path("login").asText(null);
+                repo = null;
+                username = payload.path("member").path("login").asText(null);
+            } else {
+                // a member of an organization, or the organization itself when renamed
+                owner = payload.path("organization").path("login").asText(null);
+                repo = null;
+                username = payload.path("membership").path("user").path("login").asText(null);
+            }
+            if (owner == null) {
+                return;
+            }
+            LOGGER.log(Level.FINE, "Received {0} for {1}/{2} user {3} from {4}", new Object[]{
+                    event.getGHEvent(), owner, repo == null ? "*" : repo, username == null ? "*" : username,
+                    event.getOrigin()
+            });
+            PermissionCache.invalidate(owner, repo, username);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not parse " + event.getGHEvent() + " event from " + event.getOrigin(), e);
+        }
+    }
+}
@@ -24,16 +24,21 @@
 
 package org.jenkinsci.plugins.github_branch_source;
 
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import hudson.util.TextFile;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.net.URL;
 import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import jenkins.model.Jenkins;
 import jenkins.util.io.FileBoolean;
+import org.apache.commons.lang.StringUtils;
 import org.kohsuke.github.GHEvent;
 import org.kohsuke.github.GHHook;
 import org.kohsuke.github.GHOrganization;
@@ -46,7 +51,12 @@ import org.kohsuke.github.GitHub;
 public class GitHubOrgWebHook {
 
     private static final Logger LOGGER = Logger.getLogger(GitHubOrgWebHook.class.getName());
-    private static final List<GHEvent> EVENTS = Arrays.asList(GHEvent.REPOSITORY, GHEvent.PUSH, GHEvent.PULL_REQUEST, GHEvent.PULL_REQUEST_REVIEW_COMMENT);
+    private static final List<GHEvent> EVENTS = Arrays.asList(GHEvent.REPOSITORY, GHEvent.PUSH, GHEvent.PULL_REQUEST, GHEvent.PULL_REQUEST_REVIEW_COMMENT,
+            GHEvent.TEAM, GHEvent.TEAM_ADD, GHEvent.MEMBER, GHEvent.MEMBERSHIP, GHEvent.ORGANIZATION);
+    /**
+     * The events as recorded in the tracking file.
+     */
+    private static final String EVENTS_RECORD = StringUtils.join(EVENTS, ',');
 
     public static void register(GitHub hub, String orgName) throws IOException {
         String rootUrl = System.getProperty("jenkins.hook.url");
@@ -57,26 +67,38 @@ public class GitHubOrgWebHook {
             return;
         }
         GHUser u = hub.getUser(orgName);
-        FileBoolean orghook = new FileBoolean(getTrackingFile(orgName));
-        if (orghook.isOff()) {
+        File trackingFile = getTrackingFile(orgName);
+        FileBoolean orghook = new FileBoolean(trackingFile);
+        // the tracking file records the events the hook was registered with, so that hooks registered before
+        // more events were needed get updated
+        if (orghook.isOff() || !EVENTS_RECORD.equals(readTrackedEvents(trackingFile))) {
             try {
                 GHOrganization org = hub.getOrganization(orgName);
                 String url = rootUrl + "github-webhook/";
-                boolean found = false;
+                GHHook existing = null;
                 for (GHHook hook : org.getHooks()) {
-                    if (hook.getConfig().get("url").equals(url)) {
-                        found = !hook.getEvents().containsAll(EVENTS);
+                    if (url.equals(hook.getConfig().get("url"))) {
+                        existing = hook;
                         break;
                     }
                 }
-                if (!found) {
+                if (existing == null) {
                     org.createWebHook(new URL(url), EVENTS);
                     LOGGER.log(Level.INFO, "A webhook was registered for the organization {0}", org.getHtmlUrl());
                     // keep trying until the hook gets successfully installed
                     // if the user doesn't have the proper permission, this will cause
                     // a repeated failure, but this code doesn't execute too often.
+                } else if (!existing.getEvents().containsAll(EVENTS)) {
+                    // the hook may have been set up by hand with a secret or other settings that recreating it would
+                    // lose, and the API offers no way to edit it, so leave it to the administrators
+                    Set<GHEvent> missing = EnumSet.copyOf(EVENTS);
+                    missing.removeAll(existing.getEvents());
+                    LOGGER.log(Level.WARNING, "The webhook of the organization {0} does not subscribe to {1}, "
+                                    + "add them to the hook to keep caches up to date",
+                            new Object[]{org.getHtmlUrl(), missing});
                 }
                 orghook.on();
+                new TextFile(trackingFile).write(EVENTS_RECORD);
             } catch (FileNotFoundException e) {
                 LOGGER.log(Level.WARNING, "Failed to register GitHub Org hook to {0} (missing permissions?): {1}",
                         new Object[]{u.getHtmlUrl(), e.getMessage()});
@@ -91,6 +113,15 @@ public class GitHubOrgWebHook {
         }
     }
 
+    @CheckForNull
+    private static String readTrackedEvents(File trackingFile) {
+        try {
+            return new TextFile(trackingFile).readTrim();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
     private static File getTrackingFile(String orgName) {
         return new File(Jenkins.get().getRootDir(), "github-webhooks/GitHubOrgHook." + orgName);
     }
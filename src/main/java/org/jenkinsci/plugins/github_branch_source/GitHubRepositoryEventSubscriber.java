@@ -28,7 +28,6 @@ import edu.umd.cs.findbugs.annotations.NonNull;
 import hudson.Extension;
 import hudson.model.Item;
 import java.io.IOException;
-import java.io.StringReader;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
@@ -44,8 +43,6 @@ import jenkins.scm.api.SCMSourceEvent;
 import org.jenkinsci.plugins.github.extension.GHEventsSubscriber;
 import org.jenkinsci.plugins.github.extension.GHSubscriberEvent;
 import org.kohsuke.github.GHEvent;
-import org.kohsuke.github.GHEventPayload;
-import org.kohsuke.github.GitHub;
 
 import static com.google.common.collect.Sets.immutableEnumSet;
 import static java.util.logging.Level.FINE;
@@ -85,14 +82,23 @@ public class GitHubRepositoryEventSubscriber extends GHEventsSubscriber {
     @Override
     protected void onEvent(GHSubscriberEvent event) {
         try {
-            final GHEventPayload.Repository p = GitHub.offline()
-                    .parseEventPayload(new StringReader(event.getPayload()), GHEventPayload.Repository.class);
+            // the summary holds every field the event needs, the full payload is never built
+            final WebhookPayloadSummary p = WebhookPayloadSummary.parse(event.getPayload());
+            if (!p.isRouted()) {
+                LOGGER.log(FINE, "No GitHub source or navigator is interested in {0}, ignoring {1}",
+                        new Object[]{p.getRepositoryUrl(), event.getGHEvent()});
+                return;
+            }
             String action = p.getAction();
-            String repoUrl = p.getRepository().getHtmlUrl().toExternalForm();
+            String repoUrl = p.getRepositoryUrl();
+            if (repoUrl == null || p.getRepositoryOwner() == null || p.getRepositoryName() == null) {
+                LOGGER.log(WARNING, "Incomplete {0} event from {1}", new Object[]{event.getGHEvent(), event.getOrigin()});
+                return;
+            }
             LOGGER.log(Level.FINE, "Received {0} for {1} from {2}",
                     new Object[]{event.getGHEvent(), repoUrl, event.getOrigin()}
             );
-            boolean fork = p.getRepository().isFork();
+            boolean fork = p.isRepositoryFork();
             Matcher matcher = REPOSITORY_NAME_PATTERN.matcher(repoUrl);
             if (matcher.matches()) {
                 final GitHubRepositoryName repo = GitHubRepositoryName.create(repoUrl);
@@ -117,24 +123,24 @@ public class GitHubRepositoryEventSubscriber extends GHEventsSubscriber {
                 LOGGER.log(WARNING, "Malformed repository URL {0}", repoUrl);
             }
         } catch (IOException e) {
-            LogRecord lr = new LogRecord(Level.WARNING, "Could not parse {0} event from {1} with payload: {2}");
-            lr.setParameters(new Object[]{event.getGHEvent(), event.getOrigin(), event.getPayload()});
+            LogRecord lr = new LogRecord(Level.WARNING, "Could not parse {0} event from {1} ({2} characters of payload)");
+            lr.setParameters(new Object[]{event.getGHEvent(), event.getOrigin(), event.getPayload().length()});
             lr.setThrown(e);
             LOGGER.log(lr);
         }
     }
 
-    private static class NewSCMSourceEvent extends SCMSourceEvent<GHEventPayload.Repository> {
+    private static class NewSCMSourceEvent extends SCMSourceEvent<WebhookPayloadSummary> {
         private final String repoHost;
         private final String repoOwner;
         private final String repository;
 
-        public NewSCMSourceEvent(long timestamp, String origin, GHEventPayload.Repository event,
+        public NewSCMSourceEvent(long timestamp, String origin, WebhookPayloadSummary event,
                                  GitHubRepositoryName repo) {
             super(Type.CREATED, timestamp, event, origin);
             this.repoHost = repo.getHost();
-            this.repoOwner = event.getRepository().getOwnerName();
-            this.repository = event.getRepository().getName();
+            this.repoOwner = event.getRepositoryOwner();
+            this.repository = event.getRepositoryName();
         }
 
         private boolean isApiMatch(String apiUri) {
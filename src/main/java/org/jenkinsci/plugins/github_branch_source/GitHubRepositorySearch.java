@@ -0,0 +1,186 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.github_branch_source;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.AbortException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.kohsuke.github.GHException;
+import org.kohsuke.github.GHRepository;
+import org.kohsuke.github.GitHub;
+import org.kohsuke.github.PagedSearchIterable;
+
+/**
+ * Builds and runs a repository search query against the GitHub search API so that filtering which GitHub can do
+ * server side does not require one API call per repository.
+ * <p>
+ * The search API will only ever return the first {@link #MAX_RESULTS} hits of a query and may flag its results as
+ * incomplete when the query timed out, so callers must be prepared to fall back to listing the repositories when
+ * {@link #names(GitHub)} returns {@code null}.
+ */
+final class GitHubRepositorySearch {
+
+    /**
+     * Our logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(GitHubRepositorySearch.class.getName());
+
+    /**
+     * The maximum number of results that the GitHub search API will return for any query.
+     */
+    static final int MAX_RESULTS = 1000;
+
+    /**
+     * The query qualifiers.
+     */
+    private final List<String> qualifiers = new ArrayList<>();
+
+    /**
+     * Constructor.
+     *
+     * @param organization {@code true} if the owner is an organization, {@code false} if a user account.
+     * @param owner        the owner of the repositories.
+     */
+    GitHubRepositorySearch(boolean organization, @NonNull String owner) {
+        qualifiers.add((organization ? "org:" : "user:") + owner);
+        // forks are excluded from search results unless explicitly asked for, listing includes them
+        qualifiers.add("fork:true");
+    }
+
+    /**
+     * Restricts the search to repositories that have all the supplied topics.
+     *
+     * @param topics the topics.
+     * @return {@code this} for method chaining.
+     */
+    @NonNull
+    GitHubRepositorySearch withTopics(@NonNull Collection<String> topics) {
+        for (String topic : topics) {
+            qualifiers.add("topic:" + topic);
+        }
+        return this;
+    }
+
+    /**
+     * Restricts the search to repositories that have not been archived.
+     *
+     * @return {@code this} for method chaining.
+     */
+    @NonNull
+    GitHubRepositorySearch withExcludeArchived() {
+        qualifiers.add("archived:false");
+        return this;
+    }
+
+    /**
+     * Restricts the search to private repositories.
+     *
+     * @return {@code this} for method chaining.
+     */
+    @NonNull
+    GitHubRepositorySearch withExcludePublic() {
+        qualifiers.add("is:private");
+        return this;
+    }
+
+    /**
+     * Returns the search query.
+     *
+     * @return the search query.
+     */
+    @NonNull
+    String query() {
+        return String.join(" ", qualifiers);
+    }
+
+    /**
+     * Runs the search and returns the names of the matching repositories.
+     *
+     * @param github the connection to use.
+     * @return the names of the matching repositories or {@code null} if the search could not return a complete
+     * answer.
+     * @throws AbortException if the API rate limit was exceeded.
+     */
+    @CheckForNull
+    Set<String> names(@NonNull GitHub github) throws AbortException {
+        List<GHRepository> repositories = repositories(github);
+        return repositories == null ? null : namesOf(repositories);
+    }
+
+    /**
+     * Runs the search and returns the matching repositories.
+     *
+     * @param github the connection to use.
+     * @return the matching repositories or {@code null} if the search could not return a complete answer.
+     * @throws AbortException if the API rate limit was exceeded.
+     */
+    @CheckForNull
+    List<GHRepository> repositories(@NonNull GitHub github) throws AbortException {
+        List<GHRepository> repositories = new ArrayList<>();
+        PagedSearchIterable<GHRepository> results = github.searchRepositories().q(query()).list();
+        results.withPageSize(100);
+        try {
+            for (GHRepository repo : results) {
+                // the first page has been fetched at this point, so the total count is free
+                if (results.getTotalCount() > MAX_RESULTS) {
+                    return null;
+                }
+                repositories.add(repo);
+            }
+            if (results.isIncomplete()) {
+                return null;
+            }
+        } catch (GHException e) {
+            if (e.getCause() instanceof RateLimitExceededException) {
+                throw new AbortException(e.getCause().getMessage());
+            }
+            LOGGER.log(Level.FINE, "Could not search repositories with query '" + query() + "'", e);
+            return null;
+        }
+        return repositories;
+    }
+
+    /**
+     * Returns the names of the supplied repositories.
+     *
+     * @param repositories the repositories.
+     * @return the case insensitive set of repository names.
+     */
+    @NonNull
+    static Set<String> namesOf(@NonNull Collection<GHRepository> repositories) {
+        Set<String> names = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        for (GHRepository repo : repositories) {
+            names.add(repo.getName());
+        }
+        return Collections.unmodifiableSet(names);
+    }
+}
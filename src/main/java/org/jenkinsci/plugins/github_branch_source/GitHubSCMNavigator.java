@@ -202,7 +202,6 @@ public class GitHubSCMNavigator extends SCMNavigator {
      */
     @Deprecated
     private transient Boolean buildForkPRHead;
-
     /**
      * Constructor.
      *
@@ -927,8 +926,11 @@ public class GitHubSCMNavigator extends SCMNavigator {
             }
 
             GitHubSCMNavigatorContext gitHubSCMNavigatorContext = new GitHubSCMNavigatorContext().withTraits(traits);
+            final int generation = nextScanGeneration((Item) observer.getContext(), listener,
+                    gitHubSCMNavigatorContext.getFullScanInterval());
 
-            try (GitHubSCMNavigatorRequest request = gitHubSCMNavigatorContext.newRequest(this, observer)) {
+            try (GitHubSCMNavigatorRequest request = gitHubSCMNavigatorContext.newRequest(this, observer);
+                 ScanCursor cursor = ScanCursor.load((Item) observer.getContext(), listener)) {
                 SourceFactory sourceFactory = new SourceFactory(request);
                 WitnessImpl witness = new WitnessImpl(listener);
 
@@ -949,11 +951,17 @@ public class GitHubSCMNavigator extends SCMNavigator {
                                     .println(GitHubConsoleNote.create(System.currentTimeMillis(), String.format(
                                             "Looking up repositories of myself %s", repoOwner
                                     )));
-                        for (GHRepository repo : myself.listRepositories(100)) {
+                        List<GHRepository> found = searchRepositories(github, listener, false, gitHubSCMNavigatorContext);
+                        final Iterable<GHRepository> repositories = found != null ? found : myself.listRepositories(100);
+                        Set<String> topicMatches = found != null
+                                ? GitHubRepositorySearch.namesOf(found)
+                                : searchTopics(github, listener, false, gitHubSCMNavigatorContext);
+                        for (GHRepository repo : repositories) {
                             Connector.checkApiRateLimit(listener, github);
                             if (!repo.getOwnerName().equals(repoOwner)) {
                                 continue; // ignore repos in other orgs when using GHMyself
                             }
+                            recordWatermark(observer, repo, generation);
 
                             if (repo.isArchived() && gitHubSCMNavigatorContext.isExcludeArchivedRepositories()) {
                                 witness.record(repo.getName(), false);
@@ -961,7 +969,7 @@ public class GitHubSCMNavigator extends SCMNavigator {
                                         .println(GitHubConsoleNote.create(System.currentTimeMillis(), String.format(
                                                 "Skipping repository %s because it is archived", repo.getName())));
 
-                            } else if (!gitHubSCMNavigatorContext.getTopics().isEmpty() && !repo.listTopics().containsAll(gitHubSCMNavigatorContext.getTopics())) {
+                            } else if (!hasTopics(repo, topicMatches, gitHubSCMNavigatorContext.getTopics())) {
                                 // exclude repositories which are missing one or more of the specified topics
                                 witness.record(repo.getName(), false);
                                 listener.getLogger()
@@ -972,13 +980,14 @@ public class GitHubSCMNavigator extends SCMNavigator {
                                 listener.getLogger()
                                         .println(GitHubConsoleNote.create(System.currentTimeMillis(), String.format(
                                                 "Skipping repository %s because it is public", repo.getName())));
-                            } else if (request.process(repo.getName(), sourceFactory, null, witness)) {
+                            } else if (process(request, sourceFactory, witness, cursor, github, repo)) {
                                 listener.getLogger()
                                         .println(GitHubConsoleNote.create(System.currentTimeMillis(), String.format(
                                                 "%d repositories were processed (query completed)", witness.getCount()
                                         )));
                             }
                         }
+                        processDeferred(request, sourceFactory, witness, cursor);
                         listener.getLogger().println(GitHubConsoleNote.create(System.currentTimeMillis(), String.format(
                                 "%d repositories were processed", witness.getCount()
                         )));
@@ -991,16 +1000,25 @@ public class GitHubSCMNavigator extends SCMNavigator {
                     listener.getLogger().println(GitHubConsoleNote.create(System.currentTimeMillis(), String.format(
                             "Looking up repositories of organization %s", repoOwner)));
                     final Iterable<GHRepository> repositories;
+                    List<GHRepository> found = null;
                     if (StringUtils.isNotBlank(gitHubSCMNavigatorContext.getTeamSlug())) {
                         // get repositories for selected team
                         listener.getLogger().println(GitHubConsoleNote.create(System.currentTimeMillis(), String.format(
                                 "Looking up repositories for team %s", gitHubSCMNavigatorContext.getTeamSlug())));
                         repositories = org.getTeamBySlug(gitHubSCMNavigatorContext.getTeamSlug()).listRepositories().withPageSize(100);
+                    } else if ((found = searchRepositories(github, listener, true, gitHubSCMNavigatorContext)) != null) {
+                        repositories = found;
                     } else {
                         repositories = org.listRepositories(100);
                     }
+                    Set<String> topicMatches = found != null
+                            ? GitHubRepositorySearch.namesOf(found)
+                            : searchTopics(github, listener, true, gitHubSCMNavigatorContext);
+                    List<String> listed = new ArrayList<>();
                     for (GHRepository repo : repositories) {
                         Connector.checkApiRateLimit(listener, github);
+                        listed.add(repo.getName());
+                        recordWatermark(observer, repo, generation);
 
                         if (repo.isArchived() && gitHubSCMNavigatorContext.isExcludeArchivedRepositories()) {
                             // exclude archived repositories
@@ -1008,7 +1026,7 @@ public class GitHubSCMNavigator extends SCMNavigator {
                             listener.getLogger()
                                     .println(GitHubConsoleNote.create(System.currentTimeMillis(), String.format(
                                             "Skipping repository %s because it is archived", repo.getName())));
-                        } else if (!gitHubSCMNavigatorContext.getTopics().isEmpty() && !repo.listTopics().containsAll(gitHubSCMNavigatorContext.getTopics())) {
+                        } else if (!hasTopics(repo, topicMatches, gitHubSCMNavigatorContext.getTopics())) {
                                 // exclude repositories which are missing one or more of the specified topics
                                 witness.record(repo.getName(), false);
                                 listener.getLogger()
@@ -1021,11 +1039,16 @@ public class GitHubSCMNavigator extends SCMNavigator {
                                     .println(GitHubConsoleNote.create(System.currentTimeMillis(), String.format(
                                             "Skipping repository %s because it is public", repo.getName())));
 
-                        } else if (request.process(repo.getName(), sourceFactory, null, witness)) {
+                        } else if (process(request, sourceFactory, witness, cursor, github, repo)) {
                             listener.getLogger().println(GitHubConsoleNote.create(System.currentTimeMillis(), String.format(
                                     "%d repositories were processed (query completed)", witness.getCount())));
                         }
                     }
+                    if (StringUtils.isNotBlank(gitHubSCMNavigatorContext.getTeamSlug())) {
+                        // we have listed every repository of the team, so single repository visits can use it
+                        TeamRepositoryCache.put(apiUri, org.getLogin(), gitHubSCMNavigatorContext.getTeamSlug(), listed);
+                    }
+                    processDeferred(request, sourceFactory, witness, cursor);
                     listener.getLogger().println(GitHubConsoleNote.create(System.currentTimeMillis(), String.format(
                             "%d repositories were processed", witness.getCount())));
                     return;
@@ -1042,8 +1065,14 @@ public class GitHubSCMNavigator extends SCMNavigator {
                 if (user != null && repoOwner.equalsIgnoreCase(user.getLogin())) {
                     listener.getLogger().format("Looking up repositories of user %s%n%n", repoOwner);
                     Connector.checkApiRateLimit(listener, github);
-                    for (GHRepository repo : user.listRepositories(100)) {
+                    List<GHRepository> found = searchRepositories(github, listener, false, gitHubSCMNavigatorContext);
+                    final Iterable<GHRepository> repositories = found != null ? found : user.listRepositories(100);
+                    Set<String> topicMatches = found != null
+                            ? GitHubRepositorySearch.namesOf(found)
+                            : searchTopics(github, listener, false, gitHubSCMNavigatorContext);
+                    for (GHRepository repo : repositories) {
                         Connector.checkApiRateLimit(listener, github);
+                        recordWatermark(observer, repo, generation);
 
                         if (repo.isArchived() && gitHubSCMNavigatorContext.isExcludeArchivedRepositories()) {
                             witness.record(repo.getName(), false);
@@ -1051,19 +1080,20 @@ public class GitHubSCMNavigator extends SCMNavigator {
                                     .println(GitHubConsoleNote.create(System.currentTimeMillis(), String.format(
                                             "Skipping repository %s because it is archived", repo.getName())));
 
-                        } else if (!gitHubSCMNavigatorContext.getTopics().isEmpty() && !repo.listTopics().containsAll(gitHubSCMNavigatorContext.getTopics())) {
+                        } else if (!hasTopics(repo, topicMatches, gitHubSCMNavigatorContext.getTopics())) {
                             // exclude repositories which are missing one or more of the specified topics
                             witness.record(repo.getName(), false);
                             listener.getLogger()
                                     .println(GitHubConsoleNote.create(System.currentTimeMillis(), String.format(
                                             "Skipping repository %s because it is missing one or more of the following topics: '%s'", repo.getName(), gitHubSCMNavigatorContext.getTopics())));
-                        } else if (request.process(repo.getName(), sourceFactory, null, witness)) {
+                        } else if (process(request, sourceFactory, witness, cursor, github, repo)) {
                             listener.getLogger()
                                     .println(GitHubConsoleNote.create(System.currentTimeMillis(), String.format(
                                             "%d repositories were processed (query completed)", witness.getCount()
                                     )));
                         }
                     }
+                    processDeferred(request, sourceFactory, witness, cursor);
                     listener.getLogger().println(GitHubConsoleNote.create(System.currentTimeMillis(), String.format(
                             "%d repositories were processed", witness.getCount()
                     )));
@@ -1074,10 +1104,192 @@ public class GitHubSCMNavigator extends SCMNavigator {
                         repoOwner + " does not correspond to a known GitHub User Account or Organization");
             }
         } finally {
+            RepositoryWatermarks.save((Item) observer.getContext());
             Connector.release(github);
         }
     }
 
+    /**
+     * Processes a repository unless it is deferred by the cursor of an interrupted scan.
+     *
+     * @param request       the request.
+     * @param sourceFactory the source factory.
+     * @param witness       the witness.
+     * @param cursor        the scan cursor.
+     * @param github        the connection that listed the repository.
+     * @param repo          the repository.
+     * @return {@code true} if the request is completed.
+     * @throws IOException          if there is an I/O error.
+     * @throws InterruptedException if interrupted.
+     */
+    private static boolean process(GitHubSCMNavigatorRequest request, SourceFactory sourceFactory,
+                                   WitnessImpl witness, ScanCursor cursor, GitHub github, GHRepository repo)
+            throws IOException, InterruptedException {
+        String name = repo.getName();
+        // the source can use the repository we listed rather than fetching it again, even if deferred
+        RepositoryHandOff.put(github, repo);
+        if (cursor.defer(name)) {
+            return false;
+        }
+        boolean completed = request.process(name, sourceFactory, null, witness);
+        cursor.processed(name);
+        return completed;
+    }
+
+    /**
+     * Processes the repositories deferred by the cursor of an interrupted scan and marks the scan as completed.
+     *
+     * @param request       the request.
+     * @param sourceFactory the source factory.
+     * @param witness       the witness.
+     * @param cursor        the scan cursor.
+     * @throws IOException          if there is an I/O error.
+     * @throws InterruptedException if interrupted.
+     */
+    private static void processDeferred(GitHubSCMNavigatorRequest request, SourceFactory sourceFactory,
+                                        WitnessImpl witness, ScanCursor cursor)
+            throws IOException, InterruptedException {
+        for (String name : cursor.deferred()) {
+            boolean completed = request.process(name, sourceFactory, null, witness);
+            cursor.processed(name);
+            if (completed) {
+                break;
+            }
+        }
+        cursor.completed();
+    }
+
+    /**
+     * Returns the full scan generation of this scan, which changes every {@code fullScanInterval} scans.
+     *
+     * @param context          the organization folder.
+     * @param listener         the listener to log to.
+     * @param fullScanInterval the number of scans between full scans or {@code 0} if scans are not incremental.
+     * @return the generation or {@code -1} if scans are not incremental.
+     */
+    private static int nextScanGeneration(Item context, TaskListener listener, int fullScanInterval) {
+        if (fullScanInterval <= 0) {
+            return -1;
+        }
+        int scan = RepositoryWatermarks.nextScan(context);
+        if (scan % fullScanInterval == 0) {
+            listener.getLogger().println(GitHubConsoleNote.create(System.currentTimeMillis(),
+                    "Every repository will be fully scanned"));
+        } else {
+            listener.getLogger().println(GitHubConsoleNote.create(System.currentTimeMillis(), String.format(
+                    "Only repositories that have changed will be scanned, full scan in %d scans",
+                    fullScanInterval - scan % fullScanInterval)));
+        }
+        return scan / fullScanInterval;
+    }
+
+    /**
+     * Records the watermark of a listed repository so that its source can skip scanning if it has not changed.
+     *
+     * @param observer   the observer.
+     * @param repo       the repository.
+     * @param generation the full scan generation or {@code -1} if scans are not incremental.
+     * @throws IOException if the repository details could not be read.
+     */
+    private static void recordWatermark(SCMSourceObserver observer, GHRepository repo, int generation)
+            throws IOException {
+        if (generation >= 0) {
+            RepositoryWatermarks.put((Item) observer.getContext(), repo.getName(),
+                    RepositoryWatermarks.watermark(repo, generation));
+        }
+    }
+
+    /**
+     * Discovers the repositories using the search API when {@link RepositorySearchTrait} is configured, applying the
+     * archived, public and topic filters as search qualifiers.
+     *
+     * @param github       the connection to use.
+     * @param listener     the listener to log to.
+     * @param organization {@code true} if the {@link #repoOwner} is an organization.
+     * @param context      the navigator context.
+     * @return the matching repositories or {@code null} if the repositories need to be listed.
+     * @throws AbortException if the API rate limit was exceeded.
+     */
+    @CheckForNull
+    private List<GHRepository> searchRepositories(GitHub github, TaskListener listener, boolean organization,
+                                                  GitHubSCMNavigatorContext context) throws AbortException {
+        if (!context.isSearchRepositories()) {
+            return null;
+        }
+        GitHubRepositorySearch search = new GitHubRepositorySearch(organization, repoOwner)
+                .withTopics(context.getTopics());
+        if (context.isExcludeArchivedRepositories()) {
+            search.withExcludeArchived();
+        }
+        if (context.isExcludePublicRepositories()) {
+            search.withExcludePublic();
+        }
+        listener.getLogger().println(GitHubConsoleNote.create(System.currentTimeMillis(), String.format(
+                "Searching for repositories matching '%s'", search.query())));
+        List<GHRepository> repositories = search.repositories(github);
+        if (repositories == null) {
+            listener.getLogger().println(GitHubConsoleNote.create(System.currentTimeMillis(),
+                    "Search results could be incomplete, listing all repositories instead"));
+        } else {
+            listener.getLogger().println(GitHubConsoleNote.create(System.currentTimeMillis(), String.format(
+                    "Found %d matching repositories", repositories.size())));
+        }
+        return repositories;
+    }
+
+    /**
+     * Looks up the names of the repositories that have all the configured topics with a single search query when
+     * {@link RepositorySearchTrait} is configured. The search index may lag behind recent changes, so a repository
+     * missing from the results still has its topics checked.
+     *
+     * @param github       the connection to use.
+     * @param listener     the listener to log to.
+     * @param organization {@code true} if the {@link #repoOwner} is an organization.
+     * @param context      the navigator context.
+     * @return the names of the repositories known to have the topics or {@code null} if the topics of each
+     * repository need to be checked.
+     * @throws AbortException if the API rate limit was exceeded.
+     */
+    @CheckForNull
+    private Set<String> searchTopics(GitHub github, TaskListener listener, boolean organization,
+                                     GitHubSCMNavigatorContext context) throws AbortException {
+        List<String> topics = context.getTopics();
+        if (topics.isEmpty() || !context.isSearchRepositories()) {
+            return null;
+        }
+        Set<String> names = new GitHubRepositorySearch(organization, repoOwner).withTopics(topics).names(github);
+        if (names == null) {
+            listener.getLogger().println(GitHubConsoleNote.create(System.currentTimeMillis(), String.format(
+                    "Could not search for repositories with topics '%s', checking the topics of each repository",
+                    topics)));
+        } else {
+            listener.getLogger().println(GitHubConsoleNote.create(System.currentTimeMillis(), String.format(
+                    "Found %d repositories with topics '%s'", names.size(), topics)));
+        }
+        return names;
+    }
+
+    /**
+     * Checks if the repository has all the supplied topics.
+     *
+     * @param repo         the repository.
+     * @param topicMatches the names of the repositories known to have the topics or {@code null} if none are known.
+     * @param topics       the topics that the repository must have.
+     * @return {@code true} if the repository has all the topics.
+     * @throws IOException if GitHub could not be queried.
+     */
+    private static boolean hasTopics(GHRepository repo, @CheckForNull Set<String> topicMatches, List<String> topics)
+            throws IOException {
+        if (topics.isEmpty()) {
+            return true;
+        }
+        if (topicMatches != null && topicMatches.contains(repo.getName())) {
+            return true;
+        }
+        // the search index lags behind, so a repository that was just created or tagged may be missing from it
+        return repo.listTopics().containsAll(topics);
+    }
+
     private GHOrganization getGhOrganization(final GitHub github) throws IOException {
         try {
             return github.getOrganization(repoOwner);
@@ -1156,7 +1368,7 @@ public class GitHubSCMNavigator extends SCMNavigator {
                                         .println(GitHubConsoleNote.create(System.currentTimeMillis(), String.format(
                                                 "Skipping repository %s because it is archived", repo.getName())));
 
-                            } else if (!gitHubSCMNavigatorContext.getTopics().isEmpty() && !repo.listTopics().containsAll(gitHubSCMNavigatorContext.getTopics())) {
+                            } else if (!hasTopics(repo, null, gitHubSCMNavigatorContext.getTopics())) {
                                 // exclude repositories which are missing one or more of the specified topics
                                 witness.record(repo.getName(), false);
                                 listener.getLogger()
@@ -1195,7 +1407,7 @@ public class GitHubSCMNavigator extends SCMNavigator {
                                     .println(GitHubConsoleNote.create(System.currentTimeMillis(), String.format(
                                             "Skipping repository %s because it is archived", repo.getName())));
 
-                        } else if (!gitHubSCMNavigatorContext.getTopics().isEmpty() && !repo.listTopics().containsAll(gitHubSCMNavigatorContext.getTopics())) {
+                        } else if (!hasTopics(repo, null, gitHubSCMNavigatorContext.getTopics())) {
                             // exclude repositories which are missing one or more of the specified topics
                             witness.record(repo.getName(), false);
                             listener.getLogger()
@@ -1246,7 +1458,7 @@ public class GitHubSCMNavigator extends SCMNavigator {
                                     .println(GitHubConsoleNote.create(System.currentTimeMillis(), String.format(
                                             "Skipping repository %s because it is archived", repo.getName())));
 
-                        } else if (!gitHubSCMNavigatorContext.getTopics().isEmpty() && !repo.listTopics().containsAll(gitHubSCMNavigatorContext.getTopics())) {
+                        } else if (!hasTopics(repo, null, gitHubSCMNavigatorContext.getTopics())) {
                             // exclude repositories which are missing one or more of the specified topics
                             witness.record(repo.getName(), false);
                             listener.getLogger()
@@ -1280,14 +1492,7 @@ public class GitHubSCMNavigator extends SCMNavigator {
     }
 
     private boolean isRepositoryVisibleToTeam(GHOrganization org, GHRepository repo, String teamSlug) throws IOException {
-        final Iterable<GHRepository> repositories = org.getTeamBySlug(teamSlug).listRepositories()
-            .withPageSize(100);
-        for (GHRepository item : repositories) {
-            if (repo.getFullName().equals(item.getFullName())) {
-                return true;
-            }
-        }
-        return false;
+        return TeamRepositoryCache.isVisibleToTeam(apiUri, org, repo, teamSlug);
     }
 
     /**
@@ -1332,6 +1537,7 @@ public class GitHubSCMNavigator extends SCMNavigator {
     @Override
     public void afterSave(@NonNull SCMNavigatorOwner owner) {
         GitHubWebHook.get().registerHookFor(owner);
+        EventRoutingIndex.index(owner);
         try {
             // FIXME MINOR HACK ALERT
             StandardCredentials credentials = Connector.lookupScanCredentials((Item)owner, getApiUri(), credentialsId);
@@ -58,6 +58,16 @@ public class GitHubSCMNavigatorContext extends SCMNavigatorContext<GitHubSCMNavi
      */
     private boolean excludePublicRepositories;
 
+    /**
+     * If true, repositories will be discovered using the search API rather than by listing all the repositories.
+     */
+    private boolean searchRepositories;
+
+    /**
+     * The number of scans between full scans of every repository or {@code 0} to always scan every repository.
+     */
+    private int fullScanInterval;
+
     /**
      * {@inheritDoc}
      */
@@ -124,4 +134,38 @@ public class GitHubSCMNavigatorContext extends SCMNavigatorContext<GitHubSCMNavi
     public void setExcludePublicRepositories(boolean excludePublicRepositories) {
         this.excludePublicRepositories = excludePublicRepositories;
     }
+
+    /**
+     * @return True if repositories should be discovered using the search API, false if they should be listed.
+     * @since 2.9.2
+     */
+    public boolean isSearchRepositories() {
+        return searchRepositories;
+    }
+
+    /**
+     * @param searchRepositories Set true to discover repositories using the search API
+     * @since 2.9.2
+     */
+    public void setSearchRepositories(boolean searchRepositories) {
+        this.searchRepositories = searchRepositories;
+    }
+
+    /**
+     * @return The number of scans between full scans of every repository or {@code 0} if every repository should
+     * always be scanned.
+     * @since 2.9.2
+     */
+    public int getFullScanInterval() {
+        return fullScanInterval;
+    }
+
+    /**
+     * @param fullScanInterval The number of scans between full scans of every repository or {@code 0} to always scan
+     *                         every repository
+     * @since 2.9.2
+     */
+    public void setFullScanInterval(int fullScanInterval) {
+        this.fullScanInterval = Math.max(0, fullScanInterval);
+    }
 }
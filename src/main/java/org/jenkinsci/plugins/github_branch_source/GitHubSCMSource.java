@@ -29,6 +29,7 @@ import com.cloudbees.plugins.credentials.CredentialsNameProvider;
 import com.cloudbees.plugins.credentials.CredentialsProvider;
 import com.cloudbees.plugins.credentials.common.StandardCredentials;
 import com.cloudbees.plugins.credentials.common.StandardListBoxModel;
+import com.google.common.collect.Iterables;
 import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
@@ -43,6 +44,7 @@ import hudson.init.Initializer;
 import hudson.model.Action;
 import hudson.model.Actionable;
 import hudson.model.Item;
+import hudson.model.Items;
 import hudson.model.TaskListener;
 import hudson.plugins.git.extensions.GitSCMExtension;
 import hudson.scm.SCM;
@@ -58,7 +60,6 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -67,10 +68,12 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.LogRecord;
 import java.util.logging.Logger;
@@ -84,6 +87,7 @@ import jenkins.plugins.git.GitTagSCMRevision;
 import jenkins.plugins.git.MergeWithGitSCMExtension;
 import jenkins.plugins.git.traits.GitBrowserSCMSourceTrait;
 import jenkins.scm.api.SCMHead;
+import jenkins.scm.api.SCMEvent;
 import jenkins.scm.api.SCMHeadCategory;
 import jenkins.scm.api.SCMHeadEvent;
 import jenkins.scm.api.SCMHeadObserver;
@@ -108,8 +112,10 @@ import jenkins.scm.impl.form.NamedArrayList;
 import jenkins.scm.impl.trait.Discovery;
 import jenkins.scm.impl.trait.Selection;
 import jenkins.scm.impl.trait.WildcardSCMHeadFilterTrait;
+import jenkins.util.Timer;
 import org.apache.commons.lang.StringUtils;
 import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
 import org.jenkinsci.Symbol;
 import org.jenkinsci.plugins.github.config.GitHubServerConfig;
 import org.jenkinsci.plugins.structs.describable.CustomDescribableModel;
@@ -132,6 +138,7 @@ import org.kohsuke.github.GHTagObject;
 import org.kohsuke.github.GHUser;
 import org.kohsuke.github.GitHub;
 import org.kohsuke.github.HttpException;
+import org.kohsuke.github.PagedIterable;
 import org.kohsuke.stapler.AncestorInPath;
 import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.DataBoundSetter;
@@ -290,6 +297,23 @@ public class GitHubSCMSource extends AbstractGitSCMSource {
      */
     @CheckForNull
     private transient GHRepository ghRepository;
+    /**
+     * The heads observed by the last full scan, retained only when this source is part of an incremental
+     * organization scan.
+     *
+     * @see IncrementalScanTrait
+     */
+    @CheckForNull
+    private transient volatile RepositoryWatermarks.Snapshot lastFullScan;
+    /**
+     * Whether {@link #lastFullScan} has been loaded from the directory of the owner.
+     */
+    private transient volatile boolean lastFullScanLoaded;
+    /**
+     * What the {@link #traits} configure, compiled on first use.
+     */
+    @CheckForNull
+    private transient volatile CompiledTraits compiledTraits;
 
     /**
      * The cache of {@link ObjectMetadataAction} instances for each open PR.
@@ -301,6 +325,12 @@ public class GitHubSCMSource extends AbstractGitSCMSource {
      */
     @NonNull
     private transient /*effectively final*/ Map<Integer,ContributorMetadataAction> pullRequestContributorCache;
+    /**
+     * The commit hashes of the branch and pull request heads last seen on GitHub, keyed by ref, so that the revisions
+     * reported by an event are only used when they follow on from what was last seen.
+     */
+    @NonNull
+    private transient /*effectively final*/ Map<String,String> knownHashes;
 
     /**
      * Used during upgrade from 1.x to 2.2.0+ only.
@@ -341,6 +371,7 @@ public class GitHubSCMSource extends AbstractGitSCMSource {
         }
         pullRequestMetadataCache = new ConcurrentHashMap<>();
         pullRequestContributorCache = new ConcurrentHashMap<>();
+        knownHashes = new ConcurrentHashMap<>();
         this.traits = new ArrayList<>();
     }
 
@@ -505,6 +536,26 @@ public class GitHubSCMSource extends AbstractGitSCMSource {
     @DataBoundSetter
     public void setTraits(@CheckForNull List<SCMSourceTrait> traits) {
         this.traits = new ArrayList<>(Util.fixNull(traits));
+        this.lastFullScan = null;
+        // the saved snapshot is only loaded again if it was taken with the same traits
+        this.lastFullScanLoaded = false;
+        this.compiledTraits = null;
+    }
+
+    /**
+     * Returns what the behaviours of this source configure, without decorating a new context each time.
+     *
+     * @return the compiled behaviours.
+     */
+    @NonNull
+    CompiledTraits compiledTraits() {
+        CompiledTraits compiled = compiledTraits;
+        if (compiled == null || !compiled.isCompiledFrom(traits)) {
+            // the legacy setters replace traits in place, so check that they are still the ones compiled
+            compiled = new CompiledTraits(traits);
+            compiledTraits = compiled;
+        }
+        return compiled;
     }
 
     /**
@@ -522,6 +573,9 @@ public class GitHubSCMSource extends AbstractGitSCMSource {
         if (pullRequestContributorCache == null) {
             pullRequestContributorCache = new ConcurrentHashMap<>();
         }
+        if (knownHashes == null) {
+            knownHashes = new ConcurrentHashMap<>();
+        }
         if (traits == null) {
             boolean buildOriginBranch = this.buildOriginBranch == null || this.buildOriginBranch;
             boolean buildOriginBranchWithPR = this.buildOriginBranchWithPR == null || this.buildOriginBranchWithPR;
@@ -591,6 +645,19 @@ public class GitHubSCMSource extends AbstractGitSCMSource {
         GitHubSCMSource.eventDelaySeconds = Math.min(300, Math.max(0, eventDelaySeconds));
     }
 
+    /**
+     * Returns how long events from an endpoint have recently waited for the API to reflect them, when events are
+     * fired after a short debounce and retried until the API catches up rather than delayed by
+     * {@link #getEventDelaySeconds()}.
+     *
+     * @param apiUri the API endpoint.
+     * @return the moving average of the delay in milliseconds, or {@code -1} if no event has been checked.
+     * @since 2.9.2
+     */
+    public static long getEffectiveEventDelayMillis(@CheckForNull String apiUri) {
+        return AdaptiveEventDelay.getEffectiveDelayMillis(apiUri);
+    }
+
     /**
      * Returns how many megabytes of on-disk cache to maintain per GitHub API URL per credentials.
      *
@@ -938,11 +1005,85 @@ public class GitHubSCMSource extends AbstractGitSCMSource {
         }
     }
 
+    /**
+     * Returns the revision of a head observed by the last full scan, if still current.
+     *
+     * @param head the head.
+     * @return the revision or {@code null} if not known.
+     */
+    @CheckForNull
+    SCMRevision getLastScannedRevision(@NonNull SCMHead head) {
+        RepositoryWatermarks.Snapshot snapshot = getLastFullScan();
+        return snapshot == null || !snapshot.isCurrent(RepositoryWatermarks.get(getOwner(), repository))
+                ? null
+                : snapshot.get(head);
+    }
+
+    /**
+     * Returns the heads observed by the last full scan, loading them from the directory of the owner if needed.
+     *
+     * @return the heads observed by the last full scan or {@code null} if not known.
+     */
+    @CheckForNull
+    private RepositoryWatermarks.Snapshot getLastFullScan() {
+        if (!lastFullScanLoaded) {
+            lastFullScan = RepositoryWatermarks.loadSnapshot(getOwner(), getId(), getSnapshotConfig());
+            lastFullScanLoaded = true;
+        }
+        return lastFullScan;
+    }
+
+    /**
+     * Returns the digest of the configuration that determines which heads a full scan observes.
+     *
+     * @return the digest.
+     */
+    @NonNull
+    private String getSnapshotConfig() {
+        return Util.getDigestOf(repoOwner + '/' + repository + '\n' + Items.XSTREAM2.toXML(traits));
+    }
+
+    /**
+     * Records the heads observed by the last full scan, saving them in the directory of the owner.
+     *
+     * @param snapshot the heads observed by the last full scan or {@code null} to discard them.
+     */
+    private void setLastFullScan(@CheckForNull RepositoryWatermarks.Snapshot snapshot) {
+        if (snapshot != null || getLastFullScan() != null) {
+            RepositoryWatermarks.saveSnapshot(getOwner(), getId(), snapshot);
+        }
+        lastFullScan = snapshot;
+    }
+
     @Override
     protected final void retrieve(@CheckForNull SCMSourceCriteria criteria,
                                   @NonNull SCMHeadObserver observer,
                                   @CheckForNull SCMHeadEvent<?> event,
                                   @NonNull final TaskListener listener) throws IOException, InterruptedException {
+        final String watermark;
+        final RepositoryWatermarks.RecordingObserver recorder;
+        if (event == null && observer.getIncludes() == null) {
+            watermark = RepositoryWatermarks.get(getOwner(), repository);
+            RepositoryWatermarks.Snapshot snapshot = getLastFullScan();
+            // only the indexing that follows an organization scan may replay, a scan requested for this repository
+            // is how users recover from missed events so it always asks GitHub
+            boolean listed = RepositoryWatermarks.takeListed(getOwner(), repository);
+            if (listed && snapshot != null && snapshot.isCurrent(watermark)) {
+                listener.getLogger().format("%s/%s has not changed since the last full scan%n", repoOwner, repository);
+                int count = snapshot.replay(observer);
+                listener.getLogger().format("%n  %d heads were processed from the last full scan%n", count);
+                return;
+            }
+            recorder = watermark == null ? null : new RepositoryWatermarks.RecordingObserver(observer);
+        } else {
+            // anything we observe from here on could supersede the last full scan
+            watermark = null;
+            recorder = null;
+        }
+        setLastFullScan(null);
+        if (recorder != null) {
+            observer = recorder;
+        }
         StandardCredentials credentials = Connector.lookupScanCredentials((Item)getOwner(), apiUri, credentialsId);
         // Github client and validation
         final GitHub github = Connector.connect(apiUri, credentials);
@@ -951,16 +1092,20 @@ public class GitHubSCMSource extends AbstractGitSCMSource {
             Connector.checkApiRateLimit(listener, github);
 
             try {
-                // Input data validation
-                Connector.checkConnectionValidity(apiUri, listener, credentials, github);
+                String fullName = repoOwner + "/" + repository;
+                // the organization scan that created us may have just listed the repository with this connection
+                GHRepository listed = isBlank(repository) ? null : RepositoryHandOff.take(github, fullName);
+                if (listed == null) {
+                    // Input data validation
+                    Connector.checkConnectionValidity(apiUri, listener, credentials, github);
+                }
 
                 // Input data validation
                 if (isBlank(repository)) {
                     throw new AbortException("No repository selected, skipping");
                 }
 
-                String fullName = repoOwner + "/" + repository;
-                ghRepository = github.getRepository(fullName);
+                ghRepository = listed != null ? listed : github.getRepository(fullName);
                 final GHRepository ghRepository = this.ghRepository;
                 listener.getLogger().format("Examining %s%n",
                         HyperlinkNote.encodeTo(ghRepository.getHtmlUrl().toString(), fullName));
@@ -971,6 +1116,8 @@ public class GitHubSCMSource extends AbstractGitSCMSource {
                     // populate the request with its data sources
                     request.setGitHub(github);
                     request.setRepository(ghRepository);
+                    request.setTrustedRevisions(trustedRevisions(event));
+                    AdaptiveEventDelay.Check check = AdaptiveEventDelay.check(event, this);
                     if (request.isFetchPRs()) {
                         request.setPullRequests(new LazyPullRequests(request, ghRepository));
                     }
@@ -978,39 +1125,104 @@ public class GitHubSCMSource extends AbstractGitSCMSource {
                         request.setBranches(new LazyBranches(request, ghRepository));
                     }
                     if (request.isFetchTags()) {
-                        request.setTags(new LazyTags(request, ghRepository));
+                        request.setTags(new LazyTags(request, ghRepository, compiledTraits().refPrefixes()));
                     }
                     request.setCollaboratorNames(new LazyContributorNames(request, listener, github, ghRepository, credentials));
                     request.setPermissionsSource(new GitHubPermissionsSource() {
                         @Override
                         public GHPermissionType fetch(String username) throws IOException, InterruptedException {
-                            return ghRepository.getPermission(username);
+                            return PermissionCache.getPermission(apiUri, repoOwner, repository, username,
+                                    () -> loadPermission(ghRepository, username));
                         }
                     });
 
                     if (request.isFetchBranches() && !request.isComplete()) {
                         listener.getLogger().format("%n  Checking branches...%n");
                         int count = 0;
-                        for (final GHBranch branch : request.getBranches()) {
-                            count++;
-                            String branchName = branch.getName();
-                            listener.getLogger().format("%n    Checking branch %s%n", HyperlinkNote
-                                    .encodeTo(resolvedRepositoryUrl + "/tree/" + branchName, branchName));
-                            BranchSCMHead head = new BranchSCMHead(branchName);
-                            if (request.process(head, new SCMRevisionImpl(head, branch.getSHA1()),
-                                    new SCMSourceRequest.ProbeLambda<BranchSCMHead, SCMRevisionImpl>() {
-                                        @NonNull
-                                        @Override
-                                        public SCMSourceCriteria.Probe create(@NonNull BranchSCMHead head,
-                                                                              @Nullable SCMRevisionImpl revisionInfo)
-                                                throws IOException, InterruptedException {
-                                            return new GitHubSCMProbe(github, ghRepository, head, revisionInfo);
-                                        }
-                                    }, new CriteriaWitness(listener))) {
+                        Map<String, String> trustedBranches = request.getTrustedBranchHashes();
+                        Set<String> branchNames = request.getRequestedBranchNames();
+                        List<String> prefixes = compiledTraits().refPrefixes();
+                        if (trustedBranches != null) {
+                            listener.getLogger().format("%n  Using the branch revisions reported by the event%n");
+                            for (Map.Entry<String, String> branch : trustedBranches.entrySet()) {
+                                count++;
+                                check.branch(branch.getKey(), branch.getValue());
+                                if (processBranch(request, github, ghRepository, branch.getKey(), branch.getValue(),
+                                        listener)) {
+                                    listener.getLogger().format("%n  %d branches were processed (query completed)%n", count);
+                                    break;
+                                }
+                            }
+                        } else if (prefixes != null && (branchNames == null || branchNames.size() != 1)) {
+                            // the name filters only allow branches under these directories so only list those refs
+                            listener.getLogger().format("%n  Only listing branches starting with %s%n", prefixes);
+                            branches:
+                            for (String prefix : prefixes) {
+                                for (GHRef ref : listRefsOrNone(ghRepository, "heads/" + prefix)) {
+                                    String branchName = StringUtils.removeStart(ref.getRef(), Constants.R_HEADS);
+                                    String hash = ref.getObject().getSha();
+                                    count++;
+                                    check.branch(branchName, hash);
+                                    if (processBranch(request, github, ghRepository, branchName, hash, listener)) {
+                                        listener.getLogger().format("%n  %d branches were processed (query completed)%n", count);
+                                        break branches;
+                                    } else {
+                                        request.checkApiRateLimit();
+                                    }
+                                }
+                            }
+                        } else if (branchNames != null && branchNames.size() == 1) {
+                            for (final GHBranch branch : request.getBranches()) {
+                                count++;
+                                check.branch(branch.getName(), branch.getSHA1());
+                                if (processBranch(request, github, ghRepository, branch.getName(), branch.getSHA1(),
+                                        listener)) {
+                                    listener.getLogger().format("%n  %d branches were processed (query completed)%n", count);
+                                    break;
+                                } else {
+                                    request.checkApiRateLimit();
+                                }
+                            }
+                        } else {
+                            // local optimization: always try the default branch first in any search
+                            String defaultBranchName = StringUtils.defaultIfBlank(ghRepository.getDefaultBranch(),
+                                    "master");
+                            GHBranch defaultBranch;
+                            try {
+                                defaultBranch = ghRepository.getBranch(defaultBranchName);
+                            } catch (FileNotFoundException e) {
+                                // default branch does not currently exist
+                                defaultBranch = null;
+                            }
+                            boolean completed = false;
+                            if (defaultBranch != null) {
+                                count++;
+                                check.branch(defaultBranchName, defaultBranch.getSHA1());
+                                completed = processBranch(request, github, ghRepository, defaultBranchName,
+                                        defaultBranch.getSHA1(), listener);
+                            }
+                            if (completed || request.isComplete()) {
                                 listener.getLogger().format("%n  %d branches were processed (query completed)%n", count);
-                                break;
                             } else {
                                 request.checkApiRateLimit();
+                                // stream the other branches a page at a time, the next page is only requested while
+                                // the request still needs more branches
+                                for (GHRef ref : listRefsOrNone(ghRepository, "heads", 100)) {
+                                    String branchName = StringUtils.removeStart(ref.getRef(), Constants.R_HEADS);
+                                    if (defaultBranchName.equals(branchName)) {
+                                        continue;
+                                    }
+                                    String hash = ref.getObject().getSha();
+                                    count++;
+                                    check.branch(branchName, hash);
+                                    if (processBranch(request, github, ghRepository, branchName, hash, listener)
+                                            || request.isComplete()) {
+                                        listener.getLogger().format("%n  %d branches were processed (query completed)%n", count);
+                                        break;
+                                    } else {
+                                        request.checkApiRateLimit();
+                                    }
+                                }
                             }
                         }
                         listener.getLogger().format("%n  %d branches were processed%n", count);
@@ -1033,6 +1245,8 @@ public class GitHubSCMSource extends AbstractGitSCMSource {
                         validatePullRequests(request);
                         for (final GHPullRequest pr : request.getPullRequests()) {
                             int number = pr.getNumber();
+                            check.pullRequest(number, pr.getHead().getSha());
+                            knownHashes.put(R_PULL + number + "/head", pr.getHead().getSha());
                             try {
                                 retrievePullRequest(github, ghRepository, pr, strategies, request, listener);
                             } catch (FileNotFoundException e) {
@@ -1102,6 +1316,11 @@ public class GitHubSCMSource extends AbstractGitSCMSource {
                         }
                         listener.getLogger().format("%n  %d tags were processed%n", count);
                     }
+                    if (recorder != null && !request.isComplete()) {
+                        // every head was considered, so the next scan can reuse them if nothing changes
+                        setLastFullScan(recorder.snapshot(watermark, getSnapshotConfig()));
+                    }
+                    check.complete();
                 }
                 listener.getLogger().format("%nFinished examining %s%n%n", fullName);
             } catch (WrappedException e) {
@@ -1116,6 +1335,91 @@ public class GitHubSCMSource extends AbstractGitSCMSource {
         }
     }
 
+    /**
+     * Processes a branch of the repository.
+     *
+     * @param request      the request.
+     * @param github       the connection.
+     * @param ghRepository the repository.
+     * @param branchName   the name of the branch.
+     * @param sha          the commit hash of the branch.
+     * @param listener     the listener.
+     * @return {@code true} if the request is completed.
+     * @throws IOException          if there is an I/O error.
+     * @throws InterruptedException if interrupted.
+     */
+    private boolean processBranch(@NonNull GitHubSCMSourceRequest request, @NonNull final GitHub github,
+                                  @NonNull final GHRepository ghRepository, @NonNull String branchName,
+                                  @NonNull String sha, @NonNull TaskListener listener)
+            throws IOException, InterruptedException {
+        listener.getLogger().format("%n    Checking branch %s%n", HyperlinkNote
+                .encodeTo(resolvedRepositoryUrl + "/tree/" + branchName, branchName));
+        knownHashes.put(Constants.R_HEADS + branchName, sha);
+        BranchSCMHead head = new BranchSCMHead(branchName);
+        return request.process(head, new SCMRevisionImpl(head, sha),
+                new SCMSourceRequest.ProbeLambda<BranchSCMHead, SCMRevisionImpl>() {
+                    @NonNull
+                    @Override
+                    public SCMSourceCriteria.Probe create(@NonNull BranchSCMHead head,
+                                                          @Nullable SCMRevisionImpl revisionInfo)
+                            throws IOException, InterruptedException {
+                        return new GitHubSCMProbe(github, ghRepository, head, revisionInfo);
+                    }
+                }, new CriteriaWitness(listener));
+    }
+
+    /**
+     * Returns the revisions reported by an event if its payload can be trusted. Events replayed after a restart are
+     * never trusted, and a revision is only trusted if the head was last seen at the revision the event reports it
+     * was changed from, so that deliveries received out of order never move a head back to an older commit.
+     *
+     * @param event the event.
+     * @return the revisions reported by the event or {@code null} if they need to be fetched from GitHub.
+     */
+    @CheckForNull
+    private Map<SCMHead, SCMRevision> trustedRevisions(@CheckForNull SCMHeadEvent<?> event) {
+        if (event == null
+                || event.getType() == SCMEvent.Type.REMOVED
+                || !(event instanceof WebhookHeadEvent)
+                || ((WebhookHeadEvent) event).isReplayed()
+                || !GitHubConfiguration.get().isWebhookPayloadTrusted()) {
+            return null;
+        }
+        String before = ((WebhookHeadEvent) event).getBeforeHash();
+        if (before != null && (ObjectId.zeroId().name().equals(before) || !before.matches(VALID_GIT_SHA1))) {
+            before = null;
+        }
+        Map<SCMHead, SCMRevision> result = new HashMap<>();
+        for (Map.Entry<SCMHead, SCMRevision> entry : event.heads(this).entrySet()) {
+            SCMHead head = entry.getKey();
+            SCMRevision revision = entry.getValue();
+            String ref;
+            String hash;
+            if (head instanceof BranchSCMHead && revision instanceof SCMRevisionImpl) {
+                ref = Constants.R_HEADS + head.getName();
+                hash = ((SCMRevisionImpl) revision).getHash();
+            } else if (head instanceof PullRequestSCMHead && !((PullRequestSCMHead) head).isMerge()
+                    && revision instanceof PullRequestSCMRevision) {
+                // merge revisions need GitHub to compute the merge commit
+                ref = R_PULL + ((PullRequestSCMHead) head).getNumber() + "/head";
+                hash = ((PullRequestSCMRevision) revision).getPullHash();
+            } else {
+                continue;
+            }
+            if (ObjectId.zeroId().name().equals(hash)) {
+                continue;
+            }
+            String known = knownHashes.get(ref);
+            if (hash.equals(known) || Objects.equals(known, before)) {
+                result.put(head, revision);
+            } else {
+                LOGGER.log(Level.FINE, "Fetching {0} of {1}/{2} as it was last seen at {3} rather than {4}",
+                        new Object[]{ref, repoOwner, repository, known, before});
+            }
+        }
+        return result;
+    }
+
     private static void validatePullRequests(GitHubSCMSourceRequest request) {
         // JENKINS-56996
         // This method handles the case where there would be an error
@@ -1199,7 +1503,11 @@ public class GitHubSCMSource extends AbstractGitSCMSource {
                         public SCMRevision create(@NonNull PullRequestSCMHead head,
                                                 @Nullable Void ignored)
                                 throws IOException, InterruptedException {
-
+                            SCMRevision trusted = head.isMerge() ? null : request.getTrustedRevision(head);
+                            if (trusted instanceof PullRequestSCMRevision) {
+                                listener.getLogger().format("    Using the revision reported by the event%n");
+                                return trusted;
+                            }
                             return createPullRequestSCMRevision(pr, head, listener, github, ghRepository);
                         }
                     },
@@ -1243,8 +1551,7 @@ public class GitHubSCMSource extends AbstractGitSCMSource {
                 listener.getLogger().format("Listing %s%n",
                         HyperlinkNote.encodeTo(ghRepository.getHtmlUrl().toString(), fullName));
                 resolvedRepositoryUrl = ghRepository.getHtmlUrl();
-                GitHubSCMSourceContext context = new GitHubSCMSourceContext(null, SCMHeadObserver.none())
-                        .withTraits(traits);
+                CompiledTraits context = compiledTraits();
                 boolean wantBranches = context.wantBranches();
                 boolean wantTags = context.wantTags();
                 boolean wantPRs = context.wantPRs();
@@ -1253,7 +1560,25 @@ public class GitHubSCMSource extends AbstractGitSCMSource {
                 Set<ChangeRequestCheckoutStrategy> strategies = new TreeSet<>();
                 strategies.addAll(context.forkPRStrategies());
                 strategies.addAll(context.originPRStrategies());
-                for (GHRef ref: ghRepository.listRefs()) {
+                Iterable<GHRef> refs = ghRepository.listRefs();
+                List<String> prefixes = context.refPrefixes();
+                if (prefixes != null) {
+                    // the name filters only allow branches and tags under these directories so only list those refs
+                    List<Iterable<GHRef>> listings = new ArrayList<>();
+                    for (String prefix : prefixes) {
+                        if (wantBranches) {
+                            listings.add(listRefsOrNone(ghRepository, "heads/" + prefix));
+                        }
+                        if (wantTags) {
+                            listings.add(listRefsOrNone(ghRepository, "tags/" + prefix));
+                        }
+                    }
+                    if (wantPRs) {
+                        listings.add(listRefsOrNone(ghRepository, "pull"));
+                    }
+                    refs = Iterables.concat(listings);
+                }
+                for (GHRef ref: refs) {
                     String name = ref.getRef();
                     if (name.startsWith(Constants.R_HEADS) && wantBranches) {
                         String branchName = name.substring(Constants.R_HEADS.length());
@@ -1329,8 +1654,7 @@ public class GitHubSCMSource extends AbstractGitSCMSource {
             final GHRepository ghRepository = this.ghRepository;
             listener.getLogger().format("Examining %s%n",
                     HyperlinkNote.encodeTo(ghRepository.getHtmlUrl().toString(), fullName));
-            GitHubSCMSourceContext context = new GitHubSCMSourceContext(null, SCMHeadObserver.none())
-                    .withTraits(traits);
+            CompiledTraits context = compiledTraits();
             Matcher prMatcher = Pattern.compile("^PR-(\\d+)(?:-(.*))?$").matcher(headName);
             if (prMatcher.matches()) {
                 // it's a looking very much like a PR
@@ -1506,7 +1830,8 @@ public class GitHubSCMSource extends AbstractGitSCMSource {
             return collaboratorNames = Collections.emptySet();
         } else {
             try {
-                return collaboratorNames = new HashSet<>(ghRepository.getCollaboratorNames());
+                Set<String> cached = PermissionCache.getCollaborators(apiUri, repoOwner, repository);
+                return collaboratorNames = cached != null ? cached : listCollaboratorNames(ghRepository);
             } catch (FileNotFoundException e) {
                 // not permitted
                 listener.getLogger().println("Not permitted to query list of collaborators, assuming none");
@@ -1523,6 +1848,58 @@ public class GitHubSCMSource extends AbstractGitSCMSource {
         }
     }
 
+    /**
+     * Lists the names of all the collaborators of the repository, whatever their affiliation, and caches them.
+     *
+     * @param ghRepository the repository.
+     * @return the names of the collaborators.
+     * @throws IOException if the collaborators could not be listed.
+     */
+    @NonNull
+    private Set<String> listCollaboratorNames(@NonNull GHRepository ghRepository) throws IOException {
+        Set<String> names = new HashSet<>();
+        for (GHUser user : ghRepository.listCollaborators().withPageSize(100)) {
+            names.add(user.getLogin());
+        }
+        return PermissionCache.putCollaborators(apiUri, repoOwner, repository, names);
+    }
+
+    /**
+     * Loads the permission of a user on the repository. Users who are not collaborators cannot have more than read
+     * access, which they have on public repositories only, so once the collaborators have been listed in a few paged
+     * requests only the collaborators need to be looked up one by one.
+     *
+     * @param ghRepository the repository.
+     * @param username     the user.
+     * @return the permission of the user.
+     * @throws IOException if the permission could not be loaded.
+     */
+    @NonNull
+    GHPermissionType loadPermission(@NonNull GHRepository ghRepository, @NonNull String username)
+            throws IOException {
+        Set<String> collaborators = PermissionCache.getCollaborators(apiUri, repoOwner, repository);
+        if (collaborators == null && !PermissionCache.isUnlistable(apiUri, repoOwner, repository)) {
+            try {
+                collaborators = listCollaboratorNames(ghRepository);
+            } catch (FileNotFoundException e) {
+                // not permitted, check each user instead
+                LOGGER.log(Level.FINE, "Not permitted to list the collaborators of " + repoOwner + "/" + repository, e);
+                PermissionCache.putUnlistable(apiUri, repoOwner, repository);
+            } catch (HttpException e) {
+                if (e.getResponseCode() != HttpServletResponse.SC_UNAUTHORIZED
+                        && e.getResponseCode() != HttpServletResponse.SC_FORBIDDEN) {
+                    throw e;
+                }
+                LOGGER.log(Level.FINE, "Not permitted to list the collaborators of " + repoOwner + "/" + repository, e);
+                PermissionCache.putUnlistable(apiUri, repoOwner, repository);
+            }
+        }
+        if (collaborators != null && !collaborators.contains(username)) {
+            return ghRepository.isPrivate() ? GHPermissionType.NONE : GHPermissionType.READ;
+        }
+        return ghRepository.getPermission(username);
+    }
+
     private void checkApiUrlValidity(GitHub github, StandardCredentials credentials) throws IOException {
         try {
             Connector.checkApiUrlValidity(github, credentials);
@@ -1885,9 +2262,14 @@ public class GitHubSCMSource extends AbstractGitSCMSource {
         StandardCredentials credentials = Connector.lookupScanCredentials((Item) getOwner(), apiUri, credentialsId);
         GitHub hub = Connector.connect(apiUri, credentials);
         try {
-            Connector.checkConnectionValidity(apiUri, listener, credentials, hub);
+            String fullName = getRepoOwner() + '/' + repository;
+            // leave the repository listed by the organization scan for retrieving the heads
+            GHRepository listed = RepositoryHandOff.peek(hub, fullName);
+            if (listed == null) {
+                Connector.checkConnectionValidity(apiUri, listener, credentials, hub);
+            }
             try {
-                ghRepository = hub.getRepository(getRepoOwner() + '/' + repository);
+                ghRepository = listed != null ? listed : hub.getRepository(fullName);
                 resolvedRepositoryUrl = ghRepository.getHtmlUrl();
             } catch (FileNotFoundException e) {
                 throw new AbortException(
@@ -1913,6 +2295,7 @@ public class GitHubSCMSource extends AbstractGitSCMSource {
         SCMSourceOwner owner = getOwner();
         if (owner != null) {
             GitHubWebHook.get().registerHookFor(owner);
+            EventRoutingIndex.index(owner);
         }
     }
 
@@ -1955,6 +2338,24 @@ public class GitHubSCMSource extends AbstractGitSCMSource {
         @Restricted(DoNotUse.class)
         @RestrictedSince("2.2.0")
         public static final boolean defaultBuildForkPRHead = false;
+        /**
+         * How old (in seconds) the organizations and repositories listed in the configuration form may be before they
+         * are listed again in the background.
+         */
+        private static final long FORM_FILL_REFRESH_SECONDS = Math.max(0,
+                Long.getLong(GitHubSCMSource.class.getName() + ".formFillCacheSeconds", 300L));
+        /**
+         * The organizations of each credential, keyed by {@link #formFillKey(String, StandardCredentials, String)}.
+         */
+        private static final FormFillCache<Map<String, String>> ORGANIZATIONS = new FormFillCache<>(
+                TimeUnit.SECONDS.toMillis(FORM_FILL_REFRESH_SECONDS), TimeUnit.HOURS.toMillis(1), 64,
+                task -> Timer.get().execute(task), System::currentTimeMillis);
+        /**
+         * The repositories of each owner, keyed by {@link #formFillKey(String, StandardCredentials, String)}.
+         */
+        private static final FormFillCache<Set<String>> REPOSITORIES = new FormFillCache<>(
+                TimeUnit.SECONDS.toMillis(FORM_FILL_REFRESH_SECONDS), TimeUnit.HOURS.toMillis(1), 256,
+                task -> Timer.get().execute(task), System::currentTimeMillis);
 
         @Initializer(before = InitMilestone.PLUGINS_STARTED)
         public static void addAliases() {
@@ -2121,6 +2522,21 @@ public class GitHubSCMSource extends AbstractGitSCMSource {
         }
 
 
+        /**
+         * Returns the key of the {@link #ORGANIZATIONS} and {@link #REPOSITORIES} caches.
+         *
+         * @param apiUri      the API endpoint.
+         * @param credentials the credentials.
+         * @param repoOwner   the owner or {@code null} for the organizations of the credentials.
+         * @return the key.
+         * @throws IOException if the credentials are not supported.
+         */
+        private static String formFillKey(@CheckForNull String apiUri, @CheckForNull StandardCredentials credentials,
+                                          @CheckForNull String repoOwner) throws IOException {
+            return StringUtils.defaultIfBlank(apiUri, GITHUB_URL) + "::" + Connector.getCredentialsHash(credentials)
+                    + "::" + (repoOwner == null ? "" : repoOwner.toLowerCase(Locale.ENGLISH));
+        }
+
         @RequirePOST
         public ListBoxModel doFillOrganizationItems(@CheckForNull @AncestorInPath Item context, @QueryParameter String apiUri,
                                                     @QueryParameter String credentialsId) throws IOException {
@@ -2135,18 +2551,29 @@ public class GitHubSCMSource extends AbstractGitSCMSource {
                 return new ListBoxModel(); // not permitted to try connecting with these credentials
             }
             try {
-                StandardCredentials credentials = Connector.lookupScanCredentials(context, apiUri, credentialsId);
-                GitHub github = Connector.connect(apiUri, credentials);
-                try {
-                    if (!github.isAnonymous()) {
-                        ListBoxModel model = new ListBoxModel();
+                final StandardCredentials credentials =
+                        Connector.lookupScanCredentials(context, apiUri, credentialsId);
+                Map<String, String> organizations = ORGANIZATIONS.get(formFillKey(apiUri, credentials, null), () -> {
+                    GitHub github = Connector.connect(apiUri, credentials);
+                    try {
+                        if (github.isAnonymous()) {
+                            return null;
+                        }
+                        Map<String, String> result = new TreeMap<>();
                         for (Map.Entry<String,GHOrganization> entry : github.getMyOrganizations().entrySet()) {
-                            model.add(entry.getKey(), entry.getValue().getAvatarUrl());
+                            result.put(entry.getKey(), entry.getValue().getAvatarUrl());
                         }
-                        return model;
+                        return Collections.unmodifiableMap(result);
+                    } finally {
+                        Connector.release(github);
                     }
-                } finally {
-                    Connector.release(github);
+                });
+                if (organizations != null) {
+                    ListBoxModel model = new ListBoxModel();
+                    for (Map.Entry<String, String> entry : organizations.entrySet()) {
+                        model.add(entry.getKey(), entry.getValue());
+                    }
+                    return model;
                 }
             }
              catch (FillErrorResponse e) {
@@ -2178,47 +2605,48 @@ public class GitHubSCMSource extends AbstractGitSCMSource {
                 return new ListBoxModel(); // not permitted to try connecting with these credentials
             }
             try {
-                StandardCredentials credentials = Connector.lookupScanCredentials(context, apiUri, credentialsId);
-                GitHub github = Connector.connect(apiUri, credentials);
-                try {
-
-                    if (!github.isAnonymous()) {
-                        GHMyself myself;
-                        try {
-                            myself = github.getMyself();
-                        } catch (IllegalStateException e) {
-                            LOGGER.log(Level.WARNING, e.getMessage(), e);
-                            throw new FillErrorResponse(e.getMessage(), false);
-                        } catch (IOException e) {
-                            LogRecord lr = new LogRecord(Level.WARNING,
-                                    "Exception retrieving the repositories of the owner {0} on {1} with credentials {2}");
-                            lr.setThrown(e);
-                            lr.setParameters(new Object[]{
-                                    repoOwner, apiUri,
-                                    credentials == null
-                                            ? "anonymous access"
-                                            : CredentialsNameProvider.name(credentials)
-                            });
-                            LOGGER.log(lr);
-                            throw new FillErrorResponse(e.getMessage(), false);
-                        }
-                        if (myself != null && repoOwner.equalsIgnoreCase(myself.getLogin())) {
-                            Set<String> result = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
-                            for (GHRepository repo : myself.listRepositories(100, GHMyself.RepositoryListFilter.ALL)) {
-                                result.add(repo.getName());
-                            }
-                            return nameAndValueModel(result);
-                        }
-                    }
+                final StandardCredentials credentials =
+                        Connector.lookupScanCredentials(context, apiUri, credentialsId);
+                final String owner = repoOwner;
+                Set<String> result = REPOSITORIES.get(formFillKey(apiUri, credentials, owner),
+                        () -> listRepositoryNames(apiUri, credentials, credentialsId, owner));
+                if (result != null) {
+                    return nameAndValueModel(result);
+                }
+            } catch (FillErrorResponse e) {
+                throw e;
+            } catch (Throwable e) {
+                LOGGER.log(Level.SEVERE, e.getMessage(), e);
+                throw new FillErrorResponse(e.getMessage(), false);
+            }
+            throw new FillErrorResponse(Messages.GitHubSCMSource_NoMatchingOwner(repoOwner), true);
+        }
 
-                    GHOrganization org = null;
+        /**
+         * Lists the names of the repositories of an owner.
+         *
+         * @param apiUri        the API endpoint.
+         * @param credentials   the credentials.
+         * @param credentialsId the credentials id.
+         * @param repoOwner     the owner.
+         * @return the names of the repositories or {@code null} if there is no such owner.
+         * @throws IOException if the repositories could not be listed.
+         */
+        @CheckForNull
+        private static Set<String> listRepositoryNames(String apiUri, StandardCredentials credentials,
+                                                       String credentialsId, String repoOwner) throws IOException {
+            GitHub github = Connector.connect(apiUri, credentials);
+            try {
+                if (!github.isAnonymous()) {
+                    GHMyself myself;
                     try {
-                        org = github.getOrganization(repoOwner);
-                    } catch (FileNotFoundException fnf) {
-                        LOGGER.log(Level.FINE, "There is not any GH Organization named {0}", repoOwner);
+                        myself = github.getMyself();
+                    } catch (IllegalStateException e) {
+                        LOGGER.log(Level.WARNING, e.getMessage(), e);
+                        throw new FillErrorResponse(e.getMessage(), false);
                     } catch (IOException e) {
                         LogRecord lr = new LogRecord(Level.WARNING,
-                                "Exception retrieving the repositories of the organization {0} on {1} with credentials {2}");
+                                "Exception retrieving the repositories of the owner {0} on {1} with credentials {2}");
                         lr.setThrown(e);
                         lr.setParameters(new Object[]{
                                 repoOwner, apiUri,
@@ -2229,55 +2657,76 @@ public class GitHubSCMSource extends AbstractGitSCMSource {
                         LOGGER.log(lr);
                         throw new FillErrorResponse(e.getMessage(), false);
                     }
-                    if (org != null && repoOwner.equalsIgnoreCase(org.getLogin())) {
+                    if (myself != null && repoOwner.equalsIgnoreCase(myself.getLogin())) {
                         Set<String> result = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
-                        LOGGER.log(Level.FINE, "as {0} looking for repositories in {1}",
-                                new Object[]{credentialsId, repoOwner});
-                        for (GHRepository repo : org.listRepositories(100)) {
-                            LOGGER.log(Level.FINE, "as {0} found {1}/{2}",
-                                    new Object[]{credentialsId, repoOwner, repo.getName()});
+                        for (GHRepository repo : myself.listRepositories(100, GHMyself.RepositoryListFilter.ALL)) {
                             result.add(repo.getName());
                         }
-                        LOGGER.log(Level.FINE, "as {0} result of {1} is {2}",
-                                new Object[]{credentialsId, repoOwner, result});
-                        return nameAndValueModel(result);
+                        return Collections.unmodifiableSet(result);
                     }
+                }
 
-                    GHUser user = null;
-                    try {
-                        user = github.getUser(repoOwner);
-                    } catch (FileNotFoundException fnf) {
-                        LOGGER.log(Level.FINE, "There is not any GH User named {0}", repoOwner);
-                    } catch (IOException e) {
-                        LogRecord lr = new LogRecord(Level.WARNING,
-                                "Exception retrieving the repositories of the user {0} on {1} with credentials {2}");
-                        lr.setThrown(e);
-                        lr.setParameters(new Object[]{
-                                repoOwner, apiUri,
-                                credentials == null
-                                        ? "anonymous access"
-                                        : CredentialsNameProvider.name(credentials)
-                        });
-                        LOGGER.log(lr);
-                        throw new FillErrorResponse(e.getMessage(), false);
+                GHOrganization org = null;
+                try {
+                    org = github.getOrganization(repoOwner);
+                } catch (FileNotFoundException fnf) {
+                    LOGGER.log(Level.FINE, "There is not any GH Organization named {0}", repoOwner);
+                } catch (IOException e) {
+                    LogRecord lr = new LogRecord(Level.WARNING,
+                            "Exception retrieving the repositories of the organization {0} on {1} with credentials {2}");
+                    lr.setThrown(e);
+                    lr.setParameters(new Object[]{
+                            repoOwner, apiUri,
+                            credentials == null
+                                    ? "anonymous access"
+                                    : CredentialsNameProvider.name(credentials)
+                    });
+                    LOGGER.log(lr);
+                    throw new FillErrorResponse(e.getMessage(), false);
+                }
+                if (org != null && repoOwner.equalsIgnoreCase(org.getLogin())) {
+                    Set<String> result = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+                    LOGGER.log(Level.FINE, "as {0} looking for repositories in {1}",
+                            new Object[]{credentialsId, repoOwner});
+                    for (GHRepository repo : org.listRepositories(100)) {
+                        LOGGER.log(Level.FINE, "as {0} found {1}/{2}",
+                                new Object[]{credentialsId, repoOwner, repo.getName()});
+                        result.add(repo.getName());
                     }
-                    if (user != null && repoOwner.equalsIgnoreCase(user.getLogin())) {
-                        Set<String> result = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
-                        for (GHRepository repo : user.listRepositories(100)) {
-                            result.add(repo.getName());
-                        }
-                        return nameAndValueModel(result);
+                    LOGGER.log(Level.FINE, "as {0} result of {1} is {2}",
+                            new Object[]{credentialsId, repoOwner, result});
+                    return Collections.unmodifiableSet(result);
+                }
+
+                GHUser user = null;
+                try {
+                    user = github.getUser(repoOwner);
+                } catch (FileNotFoundException fnf) {
+                    LOGGER.log(Level.FINE, "There is not any GH User named {0}", repoOwner);
+                } catch (IOException e) {
+                    LogRecord lr = new LogRecord(Level.WARNING,
+                            "Exception retrieving the repositories of the user {0} on {1} with credentials {2}");
+                    lr.setThrown(e);
+                    lr.setParameters(new Object[]{
+                            repoOwner, apiUri,
+                            credentials == null
+                                    ? "anonymous access"
+                                    : CredentialsNameProvider.name(credentials)
+                    });
+                    LOGGER.log(lr);
+                    throw new FillErrorResponse(e.getMessage(), false);
+                }
+                if (user != null && repoOwner.equalsIgnoreCase(user.getLogin())) {
+                    Set<String> result = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+                    for (GHRepository repo : user.listRepositories(100)) {
+                        result.add(repo.getName());
                     }
-                } finally {
-                    Connector.release(github);
+                    return Collections.unmodifiableSet(result);
                 }
-            } catch (FillErrorResponse e) {
-                throw e;
-            } catch (Throwable e) {
-                LOGGER.log(Level.SEVERE, e.getMessage(), e);
-                throw new FillErrorResponse(e.getMessage(), false);
+            } finally {
+                Connector.release(github);
             }
-            throw new FillErrorResponse(Messages.GitHubSCMSource_NoMatchingOwner(repoOwner), true);
+            return null;
         }
         /**
          * Creates a list box model from a list of values.
@@ -2377,6 +2826,30 @@ public class GitHubSCMSource extends AbstractGitSCMSource {
                             .head(repo.getOwnerName() + ":" + branchName)
                             .list());
                 }
+                final Set<String> targets = request.getPullRequestTargets();
+                if (targets != null) {
+                    // every wanted pull request targets one of these branches so the others need not be fetched
+                    fullScanRequested = true;
+                    if (!Iterables.any(targets, TargetBranchFilterTrait::isWildcard)) {
+                        request.listener().getLogger().format(
+                                "%n  Getting remote pull requests targeting %s...%n", targets
+                        );
+                        List<Iterable<GHPullRequest>> listings = new ArrayList<>();
+                        for (String target : targets) {
+                            listings.add(repo.queryPullRequests()
+                                    .state(GHIssueState.OPEN)
+                                    .base(target)
+                                    .list());
+                        }
+                        return new CacheUpdatingIterable(Iterables.concat(listings));
+                    }
+                    request.listener().getLogger().format(
+                            "%n  Getting remote pull requests and keeping those targeting %s...%n", targets
+                    );
+                    return new CacheUpdatingIterable(Iterables.filter(repo.queryPullRequests()
+                            .state(GHIssueState.OPEN)
+                            .list(), pr -> TargetBranchFilterTrait.matches(targets, pr.getBase().getRef())));
+                }
                 request.listener().getLogger().format("%n  Getting remote pull requests...%n");
                 fullScanRequested = true;
                 return new CacheUpdatingIterable(LazyPullRequests.this.repo.queryPullRequests()
@@ -2404,10 +2877,6 @@ public class GitHubSCMSource extends AbstractGitSCMSource {
         }
 
         private class CacheUpdatingIterable extends SinglePassIterable<GHPullRequest> {
-            /**
-             * A map of all fully populated {@link GHUser} entries we have fetched, keyed by {@link GHUser#getLogin()}.
-             */
-            private Map<String, GHUser> users = new HashMap<>();
             CacheUpdatingIterable(Iterable<GHPullRequest> delegate) {
                 super(delegate);
             }
@@ -2418,20 +2887,19 @@ public class GitHubSCMSource extends AbstractGitSCMSource {
                 GHUser user = null;
                 try {
                     user = pr.getUser();
-                    if (users.containsKey(user.getLogin())) {
-                        // looked up this user already
-                        user = users.get(user.getLogin());
-                    } else {
+                    UserProfileCache.Profile profile = UserProfileCache.get(apiUri, user.getLogin());
+                    if (profile == null) {
+                        // the author has not changed since this source last looked the profile up
+                        profile = UserProfileCache.put(apiUri, user.getLogin(), pullRequestContributorCache.get(number));
+                    }
+                    if (profile == null) {
                         // going to be making a request to populate the user record
                         request.checkApiRateLimit();
+                        profile = UserProfileCache.put(apiUri, user.getLogin(), user.getName(), user.getEmail());
+                    }
+                    if (!profile.isDescribedBy(pullRequestContributorCache.get(number))) {
+                        pullRequestContributorCache.put(number, profile.toAction());
                     }
-                    ContributorMetadataAction contributor = new ContributorMetadataAction(
-                        user.getLogin(),
-                        user.getName(),
-                        user.getEmail());
-                    pullRequestContributorCache.put(number, contributor);
-                    // store the populated user record now that we have it
-                    users.put(user.getLogin(), user);
                 } catch (FileNotFoundException e) {
                     // If file not found for user, warn but keep going
                     request.listener().getLogger().format("%n  Could not find user %s for pull request %d.%n",
@@ -2486,24 +2954,90 @@ public class GitHubSCMSource extends AbstractGitSCMSource {
                     }
                 }
                 request.listener().getLogger().format("%n  Getting remote branches...%n");
-                // local optimization: always try the default branch first in any search
-                List<GHBranch> values = new ArrayList<>(repo.getBranches().values());
-                final String defaultBranch = StringUtils.defaultIfBlank(repo.getDefaultBranch(), "master");
-                Collections.sort(values, new Comparator<GHBranch>() {
+                // local optimization: always try the default branch first in any search, before listing the others
+                String defaultBranchName = StringUtils.defaultIfBlank(repo.getDefaultBranch(), "master");
+                GHBranch defaultBranch;
+                try {
+                    defaultBranch = repo.getBranch(defaultBranchName);
+                } catch (FileNotFoundException e) {
+                    // default branch does not currently exist
+                    defaultBranch = null;
+                }
+                return new DefaultBranchFirst(defaultBranch, defaultBranchName);
+            } catch (IOException | InterruptedException e) {
+                throw new GitHubSCMSource.WrappedException(e);
+            }
+        }
+
+        /**
+         * Returns the default branch followed by the other branches, which are only listed once the default branch
+         * has been processed and if the request still needs them.
+         */
+        private class DefaultBranchFirst implements Iterable<GHBranch> {
+            @CheckForNull
+            private final GHBranch defaultBranch;
+            @NonNull
+            private final String defaultBranchName;
+            @CheckForNull
+            private List<GHBranch> others;
+
+            DefaultBranchFirst(@CheckForNull GHBranch defaultBranch, @NonNull String defaultBranchName) {
+                this.defaultBranch = defaultBranch;
+                this.defaultBranchName = defaultBranchName;
+            }
+
+            private synchronized List<GHBranch> others() {
+                if (others == null) {
+                    try {
+                        request.checkApiRateLimit();
+                        List<GHBranch> values = new ArrayList<>();
+                        for (GHBranch branch : repo.getBranches().values()) {
+                            if (!defaultBranchName.equals(branch.getName())) {
+                                values.add(branch);
+                            }
+                        }
+                        others = values;
+                    } catch (IOException | InterruptedException e) {
+                        throw new GitHubSCMSource.WrappedException(e);
+                    }
+                }
+                return others;
+            }
+
+            @Override
+            public Iterator<GHBranch> iterator() {
+                return new Iterator<GHBranch>() {
+                    private boolean defaultPending = defaultBranch != null;
+                    @CheckForNull
+                    private Iterator<GHBranch> delegate;
+
                     @Override
-                    public int compare(GHBranch o1, GHBranch o2) {
-                        if (defaultBranch.equals(o1.getName())) {
-                            return -1;
+                    public boolean hasNext() {
+                        if (defaultPending) {
+                            return true;
                         }
-                        if (defaultBranch.equals(o2.getName())) {
-                            return 1;
+                        if (delegate == null) {
+                            if (request.isComplete()) {
+                                // no point listing branches that will not be processed
+                                return false;
+                            }
+                            delegate = others().iterator();
                         }
-                        return 0;
+                        return delegate.hasNext();
                     }
-                });
-                return values;
-            } catch (IOException | InterruptedException e) {
-                throw new GitHubSCMSource.WrappedException(e);
+
+                    @Override
+                    public GHBranch next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        if (defaultPending) {
+                            defaultPending = false;
+                            return defaultBranch;
+                        }
+                        return delegate.next();
+                    }
+                };
             }
         }
     }
@@ -2512,10 +3046,17 @@ public class GitHubSCMSource extends AbstractGitSCMSource {
     static class LazyTags extends LazyIterable<GHRef> {
         private final GitHubSCMSourceRequest request;
         private final GHRepository repo;
+        @CheckForNull
+        private final List<String> prefixes;
 
         public LazyTags(GitHubSCMSourceRequest request, GHRepository repo) {
+            this(request, repo, null);
+        }
+
+        LazyTags(GitHubSCMSourceRequest request, GHRepository repo, @CheckForNull List<String> prefixes) {
             this.request = request;
             this.repo = repo;
+            this.prefixes = prefixes;
         }
 
         @Override
@@ -2548,78 +3089,120 @@ public class GitHubSCMSource extends AbstractGitSCMSource {
                 // from a PagedIterable, so we don't want to fix that)
                 //
                 // Instead we just return a wrapped iterator that does the right thing.
-                final Iterable<GHRef> iterable = repo.listRefs("tags");
-                return new Iterable<GHRef>() {
+                List<String> prefixes = this.prefixes;
+                if (prefixes == null) {
+                    return listRefsOrNone(repo, "tags");
+                }
+                request.listener().getLogger().format("%n  Only listing tags starting with %s%n", prefixes);
+                List<Iterable<GHRef>> listings = new ArrayList<>();
+                for (String prefix : prefixes) {
+                    listings.add(listRefsOrNone(repo, "tags/" + prefix));
+                }
+                return Iterables.concat(listings);
+            } catch (IOException | InterruptedException e) {
+                throw new GitHubSCMSource.WrappedException(e);
+            }
+        }
+    }
+
+    /**
+     * Lists the refs of a type, treating the 404 that GitHub gives when there are none as an empty list.
+     *
+     * @param repo    the repository.
+     * @param refType the type of refs, optionally followed by a prefix of their names.
+     * @return the refs.
+     * @throws IOException if the refs could not be listed.
+     */
+    @NonNull
+    static Iterable<GHRef> listRefsOrNone(@NonNull final GHRepository repo, @NonNull final String refType)
+            throws IOException {
+        return listRefsOrNone(repo, refType, 0);
+    }
+
+    /**
+     * Lists the refs of a type a page at a time, treating the 404 that GitHub gives when there are none as an empty
+     * list.
+     *
+     * @param repo     the repository.
+     * @param refType  the type of refs, optionally followed by a prefix of their names.
+     * @param pageSize the number of refs to request per page, or {@code 0} for the GitHub default.
+     * @return the refs.
+     * @throws IOException if the refs could not be listed.
+     */
+    @NonNull
+    static Iterable<GHRef> listRefsOrNone(@NonNull final GHRepository repo, @NonNull final String refType,
+                                          int pageSize) throws IOException {
+        final PagedIterable<GHRef> iterable = repo.listRefs(refType);
+        if (pageSize > 0) {
+            iterable.withPageSize(pageSize);
+        }
+        return new Iterable<GHRef>() {
+            @Override
+            public Iterator<GHRef> iterator() {
+                final Iterator<GHRef> iterator;
+                try {
+                    iterator = iterable.iterator();
+                } catch (Error e) {
+                    if (e.getCause() instanceof GHFileNotFoundException) {
+                        return Collections.emptyIterator();
+                    }
+                    throw e;
+                }
+                return new Iterator<GHRef>() {
+                    boolean hadAtLeastOne;
+                    boolean hasNone;
+
                     @Override
-                    public Iterator<GHRef> iterator() {
-                        final Iterator<GHRef> iterator;
+                    public boolean hasNext() {
                         try {
-                            iterator = iterable.iterator();
+                            boolean hasNext = iterator.hasNext();
+                            hadAtLeastOne = hadAtLeastOne || hasNext;
+                            return hasNext;
                         } catch (Error e) {
+                            // pre https://github.com/kohsuke/github-api/commit
+                            // /a17ce04552ddd3f6bd8210c740184e6c7ad13ae4
+                            // we at least got the cause, even if wrapped in an Error
                             if (e.getCause() instanceof GHFileNotFoundException) {
-                                return Collections.emptyIterator();
+                                return false;
                             }
                             throw e;
-                        }
-                        return new Iterator<GHRef>() {
-                            boolean hadAtLeastOne;
-                            boolean hasNone;
-
-                            @Override
-                            public boolean hasNext() {
-                                try {
-                                    boolean hasNext = iterator.hasNext();
-                                    hadAtLeastOne = hadAtLeastOne || hasNext;
-                                    return hasNext;
-                                } catch (Error e) {
-                                    // pre https://github.com/kohsuke/github-api/commit
-                                    // /a17ce04552ddd3f6bd8210c740184e6c7ad13ae4
-                                    // we at least got the cause, even if wrapped in an Error
-                                    if (e.getCause() instanceof GHFileNotFoundException) {
-                                        return false;
-                                    }
-                                    throw e;
-                                } catch (GHException e) {
-                                    // JENKINS-52397 I have no clue why https://github.com/kohsuke/github-api/commit
-                                    // /a17ce04552ddd3f6bd8210c740184e6c7ad13ae4 does what it does, but it makes
-                                    // it rather difficult to distinguish between a network outage and the file
-                                    // not found.
-                                    if (hadAtLeastOne) {
-                                        throw e;
-                                    }
-                                    try {
-                                        hasNone = hasNone || repo.getRefs("tags").length == 0;
-                                        if (hasNone) return false;
-                                        throw e;
-                                    } catch (FileNotFoundException e1) {
-                                        hasNone = true;
-                                        return false;
-                                    } catch (IOException e1) {
-                                        e.addSuppressed(e1);
-                                        throw e;
-                                    }
-                                }
+                        } catch (GHException e) {
+                            // JENKINS-52397 I have no clue why https://github.com/kohsuke/github-api/commit
+                            // /a17ce04552ddd3f6bd8210c740184e6c7ad13ae4 does what it does, but it makes
+                            // it rather difficult to distinguish between a network outage and the file
+                            // not found.
+                            if (hadAtLeastOne) {
+                                throw e;
                             }
-
-                            @Override
-                            public GHRef next() {
-                                if (!hasNext()) {
-                                    throw new NoSuchElementException();
-                                }
-                                return iterator.next();
+                            try {
+                                hasNone = hasNone || repo.getRefs(refType).length == 0;
+                                if (hasNone) return false;
+                                throw e;
+                            } catch (FileNotFoundException e1) {
+                                hasNone = true;
+                                return false;
+                            } catch (IOException e1) {
+                                e.addSuppressed(e1);
+                                throw e;
                             }
+                        }
+                    }
 
-                            @Override
-                            public void remove() {
-                                throw new UnsupportedOperationException("remove");
-                            }
-                        };
+                    @Override
+                    public GHRef next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        return iterator.next();
+                    }
+
+                    @Override
+                    public void remove() {
+                        throw new UnsupportedOperationException("remove");
                     }
                 };
-            } catch (IOException | InterruptedException e) {
-                throw new GitHubSCMSource.WrappedException(e);
             }
-        }
+        };
     }
 
     private static class CriteriaWitness implements SCMSourceRequest.Witness {
@@ -2724,6 +3307,11 @@ public class GitHubSCMSource extends AbstractGitSCMSource {
             if (collaboratorNames != null) {
                 return collaboratorNames;
             }
+            Set<String> cached = isBlank(repository) ? null
+                    : PermissionCache.getCollaborators(apiUri, repoOwner, repository);
+            if (cached != null) {
+                return collaboratorNames = cached;
+            }
             listener.getLogger().format("Connecting to %s to obtain list of collaborators for %s/%s%n",
                     apiUri, repoOwner, repository);
             StandardCredentials credentials = Connector.lookupScanCredentials(
@@ -2793,17 +3381,19 @@ public class GitHubSCMSource extends AbstractGitSCMSource {
 
         @Override
         public GHPermissionType fetch(String username) throws IOException, InterruptedException {
-            if (repo == null) {
-                listener.getLogger().format("Connecting to %s to check permissions of obtain list of %s for %s/%s%n",
-                        apiUri, username, repoOwner, repository);
-                StandardCredentials credentials = Connector.lookupScanCredentials(
-                        (Item) getOwner(), apiUri, credentialsId
-                );
-                github = Connector.connect(apiUri, credentials);
-                String fullName = repoOwner + "/" + repository;
-                repo = github.getRepository(fullName);
-            }
-            return repo.getPermission(username);
+            return PermissionCache.getTrustPermission(apiUri, repoOwner, repository, username, () -> {
+                if (repo == null) {
+                    listener.getLogger().format("Connecting to %s to check permissions of obtain list of %s for %s/%s%n",
+                            apiUri, username, repoOwner, repository);
+                    StandardCredentials credentials = Connector.lookupScanCredentials(
+                            (Item) getOwner(), apiUri, credentialsId
+                    );
+                    github = Connector.connect(apiUri, credentials);
+                    String fullName = repoOwner + "/" + repository;
+                    repo = github.getRepository(fullName);
+                }
+                return loadPermission(repo, username);
+            });
         }
 
         @Override
@@ -32,6 +32,7 @@ import java.util.Collections;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Set;
+import java.util.TreeSet;
 
 import jenkins.scm.api.SCMHeadObserver;
 import jenkins.scm.api.SCMSource;
@@ -82,6 +83,19 @@ public class GitHubSCMSourceContext
      * @since 2.3.2
      */
     private final List<AbstractGitHubNotificationStrategy> notificationStrategies = new ArrayList<>();
+    /**
+     * Filters deciding from the changed paths whether a push is relevant.
+     *
+     * @since 2.9.2
+     */
+    private final List<ChangedPathFilter> changedPathFilters = new ArrayList<>();
+    /**
+     * The names or wildcards of the branches that wanted pull requests target or {@code null} for any branch.
+     *
+     * @since 2.9.2
+     */
+    @CheckForNull
+    private Set<String> pullRequestTargets;
 
     /**
      * Constructor.
@@ -178,6 +192,28 @@ public class GitHubSCMSourceContext
         return notificationsDisabled;
     }
 
+    /**
+     * Returns the filters deciding from the changed paths whether a push is relevant.
+     *
+     * @return the filters, a push is relevant when no filter ignores it.
+     * @since 2.9.2
+     */
+    @NonNull
+    public final List<ChangedPathFilter> changedPathFilters() {
+        return Collections.unmodifiableList(changedPathFilters);
+    }
+
+    /**
+     * Returns the names or wildcards of the branches that wanted pull requests target.
+     *
+     * @return the names or wildcards, or {@code null} if pull requests targeting any branch are wanted.
+     * @since 2.9.2
+     */
+    @CheckForNull
+    public final Set<String> pullRequestTargets() {
+        return pullRequestTargets == null ? null : Collections.unmodifiableSet(pullRequestTargets);
+    }
+
     /**
      * Adds a requirement for branch details to any {@link GitHubSCMSourceRequest} for this context.
      *
@@ -297,6 +333,37 @@ public class GitHubSCMSourceContext
         return this;
     }
 
+    /**
+     * Adds a filter deciding from the changed paths whether a push is relevant.
+     *
+     * @param filter the filter.
+     * @return {@code this} for method chaining.
+     * @since 2.9.2
+     */
+    @NonNull
+    public final GitHubSCMSourceContext withChangedPathFilter(@NonNull ChangedPathFilter filter) {
+        changedPathFilters.add(filter);
+        return this;
+    }
+
+    /**
+     * Restricts the pull requests to list to those targeting some branches. Pull requests targeting other branches
+     * must also be excluded by a {@link jenkins.scm.api.trait.SCMHeadPrefilter}, as the restriction only narrows the
+     * listing. When restricted more than once the first restriction is used, which is enough as each of them narrows
+     * the listing to a superset of the wanted pull requests.
+     *
+     * @param targets the names or {@code *} wildcards of the branches.
+     * @return {@code this} for method chaining.
+     * @since 2.9.2
+     */
+    @NonNull
+    public final GitHubSCMSourceContext withPullRequestTargets(@NonNull Set<String> targets) {
+        if (pullRequestTargets == null) {
+            pullRequestTargets = new TreeSet<>(targets);
+        }
+        return this;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -35,8 +35,11 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import jenkins.plugins.git.AbstractGitSCMSource;
 import jenkins.scm.api.SCMHead;
 import jenkins.scm.api.SCMHeadOrigin;
+import jenkins.scm.api.SCMRevision;
 import jenkins.scm.api.SCMSource;
 import jenkins.scm.api.mixin.ChangeRequestCheckoutStrategy;
 import jenkins.scm.api.trait.SCMSourceRequest;
@@ -95,6 +98,11 @@ public class GitHubSCMSourceRequest extends SCMSourceRequest {
      */
     @CheckForNull
     private final Set<String> requestedTagNames;
+    /**
+     * The names or wildcards of the branches that wanted pull requests target or {@code null} for any branch.
+     */
+    @CheckForNull
+    private final Set<String> pullRequestTargets;
     /**
      * The pull request details or {@code null} if not {@link #isFetchPRs()}.
      */
@@ -136,6 +144,11 @@ public class GitHubSCMSourceRequest extends SCMSourceRequest {
      */
     @CheckForNull
     private GitHubPermissionsSource permissionsSource;
+    /**
+     * The revisions reported by an event whose payload is trusted.
+     */
+    @NonNull
+    private Map<SCMHead, SCMRevision> trustedRevisions = Collections.emptyMap();
 
     /**
      * Constructor.
@@ -156,6 +169,7 @@ public class GitHubSCMSourceRequest extends SCMSourceRequest {
         forkPRStrategies = fetchForkPRs && !context.forkPRStrategies().isEmpty()
                 ? Collections.unmodifiableSet(EnumSet.copyOf(context.forkPRStrategies()))
                 : Collections.emptySet();
+        pullRequestTargets = context.pullRequestTargets();
         Set<SCMHead> includes = context.observer().getIncludes();
         if (includes != null) {
             Set<Integer> pullRequestNumbers = new HashSet<>(includes.size());
@@ -307,6 +321,17 @@ public class GitHubSCMSourceRequest extends SCMSourceRequest {
         return requestedTagNames;
     }
 
+    /**
+     * Returns the names or wildcards of the branches that wanted pull requests target.
+     *
+     * @return the names or {@code *} wildcards, or {@code null} if pull requests targeting any branch are wanted.
+     * @since 2.9.2
+     */
+    @CheckForNull
+    public final Set<String> getPullRequestTargets() {
+        return pullRequestTargets;
+    }
+
     /**
      * Provides the requests with the pull request details.
      *
@@ -503,4 +528,47 @@ public class GitHubSCMSourceRequest extends SCMSourceRequest {
     public void setPermissionsSource(@CheckForNull GitHubPermissionsSource permissionsSource) {
         this.permissionsSource = permissionsSource;
     }
+
+    /**
+     * Provides the request with the revisions reported by an event whose payload is trusted, so that they do not
+     * need to be fetched from GitHub.
+     *
+     * @param trustedRevisions the revisions reported by the event.
+     */
+    void setTrustedRevisions(@CheckForNull Map<SCMHead, SCMRevision> trustedRevisions) {
+        this.trustedRevisions = trustedRevisions == null
+                ? Collections.emptyMap()
+                : Collections.unmodifiableMap(new HashMap<>(trustedRevisions));
+    }
+
+    /**
+     * Returns the trusted revision of a head.
+     *
+     * @param head the head.
+     * @return the revision reported by the event or {@code null} if it needs to be fetched.
+     */
+    @CheckForNull
+    SCMRevision getTrustedRevision(@NonNull SCMHead head) {
+        return trustedRevisions.get(head);
+    }
+
+    /**
+     * Returns the trusted revisions of the requested origin branches, if every requested branch has one.
+     *
+     * @return the commit hashes keyed by branch name or {@code null} if the branches need to be fetched.
+     */
+    @CheckForNull
+    Map<String, String> getTrustedBranchHashes() {
+        if (trustedRevisions.isEmpty() || requestedOriginBranchNames == null || requestedOriginBranchNames.isEmpty()) {
+            return null;
+        }
+        Map<String, String> result = new TreeMap<>();
+        for (Map.Entry<SCMHead, SCMRevision> entry : trustedRevisions.entrySet()) {
+            if (entry.getKey() instanceof BranchSCMHead
+                    && entry.getValue() instanceof AbstractGitSCMSource.SCMRevisionImpl) {
+                result.put(entry.getKey().getName(), ((AbstractGitSCMSource.SCMRevisionImpl) entry.getValue()).getHash());
+            }
+        }
+        return result.keySet().equals(requestedOriginBranchNames) ? result : null;
+    }
 }
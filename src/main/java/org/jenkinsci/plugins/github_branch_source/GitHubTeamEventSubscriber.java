@@ -0,0 +1,98 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.github_branch_source;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hudson.Extension;
+import hudson.model.Item;
+import java.io.IOException;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Nullable;
+import jenkins.scm.api.SCMNavigator;
+import jenkins.scm.api.SCMNavigatorOwner;
+import org.jenkinsci.plugins.github.extension.GHEventsSubscriber;
+import org.jenkinsci.plugins.github.extension.GHSubscriberEvent;
+import org.kohsuke.github.GHEvent;
+
+import static com.google.common.collect.Sets.immutableEnumSet;
+import static org.kohsuke.github.GHEvent.REPOSITORY;
+import static org.kohsuke.github.GHEvent.TEAM;
+import static org.kohsuke.github.GHEvent.TEAM_ADD;
+
+/**
+ * This subscriber invalidates the {@link TeamRepositoryCache} and the {@link PermissionCache} when the repositories
+ * of a team could have changed, i.e. on {@link GHEvent#TEAM}, {@link GHEvent#TEAM_ADD} and {@link GHEvent#REPOSITORY}
+ * events.
+ */
+@Extension
+public class GitHubTeamEventSubscriber extends GHEventsSubscriber {
+
+    private static final Logger LOGGER = Logger.getLogger(GitHubTeamEventSubscriber.class.getName());
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Override
+    protected boolean isApplicable(@Nullable Item item) {
+        if (item instanceof SCMNavigatorOwner) {
+            for (SCMNavigator navigator : ((SCMNavigatorOwner) item).getSCMNavigators()) {
+                if (navigator instanceof GitHubSCMNavigator) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return set with TEAM, TEAM_ADD and REPOSITORY events
+     */
+    @Override
+    protected Set<GHEvent> events() {
+        return immutableEnumSet(TEAM, TEAM_ADD, REPOSITORY);
+    }
+
+    @Override
+    protected void onEvent(GHSubscriberEvent event) {
+        try {
+            JsonNode payload = MAPPER.readTree(event.getPayload());
+            String org = payload.path("organization").path("login").asText(null);
+            if (org == null) {
+                // repositories of users do not belong to teams
+                return;
+            }
+            String teamSlug = event.getGHEvent() == REPOSITORY || "edited".equals(payload.path("action").asText())
+                    ? null // a renamed repository or team could be cached under any of the organization's teams
+                    : payload.path("team").path("slug").asText(null);
+            LOGGER.log(Level.FINE, "Received {0} for {1}/{2} from {3}",
+                    new Object[]{event.getGHEvent(), org, teamSlug == null ? "*" : teamSlug, event.getOrigin()});
+            TeamRepositoryCache.invalidate(org, teamSlug);
+            // the team's access to the repository grants its members their permissions
+            PermissionCache.invalidate(org, payload.path("repository").path("name").asText(null), null);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not parse " + event.getGHEvent() + " event from " + event.getOrigin(), e);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package org.jenkinsci.plugins.github_branch_source;
+
+import hudson.Extension;
+import hudson.util.FormValidation;
+import jenkins.scm.api.trait.SCMNavigatorContext;
+import jenkins.scm.api.trait.SCMNavigatorTrait;
+import jenkins.scm.api.trait.SCMNavigatorTraitDescriptor;
+import org.jenkinsci.Symbol;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.QueryParameter;
+
+import javax.annotation.Nonnull;
+
+/**
+ * A {@link SCMNavigatorTrait} that lets the repositories discovered by an organization scan skip their own scan when
+ * neither their {@code pushed_at} nor {@code updated_at} timestamps have moved since their last full scan. Every
+ * {@link #getFullScanInterval()} organization scans all the repositories are fully scanned again to reconcile any
+ * changes that do not move those timestamps, such as pull requests from forks when webhooks are not configured.
+ *
+ * @since 2.9.2
+ */
+public class IncrementalScanTrait extends SCMNavigatorTrait {
+
+    /**
+     * The default number of organization scans between full scans of every repository.
+     */
+    public static final int DEFAULT_FULL_SCAN_INTERVAL = 10;
+
+    /**
+     * The number of organization scans between full scans of every repository.
+     */
+    private final int fullScanInterval;
+
+    /**
+     * Constructor for stapler.
+     *
+     * @param fullScanInterval the number of organization scans between full scans of every repository.
+     */
+    @DataBoundConstructor
+    public IncrementalScanTrait(int fullScanInterval) {
+        this.fullScanInterval = Math.max(1, fullScanInterval);
+    }
+
+    /**
+     * Returns the number of organization scans between full scans of every repository.
+     *
+     * @return the number of organization scans between full scans of every repository.
+     */
+    public int getFullScanInterval() {
+        return fullScanInterval;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void decorateContext(SCMNavigatorContext<?, ?> context) {
+        super.decorateContext(context);
+        GitHubSCMNavigatorContext ctx = (GitHubSCMNavigatorContext) context;
+        ctx.setFullScanInterval(fullScanInterval);
+    }
+
+    /**
+     * Incremental scan descriptor.
+     */
+    @Symbol("gitHubIncrementalScan")
+    @Extension
+    public static class DescriptorImpl extends SCMNavigatorTraitDescriptor {
+
+        @Override
+        public Class<? extends SCMNavigatorContext> getContextClass() {
+            return GitHubSCMNavigatorContext.class;
+        }
+
+        @Nonnull
+        @Override
+        public String getDisplayName() {
+            return Messages.IncrementalScanTrait_displayName();
+        }
+
+        /**
+         * Form validation for the full scan interval.
+         *
+         * @param value the interval.
+         * @return the validation result.
+         */
+        public FormValidation doCheckFullScanInterval(@QueryParameter int value) {
+            if (value < 1) {
+                return FormValidation.error(Messages.IncrementalScanTrait_invalidInterval());
+            }
+            return FormValidation.ok();
+        }
+    }
+}
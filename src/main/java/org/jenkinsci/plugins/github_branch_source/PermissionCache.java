@@ -0,0 +1,286 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.github_branch_source;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.apache.commons.lang.StringUtils;
+import org.kohsuke.github.GHPermissionType;
+
+/**
+ * Caches the permissions of users on repositories and the collaborators of repositories across scans and builds,
+ * keyed by endpoint, repository and user, so that deciding whether a pull request is trusted does not cost any
+ * API calls once the answer is known.
+ * <p>
+ * Entries expire after {@link #getTtlSeconds()} and are invalidated when a member, membership, organization or team
+ * event is received for the repository or its owner. Trust decisions made when a build runs always confirm write
+ * access with GitHub. When the connection has a response cache the reload after
+ * expiry is a conditional request that GitHub answers with {@code 304 Not Modified}.
+ */
+final class PermissionCache {
+
+    /**
+     * Our logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(PermissionCache.class.getName());
+
+    /**
+     * How long to retain permissions and collaborators.
+     */
+    private static final long TTL_SECONDS = Math.max(0,
+            Long.getLong(GitHubSCMSource.class.getName() + ".permissionCacheSeconds", 600L));
+
+    /**
+     * The permissions of users.
+     */
+    private static final TimedCache<Key, GHPermissionType> PERMISSIONS =
+            new TimedCache<>(TimeUnit.SECONDS.toMillis(TTL_SECONDS), 10000);
+
+    /**
+     * The collaborators of repositories, keyed with an empty user.
+     */
+    private static final TimedCache<Key, Set<String>> COLLABORATORS =
+            new TimedCache<>(TimeUnit.SECONDS.toMillis(TTL_SECONDS), 1000);
+
+    /**
+     * The repositories whose collaborators the scan credentials are not permitted to list, keyed with an empty user.
+     */
+    private static final TimedCache<Key, Boolean> UNLISTABLE =
+            new TimedCache<>(TimeUnit.SECONDS.toMillis(TTL_SECONDS), 1000);
+
+    private PermissionCache() {
+        throw new IllegalAccessError("Utility class");
+    }
+
+    /**
+     * Returns the number of seconds that permissions and collaborators are cached for.
+     *
+     * @return the number of seconds that permissions and collaborators are cached for.
+     */
+    static long getTtlSeconds() {
+        return TTL_SECONDS;
+    }
+
+    /**
+     * Returns the permission of a user on a repository, loading it if not cached.
+     *
+     * @param apiUri   the API endpoint.
+     * @param owner    the repository owner.
+     * @param repo     the repository name.
+     * @param username the user.
+     * @param loader   loads the permission.
+     * @return the permission.
+     * @throws IOException          if the permission could not be loaded.
+     * @throws InterruptedException if interrupted while loading the permission.
+     */
+    @NonNull
+    static GHPermissionType getPermission(@CheckForNull String apiUri, @NonNull String owner, @NonNull String repo,
+                                          @NonNull String username, @NonNull Loader<GHPermissionType> loader)
+            throws IOException, InterruptedException {
+        Key key = new Key(apiUri, owner, repo, username);
+        GHPermissionType permission = PERMISSIONS.get(key);
+        if (permission == null) {
+            permission = loader.load();
+            PERMISSIONS.put(key, permission);
+        }
+        return permission;
+    }
+
+    /**
+     * Returns the permission of a user on a repository for a trust decision made when a build runs. Only cached
+     * permissions that do not grant write access are used, and write access is never cached by this method, so that
+     * a build is not trusted because of access that has since been revoked.
+     *
+     * @param apiUri   the API endpoint.
+     * @param owner    the repository owner.
+     * @param repo     the repository name.
+     * @param username the user.
+     * @param loader   loads the permission.
+     * @return the permission.
+     * @throws IOException          if the permission could not be loaded.
+     * @throws InterruptedException if interrupted while loading the permission.
+     */
+    @NonNull
+    static GHPermissionType getTrustPermission(@CheckForNull String apiUri, @NonNull String owner,
+                                               @NonNull String repo, @NonNull String username,
+                                               @NonNull Loader<GHPermissionType> loader)
+            throws IOException, InterruptedException {
+        Key key = new Key(apiUri, owner, repo, username);
+        GHPermissionType permission = PERMISSIONS.get(key);
+        if (permission == null || grantsWrite(permission)) {
+            permission = loader.load();
+            if (!grantsWrite(permission)) {
+                PERMISSIONS.put(key, permission);
+            }
+        }
+        return permission;
+    }
+
+    private static boolean grantsWrite(@NonNull GHPermissionType permission) {
+        return permission == GHPermissionType.ADMIN || permission == GHPermissionType.WRITE;
+    }
+
+    /**
+     * Returns the cached collaborators of a repository.
+     *
+     * @param apiUri the API endpoint.
+     * @param owner  the repository owner.
+     * @param repo   the repository name.
+     * @return the names of the collaborators or {@code null} if not cached.
+     */
+    @CheckForNull
+    static Set<String> getCollaborators(@CheckForNull String apiUri, @NonNull String owner, @NonNull String repo) {
+        return COLLABORATORS.get(new Key(apiUri, owner, repo, ""));
+    }
+
+    /**
+     * Records the collaborators of a repository that were listed in full.
+     *
+     * @param apiUri the API endpoint.
+     * @param owner  the repository owner.
+     * @param repo   the repository name.
+     * @param names  the names of all the collaborators.
+     * @return the recorded names.
+     */
+    @NonNull
+    static Set<String> putCollaborators(@CheckForNull String apiUri, @NonNull String owner, @NonNull String repo,
+                                        @NonNull Collection<String> names) {
+        Set<String> copy = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        copy.addAll(names);
+        Set<String> result = Collections.unmodifiableSet(copy);
+        COLLABORATORS.put(new Key(apiUri, owner, repo, ""), result);
+        return result;
+    }
+
+    /**
+     * Records that the collaborators of a repository could not be listed.
+     *
+     * @param apiUri the API endpoint.
+     * @param owner  the repository owner.
+     * @param repo   the repository name.
+     */
+    static void putUnlistable(@CheckForNull String apiUri, @NonNull String owner, @NonNull String repo) {
+        UNLISTABLE.put(new Key(apiUri, owner, repo, ""), Boolean.TRUE);
+    }
+
+    /**
+     * Checks if the collaborators of a repository recently could not be listed.
+     *
+     * @param apiUri the API endpoint.
+     * @param owner  the repository owner.
+     * @param repo   the repository name.
+     * @return {@code true} if there is no point trying to list the collaborators again.
+     */
+    static boolean isUnlistable(@CheckForNull String apiUri, @NonNull String owner, @NonNull String repo) {
+        return UNLISTABLE.get(new Key(apiUri, owner, repo, "")) != null;
+    }
+
+    /**
+     * Invalidates the cached permissions and collaborators.
+     *
+     * @param owner    the repository owner.
+     * @param repo     the repository name or {@code null} to invalidate all the owner's repositories.
+     * @param username the user or {@code null} to invalidate all users.
+     */
+    static void invalidate(@NonNull final String owner, @CheckForNull final String repo,
+                           @CheckForNull final String username) {
+        int count = PERMISSIONS.invalidateIf(key -> key.matches(owner, repo, username))
+                + COLLABORATORS.invalidateIf(key -> key.matches(owner, repo, null))
+                + UNLISTABLE.invalidateIf(key -> key.matches(owner, repo, null));
+        LOGGER.log(Level.FINE, "Invalidated {0} cached permissions and collaborators for {1}/{2} user {3}",
+                new Object[]{count, owner, repo == null ? "*" : repo, username == null ? "*" : username});
+    }
+
+    /**
+     * Loads a value missing from the cache.
+     *
+     * @param <V> the type of value.
+     */
+    @FunctionalInterface
+    interface Loader<V> {
+        /**
+         * Loads the value.
+         *
+         * @return the value.
+         * @throws IOException          if the value could not be loaded.
+         * @throws InterruptedException if interrupted while loading the value.
+         */
+        @NonNull
+        V load() throws IOException, InterruptedException;
+    }
+
+    /**
+     * The cache key.
+     */
+    private static final class Key {
+        private final String apiUri;
+        private final String owner;
+        private final String repo;
+        private final String username;
+
+        Key(@CheckForNull String apiUri, @NonNull String owner, @NonNull String repo, @NonNull String username) {
+            this.apiUri = StringUtils.defaultIfBlank(apiUri, GitHubSCMSource.GITHUB_URL);
+            this.owner = owner.toLowerCase(Locale.ENGLISH);
+            this.repo = repo.toLowerCase(Locale.ENGLISH);
+            this.username = username.toLowerCase(Locale.ENGLISH);
+        }
+
+        boolean matches(@NonNull String owner, @CheckForNull String repo, @CheckForNull String username) {
+            return this.owner.equalsIgnoreCase(owner)
+                    && (repo == null || this.repo.equalsIgnoreCase(repo))
+                    && (username == null || this.username.equalsIgnoreCase(username));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return apiUri.equals(key.apiUri) && owner.equals(key.owner) && repo.equals(key.repo)
+                    && username.equals(key.username);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = apiUri.hashCode();
+            result = 31 * result + owner.hashCode();
+            result = 31 * result + repo.hashCode();
+            result = 31 * result + username.hashCode();
+            return result;
+        }
+    }
+}
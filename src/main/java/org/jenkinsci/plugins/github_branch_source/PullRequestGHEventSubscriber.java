@@ -25,18 +25,17 @@
 package org.jenkinsci.plugins.github_branch_source;
 
 import com.cloudbees.jenkins.GitHubRepositoryName;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import hudson.Extension;
 import hudson.model.Item;
 import hudson.scm.SCM;
 import java.io.IOException;
-import java.io.StringReader;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.LogRecord;
 import java.util.logging.Logger;
@@ -47,7 +46,6 @@ import jenkins.plugins.git.AbstractGitSCMSource;
 import jenkins.scm.api.SCMEvent;
 import jenkins.scm.api.SCMHead;
 import jenkins.scm.api.SCMHeadEvent;
-import jenkins.scm.api.SCMHeadObserver;
 import jenkins.scm.api.SCMNavigator;
 import jenkins.scm.api.SCMRevision;
 import jenkins.scm.api.SCMSource;
@@ -57,11 +55,6 @@ import jenkins.scm.api.trait.SCMHeadPrefilter;
 import org.jenkinsci.plugins.github.extension.GHEventsSubscriber;
 import org.jenkinsci.plugins.github.extension.GHSubscriberEvent;
 import org.kohsuke.github.GHEvent;
-import org.kohsuke.github.GHEventPayload;
-import org.kohsuke.github.GHPullRequest;
-import org.kohsuke.github.GHRepository;
-import org.kohsuke.github.GHUser;
-import org.kohsuke.github.GitHub;
 
 import static com.google.common.collect.Sets.immutableEnumSet;
 import static org.kohsuke.github.GHEvent.PULL_REQUEST;
@@ -108,11 +101,38 @@ public class PullRequestGHEventSubscriber extends GHEventsSubscriber {
 
     @Override
     protected void onEvent(GHSubscriberEvent event) {
+        process(event, false);
+    }
+
+    /**
+     * Processes an event.
+     *
+     * @param event    the event.
+     * @param replayed {@code true} if the event is replayed from the {@link EventJournal}.
+     * @return {@code true} if the event was scheduled to be fired, {@code false} if it was dropped.
+     */
+    boolean process(GHSubscriberEvent event, boolean replayed) {
+        String deliveryId = EventJournal.deliveryId(event);
+        if (!EventJournal.accept(deliveryId)) {
+            LOGGER.log(Level.FINE, "Ignoring duplicate delivery of {0} event from {1}",
+                    new Object[]{event.getGHEvent(), event.getOrigin()});
+            return false;
+        }
         try {
-            final GHEventPayload.PullRequest p = GitHub.offline()
-                    .parseEventPayload(new StringReader(event.getPayload()), GHEventPayload.PullRequest.class);
+            // the summary holds every field the event needs, the full payload is never built
+            final WebhookPayloadSummary p = WebhookPayloadSummary.parse(event.getPayload());
+            if (!p.isRouted()) {
+                LOGGER.log(Level.FINE, "No GitHub source or navigator is interested in {0}, ignoring {1}",
+                        new Object[]{p.getRepositoryUrl(), event.getGHEvent()});
+                return false;
+            }
             String action = p.getAction();
-            String repoUrl = p.getRepository().getHtmlUrl().toExternalForm();
+            String repoUrl = p.getRepositoryUrl();
+            if (repoUrl == null || p.getRepositoryOwner() == null || p.getRepositoryName() == null) {
+                LOGGER.log(Level.WARNING, "Incomplete {0} event from {1}",
+                        new Object[]{event.getGHEvent(), event.getOrigin()});
+                return false;
+            }
             LOGGER.log(Level.FINE, "Received {0} for {1} from {2}",
                     new Object[]{event.getGHEvent(), repoUrl, event.getOrigin()}
             );
@@ -121,59 +141,114 @@ public class PullRequestGHEventSubscriber extends GHEventsSubscriber {
                 final GitHubRepositoryName changedRepository = GitHubRepositoryName.create(repoUrl);
                 if (changedRepository == null) {
                     LOGGER.log(Level.WARNING, "Malformed repository URL {0}", repoUrl);
-                    return;
+                    return false;
                 }
 
                 if ("opened".equals(action)) {
-                    fireAfterDelay(new SCMHeadEventImpl(
+                    fireAfterDelay(deliveryId, event, new SCMHeadEventImpl(
                             SCMEvent.Type.CREATED,
                             event.getTimestamp(),
                             p,
                             changedRepository,
-                            event.getOrigin()
+                            event.getOrigin(),
+                            replayed
                     ));
                 } else if ("reopened".equals(action) || "synchronize".equals(action) || "edited".equals(action)) {
-                    fireAfterDelay(new SCMHeadEventImpl(
+                    fireAfterDelay(deliveryId, event, new SCMHeadEventImpl(
                             SCMEvent.Type.UPDATED,
                             event.getTimestamp(),
                             p,
                             changedRepository,
-                            event.getOrigin()
+                            event.getOrigin(),
+                            replayed
                     ));
                 } else if ("closed".equals(action)) {
-                    fireAfterDelay(new SCMHeadEventImpl(
+                    fireAfterDelay(deliveryId, event, new SCMHeadEventImpl(
                             SCMEvent.Type.REMOVED,
                             event.getTimestamp(),
                             p,
                             changedRepository,
-                            event.getOrigin()
+                            event.getOrigin(),
+                            replayed
                     ));
+                } else {
+                    return false;
                 }
+                return true;
             }
 
         } catch (IOException e) {
-            LogRecord lr = new LogRecord(Level.WARNING, "Could not parse {0} event from {1} with payload: {2}");
-            lr.setParameters(new Object[]{event.getGHEvent(), event.getOrigin(), event.getPayload()});
+            LogRecord lr = new LogRecord(Level.WARNING, "Could not parse {0} event from {1} ({2} characters of payload)");
+            lr.setParameters(new Object[]{event.getGHEvent(), event.getOrigin(), event.getPayload().length()});
             lr.setThrown(e);
             LOGGER.log(lr);
         }
+        return false;
     }
 
-    private void fireAfterDelay(final SCMHeadEventImpl e) {
-        SCMHeadEvent.fireLater(e, GitHubSCMSource.getEventDelaySeconds(), TimeUnit.SECONDS);
+    private void fireAfterDelay(String deliveryId, GHSubscriberEvent event, final SCMHeadEventImpl e) {
+        // a burst of updates to the same pull request only needs its heads to be retrieved once
+        String key = e.repoHost + '/' + e.repoOwner + '/' + e.repository + " #" + e.getPayload().getNumber();
+        EventCoalescer.HEAD_EVENTS.submit(key, e, AdaptiveEventDelay.getInitialDelaySeconds(),
+                (previous, latest) -> previous instanceof SCMHeadEventImpl && latest instanceof SCMHeadEventImpl
+                        ? ((SCMHeadEventImpl) latest).mergedWith((SCMHeadEventImpl) previous)
+                        : latest,
+                EventJournal.record(deliveryId, event));
     }
 
-    private static class SCMHeadEventImpl extends SCMHeadEvent<GHEventPayload.PullRequest> {
+    private static class SCMHeadEventImpl extends SCMHeadEvent<WebhookPayloadSummary> implements WebhookHeadEvent {
         private final String repoHost;
         private final String repoOwner;
         private final String repository;
+        /**
+         * The head of the pull request before the first of the updates that this event stands for.
+         */
+        @CheckForNull
+        private String before;
+        /**
+         * {@code true} if one of the updates that this event stands for was replayed from the {@link EventJournal}.
+         */
+        private boolean replayed;
 
-        public SCMHeadEventImpl(Type type, long timestamp, GHEventPayload.PullRequest pullRequest, GitHubRepositoryName repo,
-                                String origin) {
+        public SCMHeadEventImpl(Type type, long timestamp, WebhookPayloadSummary pullRequest, GitHubRepositoryName repo,
+                                String origin, boolean replayed) {
             super(type, timestamp, pullRequest, origin);
             this.repoHost = repo.getHost();
-            this.repoOwner = pullRequest.getRepository().getOwnerName();
-            this.repository = pullRequest.getRepository().getName();
+            this.repoOwner = pullRequest.getRepositoryOwner();
+            this.repository = pullRequest.getRepositoryName();
+            // only synchronize events report the previous head
+            this.before = pullRequest.getBefore();
+            this.replayed = replayed;
+        }
+
+        /**
+         * Makes this event stand for an earlier event of the same pull request as well, as only this event will be
+         * fired.
+         *
+         * @param previous the earlier event.
+         * @return this event.
+         */
+        SCMHeadEventImpl mergedWith(SCMHeadEventImpl previous) {
+            before = previous.before;
+            replayed = replayed || previous.replayed;
+            return this;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean isReplayed() {
+            return replayed;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @CheckForNull
+        @Override
+        public String getBeforeHash() {
+            return before;
         }
 
         private boolean isApiMatch(String apiUri) {
@@ -259,42 +334,37 @@ public class PullRequestGHEventSubscriber extends GHEventsSubscriber {
                 return Collections.emptyMap();
             }
             GitHubSCMSource src = (GitHubSCMSource) source;
-            GHEventPayload.PullRequest pullRequest = getPayload();
-            GHPullRequest ghPullRequest = pullRequest.getPullRequest();
-            GHRepository repo = pullRequest.getRepository();
-            String prRepoName = repo.getName();
-            if (!prRepoName.matches(GitHubSCMSource.VALID_GITHUB_REPO_NAME)) {
+            WebhookPayloadSummary pullRequest = getPayload();
+            if (!repository.matches(GitHubSCMSource.VALID_GITHUB_REPO_NAME)) {
                 // fake repository name
                 return Collections.emptyMap();
             }
-            GHUser user;
-            try {
-                user = ghPullRequest.getHead().getUser();
-            } catch (IOException e) {
+            String prOwnerName = pullRequest.getPullRequestHeadUser();
+            if (prOwnerName == null || !prOwnerName.matches(GitHubSCMSource.VALID_GITHUB_USER_NAME)) {
                 // fake owner name
                 return Collections.emptyMap();
             }
-            String prOwnerName = user.getLogin();
-            if (!prOwnerName.matches(GitHubSCMSource.VALID_GITHUB_USER_NAME)) {
-                // fake owner name
-                return Collections.emptyMap();
-            }
-            if (!ghPullRequest.getBase().getSha().matches(GitHubSCMSource.VALID_GIT_SHA1)) {
+            String baseSha = pullRequest.getPullRequestBaseSha();
+            if (baseSha == null || !baseSha.matches(GitHubSCMSource.VALID_GIT_SHA1)) {
                 // fake base sha1
                 return Collections.emptyMap();
             }
-            if (!ghPullRequest.getHead().getSha().matches(GitHubSCMSource.VALID_GIT_SHA1)) {
+            String headSha = pullRequest.getPullRequestHeadSha();
+            if (headSha == null || !headSha.matches(GitHubSCMSource.VALID_GIT_SHA1)) {
                 // fake head sha1
                 return Collections.emptyMap();
             }
+            if (pullRequest.getPullRequestHeadRef() == null || pullRequest.getPullRequestBaseRef() == null) {
+                // incomplete pull request
+                return Collections.emptyMap();
+            }
 
             boolean fork = !src.getRepoOwner().equalsIgnoreCase(prOwnerName);
 
             Map<SCMHead, SCMRevision> result = new HashMap<>();
-            GitHubSCMSourceContext context = new GitHubSCMSourceContext(null, SCMHeadObserver.none())
-                            .withTraits(src.getTraits());
+            CompiledTraits context = src.compiledTraits();
             if (!fork && context.wantBranches()) {
-                final String branchName = ghPullRequest.getHead().getRef();
+                final String branchName = pullRequest.getPullRequestHeadRef();
                 SCMHead head = new BranchSCMHead(branchName);
                 boolean excluded = false;
                 for (SCMHeadPrefilter prefilter: context.prefilters()) {
@@ -305,7 +375,7 @@ public class PullRequestGHEventSubscriber extends GHEventsSubscriber {
                 }
                 if (!excluded) {
                     SCMRevision hash =
-                            new AbstractGitSCMSource.SCMRevisionImpl(head, ghPullRequest.getHead().getSha());
+                            new AbstractGitSCMSource.SCMRevisionImpl(head, headSha);
                     result.put(head, hash);
                 }
             }
@@ -324,16 +394,16 @@ public class PullRequestGHEventSubscriber extends GHEventsSubscriber {
                     switch (strategy) {
                         case MERGE:
                             // it will take a call to GitHub to get the merge commit, so let the event receiver poll
-                            head = new PullRequestSCMHead(ghPullRequest, branchName, true);
+                            head = new PullRequestSCMHead(pullRequest, branchName, true);
                             revision = null;
                             break;
                         default:
                             // Give the event receiver the data we have so they can revalidate
-                            head = new PullRequestSCMHead(ghPullRequest, branchName, false);
+                            head = new PullRequestSCMHead(pullRequest, branchName, false);
                             revision = new PullRequestSCMRevision(
                                     head,
-                                    ghPullRequest.getBase().getSha(),
-                                    ghPullRequest.getHead().getSha()
+                                    baseSha,
+                                    headSha
                             );
                             break;
                     }
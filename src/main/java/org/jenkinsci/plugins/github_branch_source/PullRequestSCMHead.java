@@ -98,6 +98,30 @@ public class PullRequestSCMHead extends SCMHead implements ChangeRequestSCMHead2
         }
     }
 
+    PullRequestSCMHead(WebhookPayloadSummary pr, String name, boolean merge) {
+        super(name);
+        // the merge flag is encoded into the name, so safe to store here
+        this.merge = merge;
+        this.number = pr.getNumber();
+        this.target = new BranchSCMHead(pr.getPullRequestBaseRef());
+        // the source stuff is immutable for a pull request on github, so safe to store here
+        // the source fields are null for deleted forks JENKINS-41246
+        this.sourceOwner = pr.getPullRequestSourceOwner();
+        this.sourceRepo = pr.getPullRequestSourceRepository();
+        this.sourceBranch = pr.getPullRequestHeadRef();
+
+        if (pr.getRepositoryOwner() != null && pr.getRepositoryOwner().equalsIgnoreCase(sourceOwner)) {
+            this.origin = SCMHeadOrigin.DEFAULT;
+        } else {
+            // if the forked repo name differs from the upstream repo name
+            String fullName = pr.getPullRequestSourceFullName();
+            this.origin = pr.getPullRequestBaseRepository() != null
+                    && pr.getPullRequestBaseRepository().equalsIgnoreCase(sourceRepo)
+                    ? new SCMHeadOrigin.Fork(this.sourceOwner)
+                    : new SCMHeadOrigin.Fork(fullName == null ? this.sourceOwner : fullName);
+        }
+    }
+
     public PullRequestSCMHead(@NonNull String name, String sourceOwner, String sourceRepo, String sourceBranch, int number,
                        BranchSCMHead target, SCMHeadOrigin origin, ChangeRequestCheckoutStrategy strategy) {
         super(name);
@@ -25,15 +25,22 @@
 package org.jenkinsci.plugins.github_branch_source;
 
 import com.cloudbees.jenkins.GitHubRepositoryName;
+import com.cloudbees.plugins.credentials.common.StandardCredentials;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import hudson.Extension;
+import hudson.model.Computer;
 import hudson.model.Item;
 import hudson.scm.SCM;
-import java.io.StringReader;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import java.io.IOException;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.LogRecord;
@@ -41,22 +48,23 @@ import java.util.logging.Logger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import javax.annotation.Nullable;
+import jenkins.model.Jenkins;
 import jenkins.plugins.git.AbstractGitSCMSource;
 import jenkins.plugins.git.GitTagSCMRevision;
 import jenkins.scm.api.SCMEvent;
 import jenkins.scm.api.SCMHead;
 import jenkins.scm.api.SCMHeadEvent;
-import jenkins.scm.api.SCMHeadObserver;
 import jenkins.scm.api.SCMNavigator;
 import jenkins.scm.api.SCMRevision;
 import jenkins.scm.api.SCMSource;
 import jenkins.scm.api.SCMSourceOwner;
 import jenkins.scm.api.trait.SCMHeadPrefilter;
+import jenkins.util.Timer;
 import org.jenkinsci.plugins.github.extension.GHEventsSubscriber;
 import org.jenkinsci.plugins.github.extension.GHSubscriberEvent;
+import org.kohsuke.github.GHCommit;
+import org.kohsuke.github.GHCompare;
 import org.kohsuke.github.GHEvent;
-import org.kohsuke.github.GHEventPayload;
-import org.kohsuke.github.GHRepository;
 import org.kohsuke.github.GitHub;
 
 import static com.google.common.collect.Sets.immutableEnumSet;
@@ -76,6 +84,20 @@ public class PushGHEventSubscriber extends GHEventsSubscriber {
      * Pattern to parse github repository urls.
      */
     private static final Pattern REPOSITORY_NAME_PATTERN = Pattern.compile("https?://([^/]+)/([^/]+)/([^/]+)");
+    /**
+     * Coalesces the push events of each ref and, before firing the merged event, retrieves the paths it changed
+     * when the payloads do not list them, so that the sources never call GitHub while they process the event.
+     * The comparison is a blocking API call, so the {@link Timer} only waits out the delay and hands the event over
+     * to {@link Computer#threadPoolForRemoting}, which fires it and then tracks it until it settles.
+     */
+    private static final EventCoalescer<SCMHeadEventImpl> PUSH_EVENTS = new EventCoalescer<>(
+            (task, delay) -> Timer.get().schedule(() -> Computer.threadPoolForRemoting.submit(task), delay,
+                    TimeUnit.SECONDS),
+            e -> {
+                e.compareIfNeeded();
+                SCMHeadEvent.fireNow(e);
+            },
+            AdaptiveEventDelay::whenSettled);
 
     /**
      * {@inheritDoc}
@@ -118,95 +140,321 @@ public class PushGHEventSubscriber extends GHEventsSubscriber {
      */
     @Override
     protected void onEvent(GHSubscriberEvent event) {
+        process(event, false);
+    }
+
+    /**
+     * Processes an event.
+     *
+     * @param event    the event.
+     * @param replayed {@code true} if the event is replayed from the {@link EventJournal}.
+     * @return {@code true} if the event was scheduled to be fired, {@code false} if it was dropped.
+     */
+    boolean process(GHSubscriberEvent event, boolean replayed) {
+        String deliveryId = EventJournal.deliveryId(event);
+        if (!EventJournal.accept(deliveryId)) {
+            LOGGER.log(Level.FINE, "Ignoring duplicate delivery of {0} event from {1}",
+                    new Object[]{event.getGHEvent(), event.getOrigin()});
+            return false;
+        }
         try {
-            final GHEventPayload.Push p = GitHub.offline()
-                    .parseEventPayload(new StringReader(event.getPayload()), GHEventPayload.Push.class);
-            String repoUrl = p.getRepository().getHtmlUrl().toExternalForm();
+            // the summary holds every field the event needs, the full payload is never built
+            final WebhookPayloadSummary p = WebhookPayloadSummary.parse(event.getPayload());
+            if (!p.isRouted()) {
+                LOGGER.log(Level.FINE, "No GitHub source or navigator is interested in {0}, ignoring {1}",
+                        new Object[]{p.getRepositoryUrl(), event.getGHEvent()});
+                return false;
+            }
+            String repoUrl = p.getRepositoryUrl();
+            if (repoUrl == null || p.getRepositoryOwner() == null || p.getRepositoryName() == null
+                    || p.getRef() == null || p.getAfter() == null) {
+                LOGGER.log(Level.WARNING, "Incomplete {0} event from {1}",
+                        new Object[]{event.getGHEvent(), event.getOrigin()});
+                return false;
+            }
             LOGGER.log(Level.FINE, "Received {0} for {1} from {2}",
                     new Object[]{event.getGHEvent(), repoUrl, event.getOrigin()}
             );
             Matcher matcher = REPOSITORY_NAME_PATTERN.matcher(repoUrl);
-            // TODO - add check on whether commit size is 1 and if the commit message has pattern
-            if (matcher.matches() && shouldIgnore(p)) {
+            if (matcher.matches()) {
                 final GitHubRepositoryName changedRepository = GitHubRepositoryName.create(repoUrl);
                 if (changedRepository == null) {
                     LOGGER.log(Level.WARNING, "Malformed repository URL {0}", repoUrl);
-                    return;
+                    return false;
+                }
+                // the first build of a new branch is never skipped, nor is the removal of a branch
+                if (!p.isCreated() && !p.isDeleted() && SkipCommitMessageFilter.isSkipped(
+                        changedRepository.getHost(), p.getRepositoryOwner(), p.getRepositoryName(), p)) {
+                    LOGGER.log(Level.FINE, "Ignoring push to {0} in {1} as its commit messages ask to skip CI, "
+                                    + "ignored {2} pushes so far",
+                            new Object[]{p.getRef(), repoUrl, SkipCommitMessageFilter.getSkippedCount()});
+                    return false;
                 }
 
                 if (p.isCreated()) {
-                    fireAfterDelay(new SCMHeadEventImpl(
+                    fireAfterDelay(deliveryId, event, new SCMHeadEventImpl(
                             SCMEvent.Type.CREATED,
                             event.getTimestamp(),
                             p,
                             changedRepository,
-                            event.getOrigin()
+                            event.getOrigin(),
+                            replayed
                     ));
                 } else if (p.isDeleted()) {
-                    fireAfterDelay(new SCMHeadEventImpl(
+                    fireAfterDelay(deliveryId, event, new SCMHeadEventImpl(
                             SCMEvent.Type.REMOVED,
                             event.getTimestamp(),
                             p,
                             changedRepository,
-                            event.getOrigin()
+                            event.getOrigin(),
+                            replayed
                     ));
                 } else {
-                    fireAfterDelay(new SCMHeadEventImpl(
+                    fireAfterDelay(deliveryId, event, new SCMHeadEventImpl(
                             SCMEvent.Type.UPDATED,
                             event.getTimestamp(),
                             p,
                             changedRepository,
-                            event.getOrigin()
+                            event.getOrigin(),
+                            replayed
                     ));
                 }
+                return true;
             } else {
                 LOGGER.log(Level.WARNING, "{0} does not match expected repository name pattern", repoUrl);
             }
         } catch (Error e) {
             throw e;
         } catch (Throwable e) {
-            LogRecord lr = new LogRecord(Level.WARNING, "Could not parse {0} event from {1} with payload: {2}");
-            lr.setParameters(new Object[]{event.getGHEvent(), event.getOrigin(), event.getPayload()});
+            LogRecord lr = new LogRecord(Level.WARNING, "Could not parse {0} event from {1} ({2} characters of payload)");
+            lr.setParameters(new Object[]{event.getGHEvent(), event.getOrigin(), event.getPayload().length()});
             lr.setThrown(e);
             LOGGER.log(lr);
         }
+        return false;
     }
 
-    /**
-     * Checks if a payload should be processed and an event be fired
-     * @param push push object
-     * @return true if a payload should be ignore, false if payload should be processed
-     */
-    private boolean shouldIgnore(GHEventPayload.Push push) {
-        // TODO - confirm if the thing being fired is a payload event and not the build.
-
-        List<GHEventPayload.Push.PushCommit> commits = push.getCommits();
-        for (GHEventPayload.Push.PushCommit commit : commits) {
-            String message = commit.getMessage();
-            if (!message.matches("\\[skip-ci]")) {
-                return false;  // if there is any build that requires a build, proceed to build
-            }
-        }
-        return true;
-    }
-
-    private void fireAfterDelay(final SCMHeadEventImpl e) {
-        SCMHeadEvent.fireLater(e, GitHubSCMSource.getEventDelaySeconds(), TimeUnit.SECONDS);
+    private void fireAfterDelay(String deliveryId, GHSubscriberEvent event, final SCMHeadEventImpl e) {
+        // a burst of pushes to the same ref only needs the head to be retrieved once
+        String key = e.repoHost + '/' + e.repoOwner + '/' + e.repository + ' ' + e.getPayload().getRef();
+        PUSH_EVENTS.submit(key, e, AdaptiveEventDelay.getInitialDelaySeconds(),
+                (previous, latest) -> latest.mergedWith(previous), EventJournal.record(deliveryId, event));
     }
 
-    private static class SCMHeadEventImpl extends SCMHeadEvent<GHEventPayload.Push> {
+    private static class SCMHeadEventImpl extends SCMHeadEvent<WebhookPayloadSummary> implements WebhookHeadEvent {
         private static final String R_HEADS = "refs/heads/";
         private static final String R_TAGS = "refs/tags/";
+        /**
+         * GitHub lists at most this many commits in a push payload.
+         */
+        private static final int MAX_PAYLOAD_COMMITS = 20;
+        /**
+         * GitHub lists at most this many files in a comparison.
+         */
+        private static final int MAX_COMPARE_FILES = 300;
         private final String repoHost;
         private final String repoOwner;
         private final String repository;
+        /**
+         * The revision of the ref before the first of the pushes that this event stands for.
+         */
+        private String before;
+        /**
+         * {@code true} if one of the pushes that this event stands for was replayed from the {@link EventJournal}.
+         */
+        private boolean replayed;
+        /**
+         * {@code true} if the changes since {@link #before} can be used to decide whether the push is relevant.
+         */
+        private boolean filterable;
+        /**
+         * The paths changed since {@link #before} as listed by the payloads or {@code null} if the payloads do not
+         * list every change.
+         */
+        @CheckForNull
+        private Set<String> changedPaths;
+        /**
+         * The paths changed since {@link #before} as retrieved from the compare API before the event is fired, or
+         * {@code null} if the payloads list them, no source filters them or they could not be retrieved in full.
+         */
+        @CheckForNull
+        private volatile Set<String> comparedPaths;
+        /**
+         * The sources for which this event has been ignored because of their {@link ChangedPathFilter}s.
+         */
+        private final Set<String> ignoredBy = ConcurrentHashMap.newKeySet();
 
-        public SCMHeadEventImpl(Type type, long timestamp, GHEventPayload.Push pullRequest, GitHubRepositoryName repo,
-                                String origin) {
-            super(type, timestamp, pullRequest, origin);
+        public SCMHeadEventImpl(Type type, long timestamp, WebhookPayloadSummary push, GitHubRepositoryName repo,
+                                String origin, boolean replayed) {
+            super(type, timestamp, push, origin);
+            this.replayed = replayed;
             this.repoHost = repo.getHost();
-            this.repoOwner = pullRequest.getRepository().getOwnerName();
-            this.repository = pullRequest.getRepository().getName();
+            this.repoOwner = push.getRepositoryOwner();
+            this.repository = push.getRepositoryName();
+            this.before = push.getBefore();
+            // the commits of a forced push do not account for the changes that it discarded
+            this.filterable = type == Type.UPDATED && !push.isForced() && before != null
+                    && before.matches(GitHubSCMSource.VALID_GIT_SHA1);
+            this.changedPaths = filterable ? listedPaths(push) : null;
+        }
+
+        /**
+         * Collects the paths changed by the commits listed in a push payload.
+         *
+         * @param push the push.
+         * @return the changed paths or {@code null} if the payload may not list every commit.
+         */
+        @CheckForNull
+        private static Set<String> listedPaths(WebhookPayloadSummary push) {
+            List<WebhookPayloadSummary.Commit> commits = push.getCommits();
+            if (commits.isEmpty() || commits.size() >= MAX_PAYLOAD_COMMITS) {
+                return null;
+            }
+            Set<String> paths = new HashSet<>();
+            for (WebhookPayloadSummary.Commit commit : commits) {
+                paths.addAll(commit.getPaths());
+            }
+            return paths;
+        }
+
+        /**
+         * Makes this event stand for an earlier event of the same ref as well, as only this event will be fired.
+         *
+         * @param previous the earlier event.
+         * @return this event.
+         */
+        SCMHeadEventImpl mergedWith(SCMHeadEventImpl previous) {
+            before = previous.before;
+            replayed = replayed || previous.replayed;
+            filterable = filterable && previous.filterable;
+            changedPaths = filterable && changedPaths != null && previous.changedPaths != null
+                    ? union(previous.changedPaths, changedPaths)
+                    : null;
+            return this;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean isReplayed() {
+            return replayed;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @CheckForNull
+        @Override
+        public String getBeforeHash() {
+            return before;
+        }
+
+        private static Set<String> union(Set<String> a, Set<String> b) {
+            Set<String> result = new HashSet<>(a);
+            result.addAll(b);
+            return result;
+        }
+
+        /**
+         * Checks if one of the {@link ChangedPathFilter}s of the source ignores this event.
+         *
+         * @param source  the source.
+         * @param filters the filters of the source.
+         * @return {@code true} if the push only changed paths that the source is not interested in.
+         */
+        private boolean isIgnored(GitHubSCMSource source, List<ChangedPathFilter> filters) {
+            if (filters.isEmpty() || !filterable) {
+                return false;
+            }
+            Set<String> paths = changedPaths != null ? changedPaths : comparedPaths;
+            if (paths == null) {
+                return false;
+            }
+            for (ChangedPathFilter filter : filters) {
+                if (filter.isIgnored(paths)) {
+                    if (ignoredBy.add(source.getId())) {
+                        long count = ChangedPathFilter.suppressed();
+                        LOGGER.log(Level.FINE, "{0} only changed filtered out paths, ignored {1} pushes so far",
+                                new Object[]{description(), count});
+                    }
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Retrieves the paths changed since {@link #before} from the compare API when the payloads do not list them
+         * and one of the sources of the repository filters them. Called once, before the event is fired.
+         */
+        void compareIfNeeded() {
+            if (!filterable || changedPaths != null) {
+                return;
+            }
+            GitHubSCMSource source = filteringSource();
+            if (source == null) {
+                return;
+            }
+            try {
+                StandardCredentials credentials = Connector.lookupScanCredentials(
+                        (Item) source.getOwner(), source.getApiUri(), source.getCredentialsId());
+                GitHub github = Connector.connect(source.getApiUri(), credentials);
+                try {
+                    GHCompare compare = github.getRepository(repoOwner + '/' + repository)
+                            .getCompare(before, getPayload().getAfter());
+                    GHCommit.File[] files = compare.getFiles();
+                    if (files == null || files.length >= MAX_COMPARE_FILES) {
+                        return;
+                    }
+                    Set<String> paths = new HashSet<>();
+                    for (GHCommit.File file : files) {
+                        paths.add(file.getFileName());
+                        if (file.getPreviousFilename() != null) {
+                            paths.add(file.getPreviousFilename());
+                        }
+                    }
+                    comparedPaths = paths;
+                } finally {
+                    Connector.release(github);
+                }
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Could not compare " + before + " with " + getPayload().getAfter() + " in "
+                        + repoOwner + "/" + repository, e);
+            }
+        }
+
+        /**
+         * Finds a source of the repository with {@link ChangedPathFilter}s, to connect to GitHub as.
+         *
+         * @return the source or {@code null} if there is none, or if the items interested in the repository are not
+         * indexed yet.
+         */
+        @CheckForNull
+        private GitHubSCMSource filteringSource() {
+            Set<String> items = EventRoutingIndex.itemsInterestedIn(repoHost, repoOwner, repository);
+            if (items == null) {
+                return null;
+            }
+            try (ACLContext ignored = ACL.as(ACL.SYSTEM)) {
+                Jenkins jenkins = Jenkins.get();
+                for (String fullName : items) {
+                    Item item = jenkins.getItemByFullName(fullName);
+                    if (!(item instanceof SCMSourceOwner)) {
+                        continue;
+                    }
+                    for (SCMSource source : ((SCMSourceOwner) item).getSCMSources()) {
+                        if (source instanceof GitHubSCMSource
+                                && isApiMatch(((GitHubSCMSource) source).getApiUri())
+                                && repoOwner.equalsIgnoreCase(((GitHubSCMSource) source).getRepoOwner())
+                                && repository.equalsIgnoreCase(((GitHubSCMSource) source).getRepository())
+                                && !((GitHubSCMSource) source).compiledTraits().changedPathFilters().isEmpty()) {
+                            return (GitHubSCMSource) source;
+                        }
+                    }
+                }
+            }
+            return null;
         }
 
         private boolean isApiMatch(String apiUri) {
@@ -292,19 +540,16 @@ public class PushGHEventSubscriber extends GHEventsSubscriber {
                 return Collections.emptyMap();
             }
             GitHubSCMSource src = (GitHubSCMSource) source;
-            GHEventPayload.Push push = getPayload();
-            GHRepository repo = push.getRepository();
-            String repoName = repo.getName();
-            if (!repoName.matches(GitHubSCMSource.VALID_GITHUB_REPO_NAME)) {
+            WebhookPayloadSummary push = getPayload();
+            if (!repository.matches(GitHubSCMSource.VALID_GITHUB_REPO_NAME)) {
                 // fake repository name
                 return Collections.emptyMap();
             }
-            String repoOwner = push.getRepository().getOwnerName();
             if (!repoOwner.matches(GitHubSCMSource.VALID_GITHUB_USER_NAME)) {
                 // fake owner name
                 return Collections.emptyMap();
             }
-            if (!push.getHead().matches(GitHubSCMSource.VALID_GIT_SHA1)) {
+            if (!push.getAfter().matches(GitHubSCMSource.VALID_GIT_SHA1)) {
                 // fake head sha1
                 return Collections.emptyMap();
             }
@@ -319,8 +564,7 @@ public class PushGHEventSubscriber extends GHEventsSubscriber {
              * things for us, so we just claim a BranchSCMHead
              */
 
-            GitHubSCMSourceContext context = new GitHubSCMSourceContext(null, SCMHeadObserver.none())
-                    .withTraits(src.getTraits());
+            CompiledTraits context = src.compiledTraits();
             String ref = push.getRef();
             if (context.wantBranches() && !ref.startsWith(R_TAGS)) {
                 // we only want the branch details if the branch is actually built!
@@ -338,8 +582,8 @@ public class PushGHEventSubscriber extends GHEventsSubscriber {
                         break;
                     }
                 }
-                if (!excluded) {
-                    return Collections.singletonMap(head, new AbstractGitSCMSource.SCMRevisionImpl(head, push.getHead()));
+                if (!excluded && !isIgnored(src, context.changedPathFilters())) {
+                    return Collections.singletonMap(head, new AbstractGitSCMSource.SCMRevisionImpl(head, push.getAfter()));
                 }
             }
             if (context.wantTags() && ref.startsWith(R_TAGS)) {
@@ -371,7 +615,7 @@ public class PushGHEventSubscriber extends GHEventsSubscriber {
                     }
                 }
                 if (!excluded) {
-                    return Collections.singletonMap(head, new GitTagSCMRevision(head, push.getHead()));
+                    return Collections.singletonMap(head, new GitTagSCMRevision(head, push.getAfter()));
                 }
             }
             return Collections.emptyMap();
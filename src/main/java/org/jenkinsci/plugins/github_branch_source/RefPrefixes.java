@@ -0,0 +1,150 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.github_branch_source;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+import jenkins.scm.api.trait.SCMSourceTrait;
+import jenkins.scm.impl.trait.RegexSCMHeadFilterTrait;
+import jenkins.scm.impl.trait.WildcardSCMHeadFilterTrait;
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * Works out from the name filters of a source the directories that every branch and tag it wants must be in, so that
+ * only the refs in those directories need to be listed.
+ * <p>
+ * Only prefixes ending with {@code /} are used: when a ref is named exactly as the requested prefix the refs API
+ * returns that ref alone, and no ref can be named with a trailing {@code /}.
+ */
+final class RefPrefixes {
+
+    /**
+     * The characters with a special meaning in a regular expression.
+     */
+    private static final String REGEX_META = "\\.^$|?*+()[]{}";
+
+    private RefPrefixes() {
+        throw new IllegalAccessError("Utility class");
+    }
+
+    /**
+     * Returns the prefixes that the names of the heads wanted by the traits start with.
+     *
+     * @param traits the traits.
+     * @return the prefixes, none of which start with another, or {@code null} if every ref needs to be listed.
+     */
+    @CheckForNull
+    static List<String> of(@NonNull Collection<SCMSourceTrait> traits) {
+        for (SCMSourceTrait trait : traits) {
+            // every filter has to match, so the prefixes of any one filter narrow the listing down
+            List<String> prefixes = null;
+            if (trait instanceof WildcardSCMHeadFilterTrait) {
+                prefixes = ofWildcards(((WildcardSCMHeadFilterTrait) trait).getIncludes());
+            } else if (trait instanceof RegexSCMHeadFilterTrait) {
+                String prefix = ofRegex(((RegexSCMHeadFilterTrait) trait).getRegex());
+                prefixes = prefix == null ? null : Collections.singletonList(prefix);
+            }
+            if (prefixes != null) {
+                return prefixes;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the prefixes of space separated wildcard includes.
+     *
+     * @param includes the includes.
+     * @return the prefixes or {@code null} if any include could match a name without a usable prefix.
+     */
+    @CheckForNull
+    static List<String> ofWildcards(@CheckForNull String includes) {
+        if (StringUtils.isBlank(includes)) {
+            return null;
+        }
+        TreeSet<String> prefixes = new TreeSet<>();
+        for (String include : includes.trim().split("\\s+")) {
+            int end = StringUtils.indexOfAny(include, "*?");
+            String prefix = directory(end == -1 ? include : include.substring(0, end));
+            if (prefix == null) {
+                return null;
+            }
+            prefixes.add(prefix);
+        }
+        return minimal(prefixes);
+    }
+
+    /**
+     * Returns the prefix of a regular expression.
+     *
+     * @param regex the regular expression, matched against the whole name.
+     * @return the prefix or {@code null} if the regular expression could match a name without a usable prefix.
+     */
+    @CheckForNull
+    static String ofRegex(@CheckForNull String regex) {
+        if (regex == null || regex.indexOf('|') != -1) {
+            // alternatives could start anywhere
+            return null;
+        }
+        StringBuilder literal = new StringBuilder();
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == '\\' && i + 1 < regex.length() && !Character.isLetterOrDigit(regex.charAt(i + 1))) {
+                // an escaped punctuation character stands for itself
+                c = regex.charAt(++i);
+            } else if (REGEX_META.indexOf(c) != -1) {
+                if ((c == '?' || c == '*' || c == '{') && literal.length() > 0) {
+                    // the previous character is optional
+                    literal.setLength(literal.length() - 1);
+                }
+                break;
+            }
+            literal.append(c);
+        }
+        return directory(literal.toString());
+    }
+
+    @CheckForNull
+    private static String directory(@NonNull String literal) {
+        int end = literal.lastIndexOf('/');
+        return end <= 0 ? null : literal.substring(0, end + 1);
+    }
+
+    @NonNull
+    private static List<String> minimal(@NonNull TreeSet<String> prefixes) {
+        List<String> result = new ArrayList<>();
+        for (String prefix : prefixes) {
+            // sorted, so a prefix of this one would be the last one kept
+            if (result.isEmpty() || !prefix.startsWith(result.get(result.size() - 1))) {
+                result.add(prefix);
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.github_branch_source;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import org.kohsuke.github.GHRepository;
+import org.kohsuke.github.GitHub;
+
+/**
+ * Hands the {@link GHRepository} instances listed by a {@link GitHubSCMNavigator} scan over to the
+ * {@link GitHubSCMSource} instances created for them, so that the sources do not need to fetch the repository again
+ * when they are first indexed after the organization scan.
+ * <p>
+ * A repository is only handed over to a source using the very same pooled {@link GitHub} connection that listed it,
+ * which guarantees that the source would have been able to fetch the same details with its own credentials.
+ * Entries are short lived and are removed once the source has retrieved its heads.
+ */
+final class RepositoryHandOff {
+
+    /**
+     * How long a listed repository is retained for.
+     */
+    private static final long TTL_SECONDS = Math.max(0,
+            Long.getLong(GitHubSCMNavigator.class.getName() + ".repositoryHandOffSeconds", 600L));
+
+    /**
+     * The repositories listed by recent organization scans.
+     */
+    private static final TimedCache<Key, GHRepository> REPOSITORIES =
+            new TimedCache<>(TimeUnit.SECONDS.toMillis(TTL_SECONDS), 1000);
+
+    private RepositoryHandOff() {
+        throw new IllegalAccessError("Utility class");
+    }
+
+    /**
+     * Records a repository listed by an organization scan.
+     *
+     * @param github the connection that listed the repository.
+     * @param repo   the repository.
+     */
+    static void put(@NonNull GitHub github, @NonNull GHRepository repo) {
+        REPOSITORIES.put(new Key(github, repo.getFullName()), repo);
+    }
+
+    /**
+     * Returns the repository listed by a recent organization scan, leaving it available.
+     *
+     * @param github   the connection of the source.
+     * @param fullName the full name of the repository.
+     * @return the repository or {@code null} if it was not listed recently using the same connection.
+     */
+    @CheckForNull
+    static GHRepository peek(@NonNull GitHub github, @NonNull String fullName) {
+        return REPOSITORIES.get(new Key(github, fullName));
+    }
+
+    /**
+     * Returns the repository listed by a recent organization scan, removing it.
+     *
+     * @param github   the connection of the source.
+     * @param fullName the full name of the repository.
+     * @return the repository or {@code null} if it was not listed recently using the same connection.
+     */
+    @CheckForNull
+    static GHRepository take(@NonNull GitHub github, @NonNull String fullName) {
+        return REPOSITORIES.remove(new Key(github, fullName));
+    }
+
+    /**
+     * The key, matching the connection by identity.
+     */
+    private static final class Key {
+        private final GitHub github;
+        private final String fullName;
+
+        Key(@NonNull GitHub github, @NonNull String fullName) {
+            this.github = github;
+            this.fullName = fullName.toLowerCase(Locale.ENGLISH);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return github == key.github && fullName.equals(key.fullName);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(github) + fullName.hashCode();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package org.jenkinsci.plugins.github_branch_source;
+
+import hudson.Extension;
+import jenkins.scm.api.trait.SCMNavigatorContext;
+import jenkins.scm.api.trait.SCMNavigatorTrait;
+import jenkins.scm.api.trait.SCMNavigatorTraitDescriptor;
+import org.jenkinsci.Symbol;
+import org.kohsuke.stapler.DataBoundConstructor;
+
+import javax.annotation.Nonnull;
+
+/**
+ * A {@link SCMNavigatorTrait} that discovers repositories using the GitHub search API, so that the archived, public
+ * and topic filters are applied by GitHub rather than by listing every repository of the owner.
+ * Discovery falls back to listing the repositories when a team is selected or when the search results could be
+ * incomplete.
+ *
+ * @since 2.9.2
+ */
+public class RepositorySearchTrait extends SCMNavigatorTrait {
+
+    /**
+     * Constructor for stapler.
+     */
+    @DataBoundConstructor
+    public RepositorySearchTrait() {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void decorateContext(SCMNavigatorContext<?, ?> context) {
+        super.decorateContext(context);
+        GitHubSCMNavigatorContext ctx = (GitHubSCMNavigatorContext) context;
+        ctx.setSearchRepositories(true);
+    }
+
+    /**
+     * Repository search discovery.
+     */
+    @Symbol("gitHubRepositorySearch")
+    @Extension
+    public static class DescriptorImpl extends SCMNavigatorTraitDescriptor {
+
+        @Override
+        public Class<? extends SCMNavigatorContext> getContextClass() {
+            return GitHubSCMNavigatorContext.class;
+        }
+
+        @Nonnull
+        @Override
+        public String getDisplayName() {
+            return Messages.RepositorySearchTrait_displayName();
+        }
+    }
+}
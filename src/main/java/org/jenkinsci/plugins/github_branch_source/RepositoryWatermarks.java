@@ -0,0 +1,533 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.github_branch_source;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.Util;
+import hudson.XmlFile;
+import hudson.model.Item;
+import hudson.model.ItemGroup;
+import hudson.model.listeners.ItemListener;
+import hudson.util.TextFile;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.scm.api.SCMHead;
+import jenkins.scm.api.SCMHeadObserver;
+import jenkins.scm.api.SCMRevision;
+import jenkins.scm.api.SCMSourceOwner;
+import net.jcip.annotations.GuardedBy;
+import org.kohsuke.github.GHRepository;
+
+/**
+ * Hands the watermark of each repository seen by an incremental {@link GitHubSCMNavigator} scan over to the
+ * {@link GitHubSCMSource} of that repository, so that the source can skip its own scan when the repository has not
+ * changed since its last full scan.
+ * <p>
+ * Watermarks are kept per organization folder, so that two folders scanning the same owner with different
+ * configurations do not interfere with each other. They are saved along with the number of scans in a file in the
+ * directory of the folder, and the snapshot of the heads observed by the last full scan of each source is saved in the
+ * directory of the project that owns the source, so that the scans after a restart can still skip the repositories
+ * that have not changed.
+ *
+ * @see IncrementalScanTrait
+ */
+final class RepositoryWatermarks {
+
+    /**
+     * Our logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(RepositoryWatermarks.class.getName());
+
+    /**
+     * The name of the file in the organization folder's directory that holds the watermarks.
+     */
+    static final String FILENAME = "github-scan-watermarks.txt";
+
+    /**
+     * The prefix of the name of the file in the project's directory that holds the snapshot of a source.
+     */
+    static final String SNAPSHOT_PREFIX = "github-scan-snapshot-";
+
+    /**
+     * The watermarks of each organization folder, keyed by the full name of the folder.
+     */
+    private static final Map<String, Watermarks> WATERMARKS = new ConcurrentHashMap<>();
+
+    /**
+     * The repositories listed by an organization scan whose source has not been indexed since, so that only the
+     * indexing that follows the organization scan replays a snapshot and a scan requested for the repository itself
+     * always asks GitHub.
+     */
+    private static final TimedCache<String, Boolean> LISTED = new TimedCache<>(TimeUnit.MINUTES.toMillis(10), 10000);
+
+    private RepositoryWatermarks() {
+        throw new IllegalAccessError("Utility class");
+    }
+
+    /**
+     * Computes the watermark of a repository.
+     *
+     * @param repo       the repository as returned by a repository listing.
+     * @param generation the full scan generation, changing this forces every repository to be scanned again.
+     * @return the watermark.
+     * @throws IOException if the repository details could not be read.
+     */
+    @NonNull
+    static String watermark(@NonNull GHRepository repo, int generation) throws IOException {
+        Date pushedAt = repo.getPushedAt();
+        Date updatedAt = repo.getUpdatedAt();
+        return (pushedAt == null ? "-" : Long.toString(pushedAt.getTime()))
+                + ':' + (updatedAt == null ? "-" : Long.toString(updatedAt.getTime()))
+                + ':' + generation;
+    }
+
+    /**
+     * Records the watermark of a repository.
+     *
+     * @param context    the organization folder.
+     * @param repository the repository name.
+     * @param watermark  the watermark.
+     */
+    static void put(@NonNull Item context, @NonNull String repository, @NonNull String watermark) {
+        load(context).put(repository, watermark);
+        LISTED.put(key(context.getFullName(), repository), Boolean.TRUE);
+    }
+
+    /**
+     * Counts a scan of an organization folder.
+     *
+     * @param context the organization folder.
+     * @return the number of scans before this one.
+     */
+    static int nextScan(@NonNull Item context) {
+        return load(context).nextScan();
+    }
+
+    /**
+     * Saves the watermarks of an organization folder, if they changed.
+     *
+     * @param context the organization folder.
+     */
+    static void save(@NonNull Item context) {
+        Watermarks watermarks = WATERMARKS.get(context.getFullName());
+        if (watermarks != null) {
+            watermarks.save();
+        }
+    }
+
+    /**
+     * Checks if the repository of a source was listed by an organization scan since the source was last indexed,
+     * i.e. if the source is being indexed because of the organization scan, and records that it has been indexed.
+     *
+     * @param owner      the owner of the source.
+     * @param repository the repository name.
+     * @return {@code true} if the source is being indexed after an organization scan listed its repository.
+     */
+    static boolean takeListed(@CheckForNull SCMSourceOwner owner, @NonNull String repository) {
+        Item folder = folderOf(owner);
+        return folder != null && LISTED.remove(key(folder.getFullName(), repository)) != null;
+    }
+
+    /**
+     * Returns the watermark recorded for the repository of a source.
+     *
+     * @param owner      the owner of the source.
+     * @param repository the repository name.
+     * @return the watermark or {@code null} if the source does not belong to an incremental organization scan.
+     */
+    @CheckForNull
+    static String get(@CheckForNull SCMSourceOwner owner, @NonNull String repository) {
+        Item folder = folderOf(owner);
+        return folder == null ? null : load(folder).get(repository);
+    }
+
+    /**
+     * Loads the snapshot of the last full scan of a source.
+     *
+     * @param owner    the owner of the source.
+     * @param sourceId the id of the source.
+     * @param config   the digest of the configuration of the source.
+     * @return the snapshot or {@code null} if none was saved with the same configuration.
+     */
+    @CheckForNull
+    static Snapshot loadSnapshot(@CheckForNull SCMSourceOwner owner, @NonNull String sourceId,
+                                 @NonNull String config) {
+        XmlFile file = snapshotFile(owner, sourceId);
+        if (file == null || !file.exists()) {
+            return null;
+        }
+        try {
+            Object snapshot = file.read();
+            return snapshot instanceof Snapshot && config.equals(((Snapshot) snapshot).config)
+                    ? (Snapshot) snapshot
+                    : null;
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not read the snapshot " + file, e);
+            return null;
+        }
+    }
+
+    /**
+     * Saves or discards the snapshot of the last full scan of a source.
+     *
+     * @param owner    the owner of the source.
+     * @param sourceId the id of the source.
+     * @param snapshot the snapshot or {@code null} to discard the saved snapshot.
+     */
+    static void saveSnapshot(@CheckForNull SCMSourceOwner owner, @NonNull String sourceId,
+                             @CheckForNull Snapshot snapshot) {
+        XmlFile file = snapshotFile(owner, sourceId);
+        if (file == null) {
+            return;
+        }
+        try {
+            if (snapshot == null) {
+                Files.deleteIfExists(file.getFile().toPath());
+            } else {
+                file.write(snapshot);
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not save the snapshot " + file, e);
+        }
+    }
+
+    @CheckForNull
+    private static XmlFile snapshotFile(@CheckForNull SCMSourceOwner owner, @NonNull String sourceId) {
+        File rootDir = owner == null ? null : owner.getRootDir();
+        return rootDir == null
+                ? null
+                : new XmlFile(new File(rootDir, SNAPSHOT_PREFIX + Util.getDigestOf(sourceId) + ".xml"));
+    }
+
+    /**
+     * Forgets the watermarks recorded by an organization folder and any folder within it.
+     *
+     * @param folder the full name of the folder.
+     */
+    static void forget(@NonNull String folder) {
+        WATERMARKS.keySet().removeIf(name -> name.equals(folder) || name.startsWith(folder + '/'));
+        LISTED.invalidateIf(key -> key.startsWith(folder + "::") || key.startsWith(folder + '/'));
+    }
+
+    @NonNull
+    private static Watermarks load(@NonNull Item folder) {
+        return WATERMARKS.computeIfAbsent(folder.getFullName(), name -> {
+            File rootDir = folder.getRootDir();
+            return Watermarks.load(rootDir == null ? null : new TextFile(new File(rootDir, FILENAME)));
+        });
+    }
+
+    @CheckForNull
+    private static Item folderOf(@CheckForNull SCMSourceOwner owner) {
+        if (owner == null) {
+            return null;
+        }
+        ItemGroup<?> parent = owner.getParent();
+        return parent instanceof Item ? (Item) parent : null;
+    }
+
+    private static String key(String folder, String repository) {
+        return folder + "::" + repository.toLowerCase(Locale.ENGLISH);
+    }
+
+    /**
+     * Forgets the watermarks of deleted and moved organization folders.
+     */
+    @Extension
+    public static class ListenerImpl extends ItemListener {
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onDeleted(Item item) {
+            forget(item.getFullName());
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+            // the file moves along with the folder and is loaded again under the new name
+            forget(oldFullName);
+        }
+    }
+
+    /**
+     * The watermarks of an organization folder and the number of scans of the folder.
+     */
+    private static final class Watermarks {
+        /**
+         * The file to persist the watermarks to or {@code null} if the watermarks are not persisted.
+         */
+        @CheckForNull
+        private final TextFile file;
+        /**
+         * The watermarks keyed by the lower case repository name.
+         */
+        private final Map<String, String> watermarks = new ConcurrentHashMap<>();
+        /**
+         * The number of scans.
+         */
+        @GuardedBy("this")
+        private int scans;
+        /**
+         * Whether anything changed since the file was last written.
+         */
+        private volatile boolean dirty;
+
+        private Watermarks(@CheckForNull TextFile file) {
+            this.file = file;
+        }
+
+        /**
+         * Reads the watermarks from a file, the first line holds the number of scans and each other line holds a
+         * repository name and its watermark.
+         *
+         * @param file the file or {@code null} if the watermarks are not persisted.
+         * @return the watermarks.
+         */
+        @NonNull
+        static Watermarks load(@CheckForNull TextFile file) {
+            Watermarks result = new Watermarks(file);
+            if (file == null || !file.exists()) {
+                return result;
+            }
+            try {
+                String[] lines = file.read().split("\n");
+                for (int i = 0; i < lines.length; i++) {
+                    String line = lines[i].trim();
+                    if (i == 0) {
+                        result.scans = Integer.parseInt(line);
+                    } else if (!line.isEmpty()) {
+                        int space = line.indexOf(' ');
+                        if (space > 0) {
+                            result.watermarks.put(line.substring(0, space), line.substring(space + 1));
+                        }
+                    }
+                }
+            } catch (IOException | NumberFormatException e) {
+                LOGGER.log(Level.WARNING, "Could not read the watermarks " + file.file, e);
+                result.watermarks.clear();
+            }
+            return result;
+        }
+
+        /**
+         * Returns the watermark of a repository.
+         *
+         * @param repository the repository name.
+         * @return the watermark or {@code null} if not recorded.
+         */
+        @CheckForNull
+        String get(@NonNull String repository) {
+            return watermarks.get(repository.toLowerCase(Locale.ENGLISH));
+        }
+
+        /**
+         * Records the watermark of a repository.
+         *
+         * @param repository the repository name.
+         * @param watermark  the watermark.
+         */
+        void put(@NonNull String repository, @NonNull String watermark) {
+            if (!watermark.equals(watermarks.put(repository.toLowerCase(Locale.ENGLISH), watermark))) {
+                dirty = true;
+            }
+        }
+
+        /**
+         * Counts a scan.
+         *
+         * @return the number of scans before this one.
+         */
+        synchronized int nextScan() {
+            dirty = true;
+            return scans++;
+        }
+
+        /**
+         * Writes the watermarks to the file if they changed since it was last written.
+         */
+        synchronized void save() {
+            if (!dirty || file == null) {
+                return;
+            }
+            dirty = false;
+            StringBuilder content = new StringBuilder().append(scans).append('\n');
+            for (Map.Entry<String, String> entry : new TreeMap<>(watermarks).entrySet()) {
+                content.append(entry.getKey()).append(' ').append(entry.getValue()).append('\n');
+            }
+            try {
+                file.write(content.toString());
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Could not save the watermarks " + file.file, e);
+            }
+        }
+    }
+
+    /**
+     * The heads observed by the last full scan of a source, along with the watermark of the repository at the time.
+     */
+    static final class Snapshot {
+        /**
+         * The watermark.
+         */
+        @NonNull
+        private final String watermark;
+        /**
+         * The digest of the configuration of the source, as a source with different traits observes other heads.
+         */
+        @NonNull
+        private final String config;
+        /**
+         * The observed heads and their revisions.
+         */
+        @NonNull
+        private final Map<SCMHead, SCMRevision> heads;
+
+        Snapshot(@NonNull String watermark, @NonNull String config, @NonNull Map<SCMHead, SCMRevision> heads) {
+            this.watermark = watermark;
+            this.config = config;
+            // not wrapped, so that the snapshot can be saved
+            this.heads = new LinkedHashMap<>(heads);
+        }
+
+        /**
+         * Checks if this snapshot was taken at the supplied watermark.
+         *
+         * @param watermark the watermark.
+         * @return {@code true} if the repository has not changed since the snapshot was taken.
+         */
+        boolean isCurrent(@CheckForNull String watermark) {
+            return this.watermark.equals(watermark);
+        }
+
+        /**
+         * Returns the revision of a head in this snapshot.
+         *
+         * @param head the head.
+         * @return the revision or {@code null} if the head was not observed.
+         */
+        @CheckForNull
+        SCMRevision get(@NonNull SCMHead head) {
+            return heads.get(head);
+        }
+
+        /**
+         * Reports the heads of the snapshot to an observer.
+         *
+         * @param observer the observer.
+         * @return the number of heads reported.
+         * @throws IOException          if the observer could not record a head.
+         * @throws InterruptedException if interrupted.
+         */
+        int replay(@NonNull SCMHeadObserver observer) throws IOException, InterruptedException {
+            int count = 0;
+            for (Map.Entry<SCMHead, SCMRevision> entry : heads.entrySet()) {
+                if (!observer.isObserving()) {
+                    break;
+                }
+                observer.observe(entry.getKey(), entry.getValue());
+                count++;
+            }
+            return count;
+        }
+    }
+
+    /**
+     * A {@link SCMHeadObserver} that records the heads that it passes on to its delegate.
+     */
+    static final class RecordingObserver extends SCMHeadObserver {
+        /**
+         * The delegate.
+         */
+        @NonNull
+        private final SCMHeadObserver delegate;
+        /**
+         * The observed heads.
+         */
+        private final Map<SCMHead, SCMRevision> heads = new LinkedHashMap<>();
+
+        RecordingObserver(@NonNull SCMHeadObserver delegate) {
+            this.delegate = delegate;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void observe(@NonNull SCMHead head, @NonNull SCMRevision revision)
+                throws IOException, InterruptedException {
+            synchronized (heads) {
+                heads.put(head, revision);
+            }
+            delegate.observe(head, revision);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean isObserving() {
+            return delegate.isObserving();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Set<SCMHead> getIncludes() {
+            return delegate.getIncludes();
+        }
+
+        /**
+         * Takes a snapshot of the recorded heads.
+         *
+         * @param watermark the watermark of the repository when the scan started.
+         * @param config    the digest of the configuration of the source.
+         * @return the snapshot.
+         */
+        @NonNull
+        Snapshot snapshot(@NonNull String watermark, @NonNull String config) {
+            synchronized (heads) {
+                return new Snapshot(watermark, config, heads);
+            }
+        }
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.github_branch_source;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.Item;
+import hudson.model.TaskListener;
+import hudson.util.TextFile;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * Remembers the last repository processed by an organization scan, so that when a scan is interrupted (by a restart,
+ * an abort or the API rate limit) the next scan first processes the repositories that the interrupted scan did not
+ * reach and then wraps around to the ones before the cursor.
+ * <p>
+ * The repositories still have to be listed from the start as the listing cannot be resumed from a page, but the
+ * repositories before the cursor are only processed once every other repository has been.
+ */
+final class ScanCursor implements Closeable {
+
+    /**
+     * Our logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(ScanCursor.class.getName());
+
+    /**
+     * The name of the file in the organization folder's directory that holds the cursor.
+     */
+    static final String FILENAME = "github-scan-cursor.txt";
+
+    /**
+     * How many repositories are processed between saves of the cursor.
+     */
+    static final int SAVE_INTERVAL = 10;
+
+    /**
+     * The file to persist the cursor to or {@code null} if the cursor is not persisted.
+     */
+    @CheckForNull
+    private final TextFile file;
+
+    /**
+     * The last repository processed by the interrupted scan or {@code null} if not resuming.
+     */
+    @CheckForNull
+    private final String resumeAfter;
+
+    /**
+     * Whether the listing has passed the {@link #resumeAfter} repository.
+     */
+    private boolean passed;
+
+    /**
+     * The repositories up to and including {@link #resumeAfter}, to be processed last.
+     */
+    private final List<String> deferred = new ArrayList<>();
+
+    /**
+     * The last repository processed by this scan.
+     */
+    @CheckForNull
+    private String last;
+
+    /**
+     * The number of repositories processed since the cursor was last saved.
+     */
+    private int unsaved;
+
+    /**
+     * Whether this scan completed.
+     */
+    private boolean completed;
+
+    /**
+     * Constructor.
+     *
+     * @param file        the file to persist the cursor to or {@code null} if the cursor is not persisted.
+     * @param resumeAfter the last repository processed by the interrupted scan or {@code null} if not resuming.
+     */
+    ScanCursor(@CheckForNull TextFile file, @CheckForNull String resumeAfter) {
+        this.file = file;
+        this.resumeAfter = resumeAfter;
+        this.passed = resumeAfter == null;
+    }
+
+    /**
+     * Loads the cursor of the organization folder.
+     *
+     * @param context  the organization folder.
+     * @param listener the listener to log to.
+     * @return the cursor.
+     */
+    @NonNull
+    static ScanCursor load(@CheckForNull Item context, @NonNull TaskListener listener) {
+        File rootDir = context == null ? null : context.getRootDir();
+        if (rootDir == null) {
+            return new ScanCursor(null, null);
+        }
+        TextFile file = new TextFile(new File(rootDir, FILENAME));
+        String resumeAfter = null;
+        if (file.exists()) {
+            try {
+                resumeAfter = StringUtils.defaultIfBlank(file.readTrim(), null);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Could not read the scan cursor of " + context.getFullName(), e);
+            }
+        }
+        if (resumeAfter != null) {
+            listener.getLogger().println(GitHubConsoleNote.create(System.currentTimeMillis(), String.format(
+                    "Resuming the interrupted scan after repository %s", resumeAfter)));
+        }
+        return new ScanCursor(file, resumeAfter);
+    }
+
+    /**
+     * Checks if the repository was reached by the interrupted scan, in which case it is deferred until the
+     * remaining repositories have been processed.
+     *
+     * @param name the repository name.
+     * @return {@code true} if the repository has been deferred.
+     */
+    boolean defer(@NonNull String name) {
+        if (passed) {
+            return false;
+        }
+        deferred.add(name);
+        passed = name.equalsIgnoreCase(resumeAfter);
+        return true;
+    }
+
+    /**
+     * Returns the deferred repositories.
+     *
+     * @return the deferred repositories in listing order.
+     */
+    @NonNull
+    List<String> deferred() {
+        return Collections.unmodifiableList(deferred);
+    }
+
+    /**
+     * Records that a repository has been processed.
+     *
+     * @param name the repository name.
+     */
+    void processed(@NonNull String name) {
+        last = name;
+        if (++unsaved >= SAVE_INTERVAL) {
+            save();
+        }
+    }
+
+    /**
+     * Records that the scan completed, discarding the cursor.
+     */
+    void completed() {
+        completed = true;
+        if (file != null) {
+            try {
+                Files.deleteIfExists(file.file.toPath());
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Could not delete the scan cursor " + file.file, e);
+            }
+        }
+    }
+
+    /**
+     * Saves the cursor unless the scan completed.
+     */
+    @Override
+    public void close() {
+        if (!completed) {
+            save();
+        }
+    }
+
+    private void save() {
+        unsaved = 0;
+        if (file == null || last == null) {
+            return;
+        }
+        try {
+            file.write(last);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not save the scan cursor " + file.file, e);
+        }
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.github_branch_source;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.Item;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import jenkins.model.Jenkins;
+import jenkins.scm.api.SCMNavigator;
+import jenkins.scm.api.SCMNavigatorOwner;
+import jenkins.scm.api.SCMSource;
+import jenkins.scm.api.SCMSourceOwner;
+import jenkins.scm.api.trait.SCMTrait;
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * Decides from the commit messages of a push whether the push asks for continuous integration to be skipped, in
+ * which case the webhook subscriber drops the push before it reaches the event bus. Only sources and navigators with
+ * a {@link SkipCommitMessageTrait} ever skip a push.
+ * <p>
+ * The markers are compiled into a single case insensitive pattern once per configuration rather than once per
+ * commit message.
+ *
+ * @see SkipCommitMessageTrait
+ */
+final class SkipCommitMessageFilter {
+
+    /**
+     * The markers suggested when a {@link SkipCommitMessageTrait} is added.
+     */
+    static final String DEFAULT_MARKERS = "[skip ci]\n[ci skip]\n[skip-ci]";
+
+    /**
+     * The filter of the sources and navigators without a {@link SkipCommitMessageTrait}, which never skips a push.
+     */
+    static final SkipCommitMessageFilter NEVER = new SkipCommitMessageFilter(null, false);
+
+    /**
+     * The number of pushes dropped because their commit messages asked to skip continuous integration.
+     */
+    private static final AtomicLong SKIPPED = new AtomicLong();
+
+    /**
+     * Matches any of the markers or {@code null} if there are no markers.
+     */
+    @CheckForNull
+    private final Pattern pattern;
+
+    /**
+     * {@code true} to only check the message of the head commit, {@code false} to require every commit to be marked.
+     */
+    private final boolean headCommitOnly;
+
+    /**
+     * Constructor.
+     *
+     * @param markers        the markers, one per line.
+     * @param headCommitOnly {@code true} to only check the message of the head commit, {@code false} to require
+     *                       every commit of the push to be marked.
+     */
+    SkipCommitMessageFilter(@CheckForNull String markers, boolean headCommitOnly) {
+        this.pattern = compile(markers);
+        this.headCommitOnly = headCommitOnly;
+    }
+
+    @CheckForNull
+    private static Pattern compile(@CheckForNull String markers) {
+        List<String> alternatives = new ArrayList<>();
+        for (String marker : StringUtils.defaultString(markers).split("[\\r\\n]+")) {
+            if (StringUtils.isNotBlank(marker)) {
+                alternatives.add(Pattern.quote(marker.trim()));
+            }
+        }
+        return alternatives.isEmpty()
+                ? null
+                : Pattern.compile(StringUtils.join(alternatives, '|'), Pattern.CASE_INSENSITIVE);
+    }
+
+    /**
+     * Checks if the push asks for continuous integration to be skipped.
+     *
+     * @param push the push.
+     * @return {@code true} if the head commit, or every commit, is marked.
+     */
+    boolean isSkipped(@NonNull WebhookPayloadSummary push) {
+        List<WebhookPayloadSummary.Commit> commits = push.getCommits();
+        if (pattern == null || commits.isEmpty()) {
+            return false;
+        }
+        if (headCommitOnly) {
+            WebhookPayloadSummary.Commit head = commits.get(commits.size() - 1);
+            for (WebhookPayloadSummary.Commit commit : commits) {
+                if (commit.getSha() != null && commit.getSha().equals(push.getAfter())) {
+                    head = commit;
+                    break;
+                }
+            }
+            return isMarked(head);
+        }
+        for (WebhookPayloadSummary.Commit commit : commits) {
+            if (!isMarked(commit)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isMarked(WebhookPayloadSummary.Commit commit) {
+        String message = commit.getMessage();
+        return message != null && pattern != null && pattern.matcher(message).find();
+    }
+
+    /**
+     * Checks if every item interested in the push considers that it asks for continuous integration to be skipped.
+     *
+     * @param host       the host of the repository.
+     * @param owner      the owner of the repository.
+     * @param repository the name of the repository.
+     * @param push       the push.
+     * @return {@code true} if the push should be dropped, which is never the case until the items have been
+     * indexed or if any interested source or navigator has no {@link SkipCommitMessageTrait}.
+     */
+    static boolean isSkipped(@NonNull String host, @NonNull String owner, @NonNull String repository,
+                             @NonNull WebhookPayloadSummary push) {
+        Set<String> items = EventRoutingIndex.itemsInterestedIn(host, owner, repository);
+        if (items == null || items.isEmpty()) {
+            // the index is disabled, has not been built yet or no item is interested, so nobody opted in
+            return false;
+        }
+        List<SkipCommitMessageFilter> filters = new ArrayList<>();
+        try (ACLContext ignored = ACL.as(ACL.SYSTEM)) {
+            Jenkins jenkins = Jenkins.get();
+            for (String fullName : items) {
+                filters.addAll(filtersOf(jenkins.getItemByFullName(fullName), owner, repository));
+            }
+        }
+        if (filters.isEmpty()) {
+            return false;
+        }
+        for (SkipCommitMessageFilter filter : filters) {
+            if (!filter.isSkipped(push)) {
+                return false;
+            }
+        }
+        SKIPPED.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Returns the number of pushes dropped because their commit messages asked to skip continuous integration.
+     *
+     * @return the number of pushes dropped.
+     */
+    static long getSkippedCount() {
+        return SKIPPED.get();
+    }
+
+    /**
+     * Collects the filters of the sources of the repository and the navigators of its owner.
+     */
+    private static List<SkipCommitMessageFilter> filtersOf(@CheckForNull Item item, @NonNull String owner,
+                                                           @NonNull String repository) {
+        List<SkipCommitMessageFilter> filters = new ArrayList<>();
+        if (item instanceof SCMSourceOwner) {
+            for (SCMSource source : ((SCMSourceOwner) item).getSCMSources()) {
+                if (source instanceof GitHubSCMSource
+                        && owner.equalsIgnoreCase(((GitHubSCMSource) source).getRepoOwner())
+                        && repository.equalsIgnoreCase(((GitHubSCMSource) source).getRepository())) {
+                    filters.add(filterOf(((GitHubSCMSource) source).getTraits()));
+                }
+            }
+        }
+        if (item instanceof SCMNavigatorOwner) {
+            for (SCMNavigator navigator : ((SCMNavigatorOwner) item).getSCMNavigators()) {
+                if (navigator instanceof GitHubSCMNavigator
+                        && owner.equalsIgnoreCase(((GitHubSCMNavigator) navigator).getRepoOwner())) {
+                    filters.add(filterOf(((GitHubSCMNavigator) navigator).getTraits()));
+                }
+            }
+        }
+        return filters;
+    }
+
+    @NonNull
+    private static SkipCommitMessageFilter filterOf(@NonNull List<? extends SCMTrait<?>> traits) {
+        for (SCMTrait<?> trait : traits) {
+            if (trait instanceof SkipCommitMessageTrait) {
+                return ((SkipCommitMessageTrait) trait).getFilter();
+            }
+        }
+        return NEVER;
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.github_branch_source;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import jenkins.scm.api.SCMSource;
+import jenkins.scm.api.trait.SCMSourceContext;
+import jenkins.scm.api.trait.SCMSourceTrait;
+import jenkins.scm.api.trait.SCMSourceTraitDescriptor;
+import jenkins.scm.impl.trait.Selection;
+import org.apache.commons.lang.StringUtils;
+import org.jenkinsci.Symbol;
+import org.kohsuke.stapler.DataBoundConstructor;
+
+/**
+ * A {@link SCMSourceTrait} that configures the commit message markers that make the webhook subscriber drop a push
+ * rather than trigger a build. Without this trait, no push is dropped because of its commit messages. Pushes that
+ * create or delete a branch are never dropped.
+ *
+ * @since 2.9.2
+ */
+public class SkipCommitMessageTrait extends SCMSourceTrait {
+
+    /**
+     * The markers, one per line.
+     */
+    @NonNull
+    private final String markers;
+
+    /**
+     * {@code true} to only check the message of the head commit.
+     */
+    private final boolean headCommitOnly;
+
+    /**
+     * The compiled markers.
+     */
+    @CheckForNull
+    private transient volatile SkipCommitMessageFilter filter;
+
+    /**
+     * Constructor for stapler.
+     *
+     * @param markers        the markers, one per line, blank to never drop a push.
+     * @param headCommitOnly {@code true} to only check the message of the head commit, {@code false} to require
+     *                       every commit of the push to be marked.
+     */
+    @DataBoundConstructor
+    public SkipCommitMessageTrait(@CheckForNull String markers, boolean headCommitOnly) {
+        this.markers = StringUtils.defaultString(markers).trim();
+        this.headCommitOnly = headCommitOnly;
+    }
+
+    /**
+     * Returns the markers.
+     *
+     * @return the markers, one per line.
+     */
+    @NonNull
+    public String getMarkers() {
+        return markers;
+    }
+
+    /**
+     * Returns {@code true} if only the message of the head commit is checked.
+     *
+     * @return {@code true} if only the message of the head commit is checked.
+     */
+    public boolean isHeadCommitOnly() {
+        return headCommitOnly;
+    }
+
+    /**
+     * Returns the compiled markers.
+     *
+     * @return the compiled markers.
+     */
+    @NonNull
+    SkipCommitMessageFilter getFilter() {
+        SkipCommitMessageFilter filter = this.filter;
+        if (filter == null) {
+            filter = new SkipCommitMessageFilter(markers, headCommitOnly);
+            this.filter = filter;
+        }
+        return filter;
+    }
+
+    /**
+     * Our descriptor.
+     */
+    @Symbol("gitHubSkipCommitMessage")
+    @Extension
+    @Selection
+    public static class DescriptorImpl extends SCMSourceTraitDescriptor {
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String getDisplayName() {
+            return Messages.SkipCommitMessageTrait_displayName();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Class<? extends SCMSourceContext> getContextClass() {
+            return GitHubSCMSourceContext.class;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Class<? extends SCMSource> getSourceClass() {
+            return GitHubSCMSource.class;
+        }
+
+        /**
+         * Returns the default markers.
+         *
+         * @return the default markers, one per line.
+         */
+        @NonNull
+        public String getDefaultMarkers() {
+            return SkipCommitMessageFilter.DEFAULT_MARKERS;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.github_branch_source;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+import jenkins.scm.api.SCMHead;
+import jenkins.scm.api.SCMSource;
+import jenkins.scm.api.trait.SCMHeadPrefilter;
+import jenkins.scm.api.trait.SCMSourceContext;
+import jenkins.scm.api.trait.SCMSourceTrait;
+import jenkins.scm.api.trait.SCMSourceTraitDescriptor;
+import jenkins.scm.impl.trait.Selection;
+import org.apache.commons.lang.StringUtils;
+import org.jenkinsci.Symbol;
+import org.kohsuke.stapler.DataBoundConstructor;
+
+/**
+ * A {@link SCMSourceTrait} that only discovers the pull requests targeting some branches. Pull requests targeting
+ * other branches are not even listed when the branches are named exactly, so they cost no API calls.
+ *
+ * @since 2.9.2
+ */
+public class TargetBranchFilterTrait extends SCMSourceTrait {
+
+    /**
+     * The space separated names or {@code *} wildcards of the target branches.
+     */
+    @NonNull
+    private final String targets;
+
+    /**
+     * Constructor for stapler.
+     *
+     * @param targets the space separated names or {@code *} wildcards of the target branches.
+     */
+    @DataBoundConstructor
+    public TargetBranchFilterTrait(@CheckForNull String targets) {
+        this.targets = StringUtils.defaultString(targets).trim();
+    }
+
+    /**
+     * Returns the names or wildcards of the target branches.
+     *
+     * @return the space separated names or {@code *} wildcards of the target branches.
+     */
+    @NonNull
+    public String getTargets() {
+        return targets;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void decorateContext(SCMSourceContext<?, ?> context) {
+        final Set<String> targets = split(this.targets);
+        if (targets.isEmpty()) {
+            return;
+        }
+        ((GitHubSCMSourceContext) context).withPullRequestTargets(targets);
+        context.withPrefilter(new SCMHeadPrefilter() {
+            @Override
+            public boolean isExcluded(@NonNull SCMSource source, @NonNull SCMHead head) {
+                return head instanceof PullRequestSCMHead
+                        && !matches(targets, ((PullRequestSCMHead) head).getTarget().getName());
+            }
+        });
+    }
+
+    /**
+     * Splits space separated names or wildcards.
+     *
+     * @param targets the space separated names or wildcards.
+     * @return the names or wildcards.
+     */
+    @NonNull
+    static Set<String> split(@CheckForNull String targets) {
+        if (StringUtils.isBlank(targets)) {
+            return Collections.emptySet();
+        }
+        return new TreeSet<>(Arrays.asList(targets.trim().split("\\s+")));
+    }
+
+    /**
+     * Checks if a name is matched by any of some names or wildcards.
+     *
+     * @param targets the names or {@code *} wildcards.
+     * @param name    the branch name.
+     * @return {@code true} if the name is matched.
+     */
+    static boolean matches(@NonNull Collection<String> targets, @NonNull String name) {
+        for (String target : targets) {
+            if (isWildcard(target) ? toPattern(target).matcher(name).matches() : target.equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if a target is a wildcard rather than a branch name.
+     *
+     * @param target the name or wildcard.
+     * @return {@code true} if the target is a wildcard.
+     */
+    static boolean isWildcard(@NonNull String target) {
+        return target.indexOf('*') != -1;
+    }
+
+    private static Pattern toPattern(String wildcard) {
+        StringBuilder regex = new StringBuilder();
+        String[] parts = wildcard.split("\\*", -1);
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) {
+                regex.append(".*");
+            }
+            if (!parts[i].isEmpty()) {
+                regex.append(Pattern.quote(parts[i]));
+            }
+        }
+        return Pattern.compile(regex.toString());
+    }
+
+    /**
+     * Our descriptor.
+     */
+    @Symbol("gitHubTargetBranchFilter")
+    @Extension
+    @Selection
+    public static class DescriptorImpl extends SCMSourceTraitDescriptor {
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String getDisplayName() {
+            return Messages.TargetBranchFilterTrait_displayName();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Class<? extends SCMSourceContext> getContextClass() {
+            return GitHubSCMSourceContext.class;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Class<? extends SCMSource> getSourceClass() {
+            return GitHubSCMSource.class;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.github_branch_source;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.apache.commons.lang.StringUtils;
+import org.kohsuke.github.GHOrganization;
+import org.kohsuke.github.GHRepository;
+
+/**
+ * Caches the names of the repositories of each team, keyed by endpoint, organization and team slug, so that checking
+ * if a single repository is visible to a team does not require paging through all of the team's repositories.
+ * <p>
+ * Entries expire after {@link #getTtlSeconds()} and are invalidated when a team, membership or repository event is
+ * received for the organization. When the connection has a response cache the reload after expiry is a conditional
+ * request that GitHub answers with {@code 304 Not Modified}.
+ */
+final class TeamRepositoryCache {
+
+    /**
+     * Our logger.
+     */
+    private static final Logger LOGGER = Logger.getLogger(TeamRepositoryCache.class.getName());
+
+    /**
+     * How long to retain the repositories of a team.
+     */
+    private static final long TTL_SECONDS = Math.max(0,
+            Long.getLong(GitHubSCMNavigator.class.getName() + ".teamRepositoryCacheSeconds", 300L));
+
+    /**
+     * The cache.
+     */
+    private static final TimedCache<Key, Set<String>> CACHE =
+            new TimedCache<>(TimeUnit.SECONDS.toMillis(TTL_SECONDS), 256);
+
+    private TeamRepositoryCache() {
+        throw new IllegalAccessError("Utility class");
+    }
+
+    /**
+     * Returns the number of seconds that the repositories of a team are cached for.
+     *
+     * @return the number of seconds that the repositories of a team are cached for.
+     */
+    static long getTtlSeconds() {
+        return TTL_SECONDS;
+    }
+
+    /**
+     * Checks if the repository is visible to the team.
+     *
+     * @param apiUri   the API endpoint.
+     * @param org      the organization.
+     * @param repo     the repository.
+     * @param teamSlug the team slug.
+     * @return {@code true} if the repository is visible to the team.
+     * @throws IOException if the team's repositories could not be listed.
+     */
+    static boolean isVisibleToTeam(@CheckForNull String apiUri, @NonNull GHOrganization org,
+                                   @NonNull GHRepository repo, @NonNull String teamSlug) throws IOException {
+        Key key = new Key(apiUri, org.getLogin(), teamSlug);
+        Set<String> names = CACHE.get(key);
+        if (names == null) {
+            names = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+            for (GHRepository item : org.getTeamBySlug(teamSlug).listRepositories().withPageSize(100)) {
+                names.add(item.getName());
+            }
+            names = Collections.unmodifiableSet(names);
+            CACHE.put(key, names);
+        }
+        return names.contains(repo.getName());
+    }
+
+    /**
+     * Records the repositories of a team that were listed in full.
+     *
+     * @param apiUri   the API endpoint.
+     * @param org      the organization.
+     * @param teamSlug the team slug.
+     * @param names    the names of all the team's repositories.
+     */
+    static void put(@CheckForNull String apiUri, @NonNull String org, @NonNull String teamSlug,
+                    @NonNull Collection<String> names) {
+        Set<String> copy = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        copy.addAll(names);
+        CACHE.put(new Key(apiUri, org, teamSlug), Collections.unmodifiableSet(copy));
+    }
+
+    /**
+     * Invalidates the cached repositories of the organization's teams.
+     *
+     * @param org      the organization.
+     * @param teamSlug the team slug or {@code null} to invalidate all the organization's teams.
+     */
+    static void invalidate(@NonNull final String org, @CheckForNull final String teamSlug) {
+        int count = CACHE.invalidateIf(key -> key.org.equalsIgnoreCase(org)
+                && (teamSlug == null || key.teamSlug.equalsIgnoreCase(teamSlug)));
+        LOGGER.log(Level.FINE, "Invalidated {0} cached team repository lists for {1}/{2}",
+                new Object[]{count, org, teamSlug == null ? "*" : teamSlug});
+    }
+
+    /**
+     * The cache key.
+     */
+    private static final class Key {
+        private final String apiUri;
+        private final String org;
+        private final String teamSlug;
+
+        Key(@CheckForNull String apiUri, @NonNull String org, @NonNull String teamSlug) {
+            this.apiUri = StringUtils.defaultIfBlank(apiUri, GitHubSCMSource.GITHUB_URL);
+            this.org = org.toLowerCase(Locale.ENGLISH);
+            this.teamSlug = teamSlug.toLowerCase(Locale.ENGLISH);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return apiUri.equals(key.apiUri) && org.equals(key.org) && teamSlug.equals(key.teamSlug);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = apiUri.hashCode();
+            result = 31 * result + org.hashCode();
+            result = 31 * result + teamSlug.hashCode();
+            return result;
+        }
+    }
+}
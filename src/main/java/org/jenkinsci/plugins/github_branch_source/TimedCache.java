@@ -0,0 +1,188 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.github_branch_source;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import net.jcip.annotations.GuardedBy;
+
+/**
+ * A small least recently used cache where each entry expires a fixed time after it was stored.
+ * Used to keep details that are expensive to fetch from GitHub across scans and events.
+ *
+ * @param <K> the type of key.
+ * @param <V> the type of value.
+ */
+final class TimedCache<K, V> {
+
+    /**
+     * The time to live of each entry in milliseconds.
+     */
+    private final long ttlMillis;
+
+    /**
+     * The clock.
+     */
+    @NonNull
+    private final LongSupplier clock;
+
+    /**
+     * The entries in access order.
+     */
+    @GuardedBy("this")
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    /**
+     * Constructor.
+     *
+     * @param ttlMillis  the time to live of each entry in milliseconds.
+     * @param maxEntries the maximum number of entries to retain.
+     */
+    TimedCache(long ttlMillis, int maxEntries) {
+        this(ttlMillis, maxEntries, System::currentTimeMillis);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param ttlMillis  the time to live of each entry in milliseconds.
+     * @param maxEntries the maximum number of entries to retain.
+     * @param clock      the source of the current time in milliseconds.
+     */
+    TimedCache(long ttlMillis, final int maxEntries, @NonNull LongSupplier clock) {
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns the value for the key if present and not expired.
+     *
+     * @param key the key.
+     * @return the value or {@code null}.
+     */
+    @CheckForNull
+    synchronized V get(@NonNull K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expires - clock.getAsLong() <= 0) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.value;
+    }
+
+    /**
+     * Stores the value for the key.
+     *
+     * @param key   the key.
+     * @param value the value.
+     */
+    synchronized void put(@NonNull K key, @NonNull V value) {
+        if (ttlMillis > 0) {
+            entries.put(key, new Entry<>(value, clock.getAsLong() + ttlMillis));
+        }
+    }
+
+    /**
+     * Removes the value for the key.
+     *
+     * @param key the key.
+     */
+    synchronized void invalidate(@NonNull K key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Removes the value for the key and returns it if it had not expired.
+     *
+     * @param key the key.
+     * @return the value or {@code null}.
+     */
+    @CheckForNull
+    synchronized V remove(@NonNull K key) {
+        Entry<V> entry = entries.remove(key);
+        return entry == null || entry.expires - clock.getAsLong() <= 0 ? null : entry.value;
+    }
+
+    /**
+     * Removes the values for all keys matching the predicate.
+     *
+     * @param predicate the predicate.
+     * @return the number of entries removed.
+     */
+    synchronized int invalidateIf(@NonNull Predicate<? super K> predicate) {
+        int count = 0;
+        for (Iterator<K> iterator = entries.keySet().iterator(); iterator.hasNext(); ) {
+            if (predicate.test(iterator.next())) {
+                iterator.remove();
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Removes all values.
+     */
+    synchronized void invalidateAll() {
+        entries.clear();
+    }
+
+    /**
+     * Returns the number of entries, including any that have expired but not yet been evicted.
+     *
+     * @return the number of entries.
+     */
+    synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * A cached value.
+     *
+     * @param <V> the type of value.
+     */
+    private static final class Entry<V> {
+        private final V value;
+        private final long expires;
+
+        Entry(V value, long expires) {
+            this.value = value;
+            this.expires = expires;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.github_branch_source;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import jenkins.scm.api.metadata.ContributorMetadataAction;
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * Caches the name and email of users, keyed by endpoint and login, so that scans of the pull requests of every
+ * repository do not each fetch the profiles of the same authors.
+ * <p>
+ * Entries expire after {@link #getTtlSeconds()}, after which a changed name or email is picked up by the next scan.
+ */
+final class UserProfileCache {
+
+    /**
+     * How long to retain the profile of a user.
+     */
+    private static final long TTL_SECONDS = Math.max(0,
+            Long.getLong(GitHubSCMSource.class.getName() + ".userProfileCacheSeconds", 3600L));
+
+    /**
+     * The cache.
+     */
+    private static final TimedCache<String, Profile> CACHE =
+            new TimedCache<>(TimeUnit.SECONDS.toMillis(TTL_SECONDS), 5000);
+
+    private UserProfileCache() {
+        throw new IllegalAccessError("Utility class");
+    }
+
+    /**
+     * Returns the number of seconds that the profile of a user is cached for.
+     *
+     * @return the number of seconds that the profile of a user is cached for.
+     */
+    static long getTtlSeconds() {
+        return TTL_SECONDS;
+    }
+
+    /**
+     * Returns the cached profile of a user.
+     *
+     * @param apiUri the API endpoint.
+     * @param login  the login of the user.
+     * @return the profile or {@code null} if not cached.
+     */
+    @CheckForNull
+    static Profile get(@CheckForNull String apiUri, @NonNull String login) {
+        return CACHE.get(key(apiUri, login));
+    }
+
+    /**
+     * Records the profile of a user.
+     *
+     * @param apiUri the API endpoint.
+     * @param login  the login of the user.
+     * @param name   the name of the user.
+     * @param email  the public email of the user.
+     * @return the profile.
+     */
+    @NonNull
+    static Profile put(@CheckForNull String apiUri, @NonNull String login, @CheckForNull String name,
+                       @CheckForNull String email) {
+        Profile profile = new Profile(login, name, email);
+        CACHE.put(key(apiUri, login), profile);
+        return profile;
+    }
+
+    /**
+     * Records the profile of a user from the contributor of a pull request, when it is the same user.
+     *
+     * @param apiUri the API endpoint.
+     * @param login  the login of the user.
+     * @param action the contributor of the pull request as last looked up, if any.
+     * @return the profile or {@code null} if the action does not describe the user.
+     */
+    @CheckForNull
+    static Profile put(@CheckForNull String apiUri, @NonNull String login,
+                       @CheckForNull ContributorMetadataAction action) {
+        if (action == null || !login.equals(action.getContributor())) {
+            return null;
+        }
+        return put(apiUri, login, action.getContributorDisplayName(), action.getContributorEmail());
+    }
+
+    private static String key(@CheckForNull String apiUri, @NonNull String login) {
+        return StringUtils.defaultIfBlank(apiUri, GitHubSCMSource.GITHUB_URL) + "::" + login.toLowerCase(Locale.ENGLISH);
+    }
+
+    /**
+     * The profile of a user.
+     */
+    static final class Profile {
+        @NonNull
+        private final String login;
+        @CheckForNull
+        private final String name;
+        @CheckForNull
+        private final String email;
+
+        Profile(@NonNull String login, @CheckForNull String name, @CheckForNull String email) {
+            this.login = login;
+            this.name = name;
+            this.email = email;
+        }
+
+        /**
+         * Checks if an action describes this profile.
+         *
+         * @param action the action.
+         * @return {@code true} if the action has the same login, name and email.
+         */
+        boolean isDescribedBy(@CheckForNull ContributorMetadataAction action) {
+            return action != null
+                    && login.equals(action.getContributor())
+                    && Objects.equals(name, action.getContributorDisplayName())
+                    && Objects.equals(email, action.getContributorEmail());
+        }
+
+        /**
+         * Creates the action describing this profile.
+         *
+         * @return the action.
+         */
+        @NonNull
+        ContributorMetadataAction toAction() {
+            return new ContributorMetadataAction(login, name, email);
+        }
+    }
+}
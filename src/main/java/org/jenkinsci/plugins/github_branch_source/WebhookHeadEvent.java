@@ -0,0 +1,51 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.github_branch_source;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+
+/**
+ * A head event fired for webhook deliveries, telling a {@link GitHubSCMSource} whether the revisions it reports can
+ * be used instead of asking GitHub for the current revisions of its heads.
+ *
+ * @see GitHubConfiguration#isWebhookPayloadTrusted()
+ */
+interface WebhookHeadEvent {
+
+    /**
+     * Checks if this event stands for a delivery replayed from the {@link EventJournal} when Jenkins started, whose
+     * revisions may have been superseded while Jenkins was stopped.
+     *
+     * @return {@code true} if any of the deliveries this event stands for was replayed.
+     */
+    boolean isReplayed();
+
+    /**
+     * Returns the revision of the changed head before the first of the deliveries that this event stands for.
+     *
+     * @return the commit hash or {@code null} if the deliveries do not report it or the head did not exist.
+     */
+    @CheckForNull
+    String getBeforeHash();
+}
@@ -0,0 +1,588 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2020, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkinsci.plugins.github_branch_source;
+
+import com.cloudbees.jenkins.GitHubRepositoryName;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The fields of a webhook payload that the event subscribers need, both to decide whether an event is of any interest
+ * and to report the heads of the event, read with a streaming parser that skips everything else, such as the authors
+ * of the commits of a push or the body of a pull request, without building an object graph for them.
+ * <p>
+ * This is the {@link jenkins.scm.api.SCMEvent#getPayload() payload} of the push, pull request and repository events
+ * fired by this plugin. Earlier versions fired the events with a {@link org.kohsuke.github.GHEventPayload.Push},
+ * {@link org.kohsuke.github.GHEventPayload.PullRequest} or {@link org.kohsuke.github.GHEventPayload.Repository}
+ * payload, so listeners that cast the payload to those types need to read the fields from this class instead.
+ *
+ * @since 2.9.2
+ */
+public final class WebhookPayloadSummary {
+
+    /**
+     * The factory of the streaming parsers.
+     */
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    /**
+     * The paths of the objects that contain fields we read, all other objects and arrays are skipped.
+     */
+    private static final Set<String> OBJECTS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            "repository", "repository.owner", "pull_request", "pull_request.head", "pull_request.head.user",
+            "pull_request.head.repo", "pull_request.head.repo.owner", "pull_request.base", "pull_request.base.repo"
+    )));
+
+    /**
+     * The arrays of a pushed commit that list the paths it changed.
+     */
+    private static final Set<String> PATHS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            "added", "modified", "removed"
+    )));
+
+    @CheckForNull
+    private final String action;
+    @CheckForNull
+    private final String ref;
+    @CheckForNull
+    private final String before;
+    @CheckForNull
+    private final String after;
+    private final boolean created;
+    private final boolean deleted;
+    private final boolean forced;
+    @NonNull
+    private final List<Commit> commits;
+    private final int number;
+    @CheckForNull
+    private final String repositoryOwner;
+    @CheckForNull
+    private final String repositoryName;
+    @CheckForNull
+    private final String repositoryUrl;
+    private final boolean repositoryFork;
+    @CheckForNull
+    private final String pullRequestHeadSha;
+    @CheckForNull
+    private final String pullRequestHeadRef;
+    @CheckForNull
+    private final String pullRequestHeadUser;
+    @CheckForNull
+    private final String pullRequestSourceOwner;
+    @CheckForNull
+    private final String pullRequestSourceRepository;
+    @CheckForNull
+    private final String pullRequestSourceFullName;
+    @CheckForNull
+    private final String pullRequestBaseSha;
+    @CheckForNull
+    private final String pullRequestBaseRef;
+    @CheckForNull
+    private final String pullRequestBaseRepository;
+
+    private WebhookPayloadSummary(Builder builder) {
+        this.action = builder.action;
+        this.ref = builder.ref;
+        this.before = builder.before;
+        this.after = builder.after;
+        this.created = builder.created;
+        this.deleted = builder.deleted;
+        this.forced = builder.forced;
+        this.commits = Collections.unmodifiableList(builder.commits);
+        this.number = builder.number;
+        this.repositoryOwner = builder.ownerLogin != null ? builder.ownerLogin : builder.ownerName;
+        this.repositoryName = builder.repositoryName;
+        this.repositoryUrl = builder.repositoryUrl;
+        this.repositoryFork = builder.repositoryFork;
+        this.pullRequestHeadSha = builder.pullRequestHeadSha;
+        this.pullRequestHeadRef = builder.pullRequestHeadRef;
+        this.pullRequestHeadUser = builder.pullRequestHeadUser;
+        this.pullRequestSourceOwner = builder.pullRequestSourceOwner;
+        this.pullRequestSourceRepository = builder.pullRequestSourceRepository;
+        this.pullRequestSourceFullName = builder.pullRequestSourceFullName;
+        this.pullRequestBaseSha = builder.pullRequestBaseSha;
+        this.pullRequestBaseRef = builder.pullRequestBaseRef;
+        this.pullRequestBaseRepository = builder.pullRequestBaseRepository;
+    }
+
+    /**
+     * Reads the summary of a webhook payload.
+     *
+     * @param payload the payload.
+     * @return the summary.
+     * @throws IOException if the payload is not a JSON object.
+     */
+    @NonNull
+    static WebhookPayloadSummary parse(@NonNull String payload) throws IOException {
+        try (JsonParser parser = FACTORY.createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("The payload is not a JSON object");
+            }
+            Builder builder = new Builder();
+            read(parser, "", builder);
+            return new WebhookPayloadSummary(builder);
+        }
+    }
+
+    private static void read(JsonParser parser, String path, Builder builder) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            String field = path.isEmpty() ? name : path + '.' + name;
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_OBJECT && OBJECTS.contains(field)) {
+                read(parser, field, builder);
+            } else if (token == JsonToken.START_ARRAY && "commits".equals(field)) {
+                readCommits(parser, builder.commits);
+            } else if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+                parser.skipChildren();
+            } else if (token != null && token.isScalarValue()) {
+                builder.set(field, parser);
+            }
+        }
+    }
+
+    private static void readCommits(JsonParser parser, List<Commit> commits) throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != null && token != JsonToken.END_ARRAY) {
+            if (token != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            String sha = null;
+            String message = null;
+            List<String> paths = new ArrayList<>();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if (value == JsonToken.START_ARRAY && PATHS.contains(name)) {
+                    while ((value = parser.nextToken()) != null && value != JsonToken.END_ARRAY) {
+                        if (value == JsonToken.VALUE_STRING) {
+                            paths.add(parser.getText());
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                } else if (value == JsonToken.START_OBJECT || value == JsonToken.START_ARRAY) {
+                    parser.skipChildren();
+                } else if ("id".equals(name)) {
+                    sha = parser.getValueAsString();
+                } else if ("message".equals(name)) {
+                    message = parser.getValueAsString();
+                }
+            }
+            commits.add(new Commit(sha, message, paths));
+        }
+    }
+
+    /**
+     * Returns the action of the event, if any.
+     *
+     * @return the action.
+     */
+    @CheckForNull
+    public String getAction() {
+        return action;
+    }
+
+    /**
+     * Returns the ref pushed to, if a push.
+     *
+     * @return the ref.
+     */
+    @CheckForNull
+    public String getRef() {
+        return ref;
+    }
+
+    /**
+     * Returns the commit hash of the ref before the push, if a push.
+     *
+     * @return the commit hash.
+     */
+    @CheckForNull
+    public String getBefore() {
+        return before;
+    }
+
+    /**
+     * Returns the commit hash of the ref after the push, if a push.
+     *
+     * @return the commit hash.
+     */
+    @CheckForNull
+    public String getAfter() {
+        return after;
+    }
+
+    /**
+     * Returns {@code true} if the push created the ref.
+     *
+     * @return {@code true} if the push created the ref.
+     */
+    public boolean isCreated() {
+        return created;
+    }
+
+    /**
+     * Returns {@code true} if the push deleted the ref.
+     *
+     * @return {@code true} if the push deleted the ref.
+     */
+    public boolean isDeleted() {
+        return deleted;
+    }
+
+    /**
+     * Returns {@code true} if the push was forced, i.e. the previous revision may no longer be reachable.
+     *
+     * @return {@code true} if the push was forced.
+     */
+    public boolean isForced() {
+        return forced;
+    }
+
+    /**
+     * Returns the commits listed by the push, oldest first, if a push. GitHub lists at most 20 commits.
+     *
+     * @return the commits.
+     */
+    @NonNull
+    public List<Commit> getCommits() {
+        return commits;
+    }
+
+    /**
+     * Returns the pull request number, if a pull request event.
+     *
+     * @return the pull request number or {@code 0}.
+     */
+    public int getNumber() {
+        return number;
+    }
+
+    /**
+     * Returns the login of the repository owner.
+     *
+     * @return the login of the repository owner.
+     */
+    @CheckForNull
+    public String getRepositoryOwner() {
+        return repositoryOwner;
+    }
+
+    /**
+     * Returns the repository name.
+     *
+     * @return the repository name.
+     */
+    @CheckForNull
+    public String getRepositoryName() {
+        return repositoryName;
+    }
+
+    /**
+     * Returns the HTML URL of the repository.
+     *
+     * @return the HTML URL of the repository.
+     */
+    @CheckForNull
+    public String getRepositoryUrl() {
+        return repositoryUrl;
+    }
+
+    /**
+     * Returns {@code true} if the repository is a fork.
+     *
+     * @return {@code true} if the repository is a fork.
+     */
+    public boolean isRepositoryFork() {
+        return repositoryFork;
+    }
+
+    /**
+     * Returns the head commit hash of the pull request, if a pull request event.
+     *
+     * @return the head commit hash.
+     */
+    @CheckForNull
+    public String getPullRequestHeadSha() {
+        return pullRequestHeadSha;
+    }
+
+    /**
+     * Returns the name of the branch the pull request is from, if a pull request event.
+     *
+     * @return the name of the source branch.
+     */
+    @CheckForNull
+    public String getPullRequestHeadRef() {
+        return pullRequestHeadRef;
+    }
+
+    /**
+     * Returns the login of the owner of the head of the pull request, if a pull request event.
+     *
+     * @return the login of the owner of the head.
+     */
+    @CheckForNull
+    public String getPullRequestHeadUser() {
+        return pullRequestHeadUser;
+    }
+
+    /**
+     * Returns the login of the owner of the repository the pull request is from, if a pull request event.
+     *
+     * @return the login of the source owner or {@code null} if the source repository was deleted.
+     */
+    @CheckForNull
+    public String getPullRequestSourceOwner() {
+        return pullRequestSourceOwner;
+    }
+
+    /**
+     * Returns the name of the repository the pull request is from, if a pull request event.
+     *
+     * @return the name of the source repository or {@code null} if it was deleted.
+     */
+    @CheckForNull
+    public String getPullRequestSourceRepository() {
+        return pullRequestSourceRepository;
+    }
+
+    /**
+     * Returns the full name of the repository the pull request is from, if a pull request event.
+     *
+     * @return the full name of the source repository or {@code null} if it was deleted.
+     */
+    @CheckForNull
+    public String getPullRequestSourceFullName() {
+        return pullRequestSourceFullName;
+    }
+
+    /**
+     * Returns the base commit hash of the pull request, if a pull request event.
+     *
+     * @return the base commit hash.
+     */
+    @CheckForNull
+    public String getPullRequestBaseSha() {
+        return pullRequestBaseSha;
+    }
+
+    /**
+     * Returns the name of the branch the pull request targets, if a pull request event.
+     *
+     * @return the name of the target branch.
+     */
+    @CheckForNull
+    public String getPullRequestBaseRef() {
+        return pullRequestBaseRef;
+    }
+
+    /**
+     * Returns the name of the repository the pull request targets, if a pull request event.
+     *
+     * @return the name of the target repository.
+     */
+    @CheckForNull
+    public String getPullRequestBaseRepository() {
+        return pullRequestBaseRepository;
+    }
+
+    /**
+     * Checks if any item is interested in events for the repository of the payload.
+     *
+     * @return {@code true} if an item is interested, or if the repository could not be determined, in which case
+     * the full payload is left to report the problem.
+     * @see EventRoutingIndex#isRouted(String, String, String)
+     */
+    boolean isRouted() {
+        if (repositoryUrl == null || repositoryOwner == null || repositoryName == null) {
+            return true;
+        }
+        GitHubRepositoryName repo = GitHubRepositoryName.create(repositoryUrl);
+        return repo == null || EventRoutingIndex.isRouted(repo.getHost(), repositoryOwner, repositoryName);
+    }
+
+    /**
+     * A commit listed by a push.
+     */
+    public static final class Commit {
+        @CheckForNull
+        private final String sha;
+        @CheckForNull
+        private final String message;
+        @NonNull
+        private final List<String> paths;
+
+        Commit(@CheckForNull String sha, @CheckForNull String message, @NonNull List<String> paths) {
+            this.sha = sha;
+            this.message = message;
+            this.paths = Collections.unmodifiableList(paths);
+        }
+
+        /**
+         * Returns the hash of the commit.
+         *
+         * @return the hash of the commit.
+         */
+        @CheckForNull
+        public String getSha() {
+            return sha;
+        }
+
+        /**
+         * Returns the message of the commit.
+         *
+         * @return the message of the commit.
+         */
+        @CheckForNull
+        public String getMessage() {
+            return message;
+        }
+
+        /**
+         * Returns the paths that the commit added, modified or removed.
+         *
+         * @return the changed paths.
+         */
+        @NonNull
+        public List<String> getPaths() {
+            return paths;
+        }
+    }
+
+    /**
+     * Collects the fields while parsing.
+     */
+    private static final class Builder {
+        private final List<Commit> commits = new ArrayList<>();
+        private String action;
+        private String ref;
+        private String before;
+        private String after;
+        private boolean created;
+        private boolean deleted;
+        private boolean forced;
+        private int number;
+        private String ownerLogin;
+        private String ownerName;
+        private String repositoryName;
+        private String repositoryUrl;
+        private boolean repositoryFork;
+        private String pullRequestHeadSha;
+        private String pullRequestHeadRef;
+        private String pullRequestHeadUser;
+        private String pullRequestSourceOwner;
+        private String pullRequestSourceRepository;
+        private String pullRequestSourceFullName;
+        private String pullRequestBaseSha;
+        private String pullRequestBaseRef;
+        private String pullRequestBaseRepository;
+
+        void set(String field, JsonParser parser) throws IOException {
+            switch (field) {
+                case "action":
+                    action = parser.getValueAsString();
+                    break;
+                case "ref":
+                    ref = parser.getValueAsString();
+                    break;
+                case "before":
+                    before = parser.getValueAsString();
+                    break;
+                case "after":
+                    after = parser.getValueAsString();
+                    break;
+                case "created":
+                    created = parser.getValueAsBoolean();
+                    break;
+                case "deleted":
+                    deleted = parser.getValueAsBoolean();
+                    break;
+                case "forced":
+                    forced = parser.getValueAsBoolean();
+                    break;
+                case "number":
+                    number = parser.getValueAsInt();
+                    break;
+                case "repository.owner.login":
+                    ownerLogin = parser.getValueAsString();
+                    break;
+                case "repository.owner.name":
+                    ownerName = parser.getValueAsString();
+                    break;
+                case "repository.name":
+                    repositoryName = parser.getValueAsString();
+                    break;
+                case "repository.html_url":
+                    repositoryUrl = parser.getValueAsString();
+                    break;
+                case "repository.fork":
+                    repositoryFork = parser.getValueAsBoolean();
+                    break;
+                case "pull_request.head.sha":
+                    pullRequestHeadSha = parser.getValueAsString();
+                    break;
+                case "pull_request.head.ref":
+                    pullRequestHeadRef = parser.getValueAsString();
+                    break;
+                case "pull_request.head.user.login":
+                    pullRequestHeadUser = parser.getValueAsString();
+                    break;
+                case "pull_request.head.repo.owner.login":
+                    pullRequestSourceOwner = parser.getValueAsString();
+                    break;
+                case "pull_request.head.repo.name":
+                    pullRequestSourceRepository = parser.getValueAsString();
+                    break;
+                case "pull_request.head.repo.full_name":
+                    pullRequestSourceFullName = parser.getValueAsString();
+                    break;
+                case "pull_request.base.sha":
+                    pullRequestBaseSha = parser.getValueAsString();
+                    break;
+                case "pull_request.base.ref":
+                    pullRequestBaseRef = parser.getValueAsString();
+                    break;
+                case "pull_request.base.repo.name":
+                    pullRequestBaseRepository = parser.getValueAsString();
+                    break;
+                default:
+                    // not needed
+                    break;
+            }
+        }
+    }
+}
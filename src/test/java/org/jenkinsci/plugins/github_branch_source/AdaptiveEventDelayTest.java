@@ -0,0 +1,182 @@
+package org.jenkinsci.plugins.github_branch_source;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.scm.SCM;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import jenkins.plugins.git.AbstractGitSCMSource;
+import jenkins.scm.api.SCMEvent;
+import jenkins.scm.api.SCMHead;
+import jenkins.scm.api.SCMHeadEvent;
+import jenkins.scm.api.SCMNavigator;
+import jenkins.scm.api.SCMRevision;
+import jenkins.scm.api.SCMSource;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+
+public class AdaptiveEventDelayTest {
+
+    private static final String SHA = "0d1a26e67d8f5eaf1f6ba5c57fc3c7d91ac0fd1c";
+
+    private static final String BEFORE = "8f1314fc3c8284d8c6d5886d473db98f2126071c";
+
+    private static final String LATER = "095e69602bb95a278505e937e41d505ac3cdd263";
+
+    private final int defaultDelay = GitHubSCMSource.getEventDelaySeconds();
+
+    @After
+    public void tearDown() {
+        AdaptiveEventDelay.setEnabled(false);
+        GitHubSCMSource.setEventDelaySeconds(defaultDelay);
+    }
+
+    @Test
+    public void initialDelay() {
+        GitHubSCMSource.setEventDelaySeconds(5);
+        assertThat(AdaptiveEventDelay.getInitialDelaySeconds(), is(5));
+        AdaptiveEventDelay.setEnabled(true);
+        assertThat(AdaptiveEventDelay.getInitialDelaySeconds(), is(2));
+        GitHubSCMSource.setEventDelaySeconds(1);
+        assertThat(AdaptiveEventDelay.getInitialDelaySeconds(), is(1));
+    }
+
+    @Test
+    public void effectiveDelayIsMovingAveragePerEndpoint() {
+        String apiUri = "https://github.example.com/api/v3";
+        assertThat(AdaptiveEventDelay.getEffectiveDelayMillis(apiUri), is(-1L));
+        AdaptiveEventDelay.record(apiUri, 0);
+        assertThat(AdaptiveEventDelay.getEffectiveDelayMillis(apiUri), is(0L));
+        AdaptiveEventDelay.record(apiUri, 2000);
+        assertThat(AdaptiveEventDelay.getEffectiveDelayMillis(apiUri), is(500L));
+        AdaptiveEventDelay.record(apiUri, 500);
+        assertThat(AdaptiveEventDelay.getEffectiveDelayMillis(apiUri), is(500L));
+        assertThat(GitHubSCMSource.getEffectiveEventDelayMillis(apiUri), is(500L));
+        assertThat(AdaptiveEventDelay.getEffectiveDelayMillis("https://other.example.com/api/v3"), is(-1L));
+    }
+
+    @Test
+    public void settledImmediatelyWhenDisabled() throws Exception {
+        List<String> settled = new ArrayList<>();
+        AdaptiveEventDelay.whenSettled(new PushEvent(), () -> settled.add("fired"));
+        assertThat(settled, contains("fired"));
+    }
+
+    @Test
+    public void settledOnceTheApiCaughtUp() throws Exception {
+        AdaptiveEventDelay.setEnabled(true);
+        GitHubSCMSource.setEventDelaySeconds(60);
+        PushEvent event = new PushEvent();
+        List<String> settled = new ArrayList<>();
+        AdaptiveEventDelay.whenSettled(event, () -> settled.add("first"));
+        assertThat(settled.isEmpty(), is(true));
+
+        AdaptiveEventDelay.Check check = AdaptiveEventDelay.check(event, mock(GitHubSCMSource.class));
+        check.branch("master", SHA);
+        check.complete();
+        assertThat(settled, contains("first"));
+
+        AdaptiveEventDelay.whenSettled(event, () -> settled.add("later"));
+        assertThat(settled, contains("first", "later"));
+    }
+
+    @Test
+    public void staleWhileTheApiReportsThePreviousRevision() throws Exception {
+        AdaptiveEventDelay.setEnabled(true);
+        GitHubSCMSource.setEventDelaySeconds(60);
+        PushEvent event = new PushEvent(SCMEvent.Type.UPDATED, BEFORE);
+        List<String> settled = new ArrayList<>();
+        AdaptiveEventDelay.whenSettled(event, () -> settled.add("fired"));
+
+        AdaptiveEventDelay.Check check = AdaptiveEventDelay.check(event, mock(GitHubSCMSource.class));
+        check.branch("master", BEFORE);
+        check.complete();
+        assertThat(settled.isEmpty(), is(true));
+    }
+
+    @Test
+    public void caughtUpWhenTheHeadMovedOn() throws Exception {
+        AdaptiveEventDelay.setEnabled(true);
+        GitHubSCMSource.setEventDelaySeconds(60);
+        PushEvent event = new PushEvent(SCMEvent.Type.UPDATED, BEFORE);
+        List<String> settled = new ArrayList<>();
+        AdaptiveEventDelay.whenSettled(event, () -> settled.add("fired"));
+
+        AdaptiveEventDelay.Check check = AdaptiveEventDelay.check(event, mock(GitHubSCMSource.class));
+        check.branch("master", LATER);
+        check.complete();
+        assertThat(settled, contains("fired"));
+    }
+
+    @Test
+    public void staleWhileACreatedHeadIsMissing() throws Exception {
+        AdaptiveEventDelay.setEnabled(true);
+        GitHubSCMSource.setEventDelaySeconds(60);
+        PushEvent event = new PushEvent(SCMEvent.Type.CREATED, null);
+        List<String> settled = new ArrayList<>();
+        AdaptiveEventDelay.whenSettled(event, () -> settled.add("fired"));
+
+        AdaptiveEventDelay.Check check = AdaptiveEventDelay.check(event, mock(GitHubSCMSource.class));
+        check.complete();
+        assertThat(settled.isEmpty(), is(true));
+
+        check = AdaptiveEventDelay.check(event, mock(GitHubSCMSource.class));
+        check.branch("master", SHA);
+        check.complete();
+        assertThat(settled, contains("fired"));
+    }
+
+    private static class PushEvent extends SCMHeadEvent<WebhookPayloadSummary> implements WebhookHeadEvent {
+
+        private final String before;
+
+        PushEvent() throws Exception {
+            this(Type.UPDATED, null);
+        }
+
+        PushEvent(Type type, String before) throws Exception {
+            super(type, WebhookPayloadSummary.parse("{\"ref\":\"refs/heads/master\",\"after\":\"" + SHA + "\"}"),
+                    "test");
+            this.before = before;
+        }
+
+        @Override
+        public boolean isReplayed() {
+            return false;
+        }
+
+        @Override
+        public String getBeforeHash() {
+            return before;
+        }
+
+        @Override
+        public boolean isMatch(@NonNull SCMNavigator navigator) {
+            return false;
+        }
+
+        @NonNull
+        @Override
+        public String getSourceName() {
+            return "yolo";
+        }
+
+        @NonNull
+        @Override
+        public Map<SCMHead, SCMRevision> heads(@NonNull SCMSource source) {
+            BranchSCMHead head = new BranchSCMHead("master");
+            return Collections.singletonMap(head, new AbstractGitSCMSource.SCMRevisionImpl(head, SHA));
+        }
+
+        @Override
+        public boolean isMatch(@NonNull SCM scm) {
+            return false;
+        }
+    }
+}
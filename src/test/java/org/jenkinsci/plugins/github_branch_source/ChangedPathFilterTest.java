@@ -0,0 +1,49 @@
+package org.jenkinsci.plugins.github_branch_source;
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.*;
+
+public class ChangedPathFilterTest {
+
+    @Test
+    public void globs() {
+        assertThat(ChangedPathFilter.toPattern("*.md").matcher("README.md").matches(), is(true));
+        assertThat(ChangedPathFilter.toPattern("*.md").matcher("docs/guide/index.md").matches(), is(true));
+        assertThat(ChangedPathFilter.toPattern("docs/").matcher("docs/guide/index.html").matches(), is(true));
+        assertThat(ChangedPathFilter.toPattern("docs/").matcher("src/docs/index.html").matches(), is(false));
+        assertThat(ChangedPathFilter.toPattern("/pom.xml").matcher("pom.xml").matches(), is(true));
+        assertThat(ChangedPathFilter.toPattern("/pom.xml").matcher("module/pom.xml").matches(), is(false));
+        assertThat(ChangedPathFilter.toPattern("src/*.java").matcher("src/A.java").matches(), is(true));
+        assertThat(ChangedPathFilter.toPattern("src/*.java").matcher("src/a/A.java").matches(), is(false));
+        assertThat(ChangedPathFilter.toPattern("src/**/*.java").matcher("src/A.java").matches(), is(true));
+        assertThat(ChangedPathFilter.toPattern("src/**/*.java").matcher("src/a/b/A.java").matches(), is(true));
+        assertThat(ChangedPathFilter.toPattern("file?.txt").matcher("file1.txt").matches(), is(true));
+        assertThat(ChangedPathFilter.toPattern("file?.txt").matcher("file10.txt").matches(), is(false));
+        assertThat(ChangedPathFilter.toPattern("a+b(c).txt").matcher("a+b(c).txt").matches(), is(true));
+    }
+
+    @Test
+    public void excludes() {
+        ChangedPathFilter filter = new ChangedPathFilter(null, "docs/ *.md");
+        assertThat(filter.isIgnored(Arrays.asList("README.md", "docs/index.html")), is(true));
+        assertThat(filter.isIgnored(Arrays.asList("README.md", "src/Main.java")), is(false));
+    }
+
+    @Test
+    public void includes() {
+        ChangedPathFilter filter = new ChangedPathFilter("src/, pom.xml", "*.md");
+        assertThat(filter.isIgnored(Collections.singletonList("Jenkinsfile")), is(true));
+        assertThat(filter.isIgnored(Collections.singletonList("src/README.md")), is(true));
+        assertThat(filter.isIgnored(Collections.singletonList("module/pom.xml")), is(false));
+        assertThat(filter.isIgnored(Collections.singletonList("src/Main.java")), is(false));
+    }
+
+    @Test
+    public void nothingChangedIsNotIgnored() {
+        assertThat(new ChangedPathFilter(null, "**").isIgnored(Collections.<String>emptyList()), is(false));
+    }
+}
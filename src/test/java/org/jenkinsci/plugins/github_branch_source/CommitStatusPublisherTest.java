@@ -0,0 +1,144 @@
+package org.jenkinsci.plugins.github_branch_source;
+
+import hudson.model.Job;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.kohsuke.github.GHCommitState;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+
+public class CommitStatusPublisherTest {
+
+    private final Job<?, ?> job = mock(Job.class);
+    private final List<Runnable> executed = new ArrayList<>();
+    private final List<Runnable> scheduled = new ArrayList<>();
+    private final List<Long> delays = new ArrayList<>();
+    private final List<String> posted = new ArrayList<>();
+    private final List<IOException> failures = new ArrayList<>();
+    private final CommitStatusPublisher sut = new CommitStatusPublisher(executed::add, (task, delayMillis) -> {
+        scheduled.add(task);
+        delays.add(delayMillis);
+    }, status -> {
+        if (!failures.isEmpty()) {
+            throw failures.remove(0);
+        }
+        posted.add(status.getRequest().getContext() + " " + status.getRequest().getState());
+    });
+
+    private CommitStatusPublisher.Status status(String context, GHCommitState state) {
+        return new CommitStatusPublisher.Status("repo@cafebabe " + context, job, "cafebabe",
+                GitHubNotificationRequest.build(context, null, "message", state, false), "test");
+    }
+
+    private void runExecuted() {
+        while (!executed.isEmpty()) {
+            executed.remove(0).run();
+        }
+    }
+
+    @Test
+    public void submit_dropsSupersededStatus() {
+        sut.submit(status("ci", GHCommitState.PENDING));
+        sut.submit(status("ci", GHCommitState.SUCCESS));
+        sut.submit(status("other", GHCommitState.PENDING));
+        assertThat(executed.size(), is(2));
+        runExecuted();
+        assertThat(posted, contains("ci SUCCESS", "other PENDING"));
+        assertThat(sut.getSupersededCount(), is(1L));
+        assertThat(sut.getActiveCount(), is(0));
+    }
+
+    @Test
+    public void submit_skipsStatusIdenticalToLastPosted() {
+        sut.submit(status("ci", GHCommitState.PENDING));
+        runExecuted();
+        sut.submit(status("ci", GHCommitState.PENDING));
+        runExecuted();
+        sut.submit(status("ci", GHCommitState.SUCCESS));
+        runExecuted();
+        sut.submit(status("ci", GHCommitState.PENDING));
+        runExecuted();
+        assertThat(posted, contains("ci PENDING", "ci SUCCESS", "ci PENDING"));
+        assertThat(sut.getUnchangedCount(), is(1L));
+    }
+
+    @Test
+    public void submit_retriesWithBackoff() {
+        failures.add(new IOException("first"));
+        failures.add(new IOException("second"));
+        sut.submit(status("ci", GHCommitState.PENDING));
+        runExecuted();
+        assertThat(scheduled.size(), is(1));
+        scheduled.get(0).run();
+        assertThat(scheduled.size(), is(2));
+        scheduled.get(1).run();
+        assertThat(delays, contains(CommitStatusPublisher.BACKOFF_MILLIS, CommitStatusPublisher.BACKOFF_MILLIS * 2));
+        assertThat(posted, contains("ci PENDING"));
+        assertThat(sut.getActiveCount(), is(0));
+    }
+
+    @Test
+    public void submit_retryPostsLaterStatusInstead() {
+        failures.add(new IOException("first"));
+        sut.submit(status("ci", GHCommitState.PENDING));
+        runExecuted();
+        sut.submit(status("ci", GHCommitState.FAILURE));
+        assertThat(executed.size(), is(0));
+        scheduled.get(0).run();
+        assertThat(posted, contains("ci FAILURE"));
+    }
+
+    @Test
+    public void submit_givesUpAfterMaxAttempts() {
+        for (int i = 0; i < CommitStatusPublisher.MAX_ATTEMPTS; i++) {
+            failures.add(new IOException("failure " + i));
+        }
+        sut.submit(status("ci", GHCommitState.PENDING));
+        runExecuted();
+        while (scheduled.size() < CommitStatusPublisher.MAX_ATTEMPTS - 1) {
+            scheduled.get(scheduled.size() - 1).run();
+        }
+        scheduled.get(scheduled.size() - 1).run();
+        assertThat(scheduled.size(), is(CommitStatusPublisher.MAX_ATTEMPTS - 1));
+        assertThat(posted.size(), is(0));
+        assertThat(sut.getActiveCount(), is(0));
+    }
+
+    @Test
+    public void submit_doesNotRetryMissingRepository() {
+        failures.add(new FileNotFoundException("no access"));
+        sut.submit(status("ci", GHCommitState.PENDING));
+        runExecuted();
+        assertThat(scheduled.size(), is(0));
+        assertThat(sut.getActiveCount(), is(0));
+    }
+
+    @Test
+    public void drain_postsRetriesAtOnceWithoutFurtherRetries() throws Exception {
+        failures.add(new IOException("first"));
+        failures.add(new IOException("second"));
+        CommitStatusPublisher draining = new CommitStatusPublisher(Runnable::run, (task, delayMillis) -> {
+            scheduled.add(task);
+        }, status -> {
+            if (!failures.isEmpty()) {
+                throw failures.remove(0);
+            }
+            posted.add(status.getRequest().getContext());
+        });
+        draining.submit(status("ci", GHCommitState.SUCCESS));
+        assertThat(scheduled.size(), is(1));
+        assertThat(draining.drain(1000L), is(true));
+        assertThat(scheduled.size(), is(1));
+        assertThat(posted.size(), is(0));
+        assertThat(draining.getActiveCount(), is(0));
+        // the retry that was pending when draining is a no-op
+        scheduled.get(0).run();
+        assertThat(posted.size(), is(0));
+    }
+}
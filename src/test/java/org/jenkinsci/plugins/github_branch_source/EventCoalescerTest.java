@@ -0,0 +1,77 @@
+package org.jenkinsci.plugins.github_branch_source;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.*;
+
+public class EventCoalescerTest {
+
+    private final List<Runnable> scheduled = new ArrayList<>();
+    private final List<String> fired = new ArrayList<>();
+    private final EventCoalescer<String> sut = new EventCoalescer<>((task, delay) -> scheduled.add(task), fired::add);
+
+    @Test
+    public void submit_firesLatestEventPerHead() {
+        sut.submit("repo main", "push 1", 5);
+        sut.submit("repo main", "push 2", 5);
+        sut.submit("repo feature", "push 3", 5);
+        sut.submit("repo main", "push 4", 5);
+        assertThat(scheduled.size(), is(2));
+        assertThat(sut.getPendingCount(), is(2));
+        scheduled.forEach(Runnable::run);
+        assertThat(fired, contains("push 4", "push 3"));
+        assertThat(sut.getSuppressedCount(), is(2L));
+        assertThat(sut.getPendingCount(), is(0));
+    }
+
+    @Test
+    public void submit_afterFiringStartsNewWindow() {
+        sut.submit("repo main", "push 1", 5);
+        scheduled.get(0).run();
+        sut.submit("repo main", "push 2", 5);
+        assertThat(scheduled.size(), is(2));
+        scheduled.get(1).run();
+        assertThat(fired, contains("push 1", "push 2"));
+        assertThat(sut.getSuppressedCount(), is(0L));
+    }
+
+    @Test
+    public void submit_mergesWithPendingEvent() {
+        sut.submit("repo main", "push 1", 5, (previous, latest) -> previous + "+" + latest);
+        sut.submit("repo main", "push 2", 5, (previous, latest) -> previous + "+" + latest);
+        sut.submit("repo main", "push 3", 5, (previous, latest) -> previous + "+" + latest);
+        assertThat(scheduled.size(), is(1));
+        scheduled.get(0).run();
+        assertThat(fired, contains("push 1+push 2+push 3"));
+        assertThat(sut.getSuppressedCount(), is(2L));
+    }
+
+    @Test
+    public void submit_notifiesEveryMergedEventOnceFired() {
+        List<String> notified = new ArrayList<>();
+        sut.submit("repo main", "push 1", 5, (previous, latest) -> latest, () -> notified.add("push 1"));
+        sut.submit("repo main", "push 2", 5, (previous, latest) -> latest, () -> notified.add("push 2"));
+        assertThat(notified.size(), is(0));
+        scheduled.get(0).run();
+        assertThat(fired, contains("push 2"));
+        assertThat(notified, contains("push 1", "push 2"));
+    }
+
+    @Test
+    public void submit_notifiesOnceSettled() {
+        List<Runnable> settling = new ArrayList<>();
+        EventCoalescer<String> settled = new EventCoalescer<>((task, delay) -> scheduled.add(task), fired::add,
+                (event, callback) -> settling.add(callback));
+        List<String> notified = new ArrayList<>();
+        settled.submit("repo main", "push 1", 5, (previous, latest) -> latest, () -> notified.add("push 1"));
+        scheduled.get(0).run();
+        assertThat(fired, contains("push 1"));
+        assertThat(notified.size(), is(0));
+        settling.forEach(Runnable::run);
+        assertThat(notified, contains("push 1"));
+    }
+}
@@ -0,0 +1,111 @@
+package org.jenkinsci.plugins.github_branch_source;
+
+import hudson.ExtensionList;
+import java.io.File;
+import java.util.List;
+import org.apache.commons.io.IOUtils;
+import org.jenkinsci.plugins.github.extension.GHSubscriberEvent;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.kohsuke.github.GHEvent;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.*;
+
+public class EventJournalTest {
+
+    @ClassRule
+    public static JenkinsRule r = new JenkinsRule();
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private static EventJournal.Delivery delivery(String id, String payload) {
+        return new EventJournal.Delivery(id, GHEvent.PUSH, "origin " + id, payload);
+    }
+
+    @Test
+    public void open_replaysOnlyUnfiredDeliveries() throws Exception {
+        File file = new File(tmp.getRoot(), EventJournal.FILENAME);
+        EventJournal journal = new EventJournal(file);
+        assertThat(journal.open().size(), is(0));
+        journal.append(delivery("a", "{\"ref\":\"refs/heads/master\"}"));
+        journal.append(delivery("b", "{\"ref\":\"refs/heads/feature\"}\n"));
+        journal.append(delivery("c", "{}"));
+        journal.fired("a");
+        assertThat(journal.getPendingCount(), is(2));
+        journal.close();
+
+        EventJournal restarted = new EventJournal(file);
+        List<EventJournal.Delivery> unfired = restarted.open();
+        assertThat(unfired.size(), is(2));
+        GHSubscriberEvent event = unfired.get(0).toEvent();
+        assertThat(event.getGHEvent(), is(GHEvent.PUSH));
+        assertThat(event.getOrigin(), is("origin b"));
+        assertThat(event.getPayload(), is("{\"ref\":\"refs/heads/feature\"}\n"));
+        assertThat(unfired.get(1).toEvent().getOrigin(), is("origin c"));
+        assertThat(restarted.markSeen("a"), is(false));
+        assertThat(restarted.markSeen("b"), is(true));
+        restarted.close();
+    }
+
+    @Test
+    public void fired_truncatesOnceNothingIsPending() throws Exception {
+        File file = new File(tmp.getRoot(), EventJournal.FILENAME);
+        EventJournal journal = new EventJournal(file);
+        journal.open();
+        journal.append(delivery("a", "{}"));
+        journal.append(delivery("a", "{}"));
+        assertThat(journal.getPendingCount(), is(1));
+        assertThat(file.length() > 0, is(true));
+        journal.fired("a");
+        assertThat(file.length(), is(0L));
+        journal.close();
+    }
+
+    @Test
+    public void markSeen_rejectsDuplicates() {
+        EventJournal journal = new EventJournal(new File(tmp.getRoot(), EventJournal.FILENAME));
+        assertThat(journal.markSeen("a"), is(true));
+        assertThat(journal.markSeen("a"), is(false));
+    }
+
+    @Test
+    public void deliveryId_dependsOnTypeAndPayload() {
+        String id = EventJournal.deliveryId(new GHSubscriberEvent("one", GHEvent.PUSH, "{}"));
+        assertThat(EventJournal.deliveryId(new GHSubscriberEvent("two", GHEvent.PUSH, "{}")), is(id));
+        assertThat(EventJournal.deliveryId(new GHSubscriberEvent("one", GHEvent.PULL_REQUEST, "{}")), not(id));
+        assertThat(EventJournal.deliveryId(new GHSubscriberEvent("one", GHEvent.PUSH, "{ }")), not(id));
+    }
+
+    @Test
+    public void replay_marksDroppedDeliveriesFired() throws Exception {
+        File file = new File(r.jenkins.getRootDir(), EventJournal.FILENAME);
+        EventJournal journal = new EventJournal(file);
+        journal.open();
+        GHSubscriberEvent unrouted = new GHSubscriberEvent("origin", GHEvent.PUSH, IOUtils.toString(
+                EventJournalTest.class.getResourceAsStream("EventsTest/pushEventUpdated.json")));
+        GHSubscriberEvent corrupt = new GHSubscriberEvent("origin", GHEvent.PULL_REQUEST, "{");
+        journal.append(new EventJournal.Delivery(EventJournal.deliveryId(unrouted), unrouted.getGHEvent(),
+                unrouted.getOrigin(), unrouted.getPayload()));
+        journal.append(new EventJournal.Delivery(EventJournal.deliveryId(corrupt), corrupt.getGHEvent(),
+                corrupt.getOrigin(), corrupt.getPayload()));
+        journal.close();
+
+        // no item is interested in any repository
+        EventRoutingIndex.setBuilt(true);
+        try {
+            ExtensionList.lookupSingleton(EventJournal.ListenerImpl.class).onLoaded();
+        } finally {
+            EventRoutingIndex.clear();
+        }
+
+        EventJournal restarted = new EventJournal(file);
+        assertThat(restarted.open().size(), is(0));
+        restarted.close();
+    }
+}
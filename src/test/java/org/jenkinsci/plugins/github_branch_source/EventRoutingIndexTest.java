@@ -0,0 +1,63 @@
+package org.jenkinsci.plugins.github_branch_source;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.*;
+
+public class EventRoutingIndexTest {
+
+    @Before
+    public void setUp() {
+        EventRoutingIndex.clear();
+        EventRoutingIndex.setBuilt(true);
+    }
+
+    @After
+    public void tearDown() {
+        EventRoutingIndex.clear();
+    }
+
+    @Test
+    public void isRouted_beforeBuilt() {
+        EventRoutingIndex.setBuilt(false);
+        assertThat(EventRoutingIndex.isRouted("github.com", "cloudbeers", "yolo"), is(true));
+    }
+
+    @Test
+    public void isRouted_source() {
+        EventRoutingIndex.update("yolo", Collections.singleton(
+                EventRoutingIndex.sourceKey("github.com", "cloudbeers", "yolo")));
+        assertThat(EventRoutingIndex.isRouted("github.com", "CloudBeers", "Yolo"), is(true));
+        assertThat(EventRoutingIndex.isRouted("github.com", "cloudbeers", "other"), is(false));
+        assertThat(EventRoutingIndex.isRouted("ghe.example.com", "cloudbeers", "yolo"), is(false));
+    }
+
+    @Test
+    public void isRouted_navigator() {
+        EventRoutingIndex.update("cloudbeers", Collections.singleton(
+                EventRoutingIndex.navigatorKey("github.com", "cloudbeers")));
+        assertThat(EventRoutingIndex.isRouted("github.com", "cloudbeers", "anything"), is(true));
+        assertThat(EventRoutingIndex.isRouted("github.com", "other", "anything"), is(false));
+    }
+
+    @Test
+    public void update_replacesAndRemoveForgets() {
+        String yolo = EventRoutingIndex.sourceKey("github.com", "cloudbeers", "yolo");
+        String other = EventRoutingIndex.sourceKey("github.com", "cloudbeers", "other");
+        EventRoutingIndex.update("a", Collections.singleton(yolo));
+        EventRoutingIndex.update("b", new HashSet<>(Arrays.asList(yolo, other)));
+        EventRoutingIndex.update("b", Collections.singleton(yolo));
+        assertThat(EventRoutingIndex.isRouted("github.com", "cloudbeers", "other"), is(false));
+        EventRoutingIndex.remove("a");
+        assertThat(EventRoutingIndex.isRouted("github.com", "cloudbeers", "yolo"), is(true));
+        EventRoutingIndex.remove("b");
+        assertThat(EventRoutingIndex.isRouted("github.com", "cloudbeers", "yolo"), is(false));
+    }
+
+}
@@ -60,6 +60,8 @@ public class EventsTest {
     @BeforeClass
     public static void setupDelay() {
         GitHubSCMSource.setEventDelaySeconds(1);
+        // there are no items, so route every event as though the items were still loading
+        EventRoutingIndex.clear();
     }
 
     @Before
@@ -83,16 +85,15 @@ public class EventsTest {
         waitAndAssertReceived(true);
     }
 
-    // TODO - add a test on push event that was filtered
     @Test
-    public void given_ghPushEventCreated_then_filteredAndNotFired() throws IOException, InterruptedException {
+    public void given_ghPushEventCreatedWithSkipMarker_then_createdHeadEventFired() throws IOException, InterruptedException {
 
         PushGHEventSubscriber subscriber = new PushGHEventSubscriber();
 
         firedEventType = SCMEvent.Type.CREATED;
         ghEvent = callOnEvent(subscriber, "EventsTest/pushEventFiltered.json");
-        // Payload has a "[skip-ci]" message. Should check for that event
-        waitAndAssertReceived(false);
+        // Payload has a "[skip-ci]" message, but skipping is opt-in and never applies to the creation of a branch
+        waitAndAssertReceived(true);
     }
 
     @Test
@@ -0,0 +1,47 @@
+package org.jenkinsci.plugins.github_branch_source;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.*;
+
+public class FormFillCacheTest {
+
+    private final AtomicLong now = new AtomicLong(1000L);
+    private final List<Runnable> scheduled = new ArrayList<>();
+    private final FormFillCache<String> sut = new FormFillCache<>(100L, 1000L, 10, scheduled::add, now::get);
+
+    @Test
+    public void get_loadsOnce() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        assertThat(sut.get("key", () -> "v" + loads.incrementAndGet()), is("v1"));
+        assertThat(sut.get("key", () -> "v" + loads.incrementAndGet()), is("v1"));
+        assertThat(loads.get(), is(1));
+        assertThat(scheduled.size(), is(0));
+    }
+
+    @Test
+    public void get_refreshesStaleItemsInBackground() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        sut.get("key", () -> "v" + loads.incrementAndGet());
+        now.addAndGet(100L);
+        assertThat(sut.get("key", () -> "v" + loads.incrementAndGet()), is("v1"));
+        assertThat(sut.get("key", () -> "v" + loads.incrementAndGet()), is("v1"));
+        assertThat(scheduled.size(), is(1));
+        scheduled.get(0).run();
+        assertThat(sut.get("key", () -> "v" + loads.incrementAndGet()), is("v2"));
+        assertThat(loads.get(), is(2));
+    }
+
+    @Test
+    public void get_doesNotCacheMissingItems() throws Exception {
+        assertThat(sut.get("key", () -> null), nullValue());
+        assertThat(sut.get("key", () -> "v"), is("v"));
+    }
+
+}
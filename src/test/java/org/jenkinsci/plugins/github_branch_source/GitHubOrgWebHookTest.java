@@ -53,4 +53,42 @@ public class GitHubOrgWebHookTest {
         }
     }
 
+    @Test public void keepExistingHookMissingEvents() throws Exception {
+        System.setProperty("jenkins.hook.url", "https://mycorp/hook-proxy/");
+        wireMockRule.stubFor(get(urlEqualTo("/api/users/myorg")).willReturn(aResponse().withBody("{\"login\":\"myorg\"}")));
+        wireMockRule.stubFor(get(urlEqualTo("/api/orgs/myorg")).willReturn(aResponse().withBody("{\"login\":\"myorg\",\"html_url\":\"https://github.com/myorg\"}")));
+        wireMockRule.stubFor(get(urlEqualTo("/api/orgs/myorg/hooks")).willReturn(aResponse().withBody(
+                "[{\"id\":1,\"name\":\"web\",\"active\":true,\"events\":[\"repository\",\"push\",\"pull_request\",\"pull_request_review_comment\"],"
+                        + "\"config\":{\"url\":\"https://mycorp/hook-proxy/github-webhook/\",\"content_type\":\"form\",\"insecure_ssl\":\"1\"}}]")));
+        GitHub hub = Connector.connect("http://localhost:" + wireMockRule.port() + "/api/", null);
+        try {
+            GitHubOrgWebHook.register(hub, "myorg");
+            // recreating the hook would lose its settings
+            wireMockRule.verify(0, deleteRequestedFor(urlMatching("/api/orgs/myorg/hooks/.*")));
+            wireMockRule.verify(0, postRequestedFor(urlEqualTo("/api/orgs/myorg/hooks")));
+            // the tracking file now records the events so the hooks are not listed again
+            GitHubOrgWebHook.register(hub, "myorg");
+            wireMockRule.verify(1, getRequestedFor(urlEqualTo("/api/orgs/myorg/hooks")));
+        } finally {
+            Connector.release(hub);
+        }
+    }
+
+    @Test public void keepExistingHookWithSecret() throws Exception {
+        System.setProperty("jenkins.hook.url", "https://mycorp/hook-proxy/");
+        wireMockRule.stubFor(get(urlEqualTo("/api/users/myorg")).willReturn(aResponse().withBody("{\"login\":\"myorg\"}")));
+        wireMockRule.stubFor(get(urlEqualTo("/api/orgs/myorg")).willReturn(aResponse().withBody("{\"login\":\"myorg\",\"html_url\":\"https://github.com/myorg\"}")));
+        wireMockRule.stubFor(get(urlEqualTo("/api/orgs/myorg/hooks")).willReturn(aResponse().withBody(
+                "[{\"id\":1,\"name\":\"web\",\"active\":true,\"events\":[\"push\"],"
+                        + "\"config\":{\"url\":\"https://mycorp/hook-proxy/github-webhook/\",\"secret\":\"********\"}}]")));
+        GitHub hub = Connector.connect("http://localhost:" + wireMockRule.port() + "/api/", null);
+        try {
+            GitHubOrgWebHook.register(hub, "myorg");
+            wireMockRule.verify(0, deleteRequestedFor(urlMatching("/api/orgs/myorg/hooks/.*")));
+            wireMockRule.verify(0, postRequestedFor(urlEqualTo("/api/orgs/myorg/hooks")));
+        } finally {
+            Connector.release(hub);
+        }
+    }
+
 }
@@ -0,0 +1,41 @@
+package org.jenkinsci.plugins.github_branch_source;
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.*;
+
+public class GitHubRepositorySearchTest {
+
+    @Test
+    public void query_organization() {
+        GitHubRepositorySearch sut = new GitHubRepositorySearch(true, "cloudbeers");
+        assertThat(sut.query(), is("org:cloudbeers fork:true"));
+    }
+
+    @Test
+    public void query_user_withTopics() {
+        GitHubRepositorySearch sut = new GitHubRepositorySearch(false, "stephenc")
+                .withTopics(Arrays.asList("cool", "great"));
+        assertThat(sut.query(), is("user:stephenc fork:true topic:cool topic:great"));
+    }
+
+    @Test
+    public void query_noTopics() {
+        GitHubRepositorySearch sut = new GitHubRepositorySearch(false, "stephenc")
+                .withTopics(Collections.<String>emptyList());
+        assertThat(sut.query(), is("user:stephenc fork:true"));
+    }
+
+    @Test
+    public void query_excludeArchivedAndPublic() {
+        GitHubRepositorySearch sut = new GitHubRepositorySearch(true, "cloudbeers")
+                .withTopics(Collections.singletonList("awesome"))
+                .withExcludeArchived()
+                .withExcludePublic();
+        assertThat(sut.query(), is("org:cloudbeers fork:true topic:awesome archived:false is:private"));
+    }
+
+}
@@ -31,6 +31,7 @@ import com.cloudbees.plugins.credentials.SystemCredentialsProvider;
 import com.cloudbees.plugins.credentials.domains.Domain;
 import com.cloudbees.plugins.credentials.impl.BaseStandardCredentials;
 import com.cloudbees.plugins.credentials.impl.UsernamePasswordCredentialsImpl;
+import com.github.tomakehurst.wiremock.client.WireMock;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
 import hudson.model.Item;
@@ -43,6 +44,7 @@ import hudson.security.SecurityRealm;
 import hudson.util.ListBoxModel;
 import hudson.util.LogTaskListener;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
@@ -65,6 +67,10 @@ import org.jvnet.hudson.test.MockFolder;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
 import static org.hamcrest.Matchers.*;
 
 public class GitHubSCMNavigatorTest extends AbstractGitHubWireMockTest {
@@ -180,6 +186,83 @@ public class GitHubSCMNavigatorTest extends AbstractGitHubWireMockTest {
         navigator.visitSources(observer);
 
         assertEquals(projectNames, Collections.singleton("yolo"));
+        // searching is opt-in
+        githubApi.verify(0, getRequestedFor(urlPathEqualTo("/search/repositories")));
+        githubApi.verify(getRequestedFor(urlEqualTo("/repos/stephenc/yolo/topics")));
+    }
+
+    @Test
+    public void fetchRepos_BelongingToAuthenticatedUser_SearchedByTopic() throws Exception {
+        setCredentials(Collections.singletonList(credentials));
+        navigator = navigatorForRepoOwner("stephenc", credentials.getId());
+        navigator.setTraits(Arrays.<SCMTrait<? extends SCMTrait<?>>>asList(new RepositorySearchTrait(), new TopicsTrait("awesome")));
+        final Set<String> projectNames = new HashSet<>();
+        final SCMSourceObserver observer = getObserver(projectNames);
+
+        navigator.visitSources(observer);
+
+        assertEquals(projectNames, Collections.singleton("yolo"));
+        githubApi.verify(getRequestedFor(urlPathEqualTo("/search/repositories"))
+                .withQueryParam("q", WireMock.equalTo("user:stephenc fork:true topic:awesome")));
+        githubApi.verify(0, getRequestedFor(urlPathMatching("/repos/stephenc/.*/topics")));
+        githubApi.verify(0, getRequestedFor(urlPathEqualTo("/user/repos")));
+    }
+
+    @Test
+    public void fetchRepos_BelongingToAuthenticatedUser_SearchFallsBackToListing() throws Exception {
+        setCredentials(Collections.singletonList(credentials));
+        navigator = navigatorForRepoOwner("stephenc", credentials.getId());
+        // there are no search results with archived:false, so the topic search alone is used to match repositories
+        navigator.setTraits(Arrays.<SCMTrait<? extends SCMTrait<?>>>asList(new RepositorySearchTrait(),
+                new ExcludeArchivedRepositoriesTrait(), new TopicsTrait("awesome")));
+        final Set<String> projectNames = new HashSet<>();
+        final SCMSourceObserver observer = getObserver(projectNames);
+
+        navigator.visitSources(observer);
+
+        assertEquals(projectNames, Collections.singleton("yolo"));
+        githubApi.verify(getRequestedFor(urlPathEqualTo("/search/repositories"))
+                .withQueryParam("q", WireMock.equalTo("user:stephenc fork:true topic:awesome archived:false")));
+        githubApi.verify(getRequestedFor(urlPathEqualTo("/search/repositories"))
+                .withQueryParam("q", WireMock.equalTo("user:stephenc fork:true topic:awesome")));
+        githubApi.verify(getRequestedFor(urlPathEqualTo("/user/repos")));
+        // a search hit is a match without listing its topics
+        githubApi.verify(0, getRequestedFor(urlEqualTo("/repos/stephenc/yolo/topics")));
+    }
+
+    @Test
+    public void fetchRepos_BelongingToAuthenticatedUser_IncompleteSearchFallsBackToListing() throws Exception {
+        setCredentials(Collections.singletonList(credentials));
+        navigator = navigatorForRepoOwner("stephenc", credentials.getId());
+        navigator.setTraits(Arrays.<SCMTrait<? extends SCMTrait<?>>>asList(new RepositorySearchTrait(),
+                new ExcludeArchivedRepositoriesTrait()));
+        final Set<String> projectNames = new HashSet<>();
+        final SCMSourceObserver observer = getObserver(projectNames);
+
+        navigator.visitSources(observer);
+
+        // the search lists only yolo but may have missed others
+        assertEquals(projectNames, Collections.singleton("yolo"));
+        githubApi.verify(getRequestedFor(urlPathEqualTo("/search/repositories"))
+                .withQueryParam("q", WireMock.equalTo("user:stephenc fork:true archived:false")));
+        githubApi.verify(getRequestedFor(urlPathEqualTo("/user/repos")));
+    }
+
+    @Test
+    public void fetchRepos_BelongingToAuthenticatedUser_TooManySearchResultsFallsBackToListing() throws Exception {
+        setCredentials(Collections.singletonList(credentials));
+        navigator = navigatorForRepoOwner("stephenc", credentials.getId());
+        navigator.setTraits(Collections.singletonList(new RepositorySearchTrait()));
+        final Set<String> projectNames = new HashSet<>();
+        final SCMSourceObserver observer = getObserver(projectNames);
+
+        navigator.visitSources(observer);
+
+        // the search lists only yolo out of more than the 1,000 results it can return
+        assertThat(projectNames, containsInAnyOrder("yolo", "yolo-archived"));
+        githubApi.verify(getRequestedFor(urlPathEqualTo("/search/repositories"))
+                .withQueryParam("q", WireMock.equalTo("user:stephenc fork:true")));
+        githubApi.verify(getRequestedFor(urlPathEqualTo("/user/repos")));
     }
 
     @Test
@@ -64,6 +64,9 @@ import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 import org.jvnet.hudson.test.Issue;
 import org.jvnet.hudson.test.MockAuthorizationStrategy;
+import org.kohsuke.github.GHPermissionType;
+import org.kohsuke.github.GHRepository;
+import org.mockito.Mockito;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
 import static com.github.tomakehurst.wiremock.client.WireMock.get;
@@ -706,4 +709,17 @@ public class GitHubSCMSourceTest extends GitSCMSourceBase{
             r.jenkins.remove(dummy);
         }
     }
+
+    @Test
+    public void loadPermission_nonCollaboratorsCanReadPublicRepositories() throws Exception {
+        PermissionCache.putCollaborators(source.getApiUri(), source.getRepoOwner(), source.getRepository(),
+                Collections.singleton("alice"));
+        GHRepository repo = Mockito.mock(GHRepository.class);
+        Mockito.when(repo.getPermission("alice")).thenReturn(GHPermissionType.WRITE);
+        assertThat(source.loadPermission(repo, "alice"), is(GHPermissionType.WRITE));
+        assertThat(source.loadPermission(repo, "bob"), is(GHPermissionType.READ));
+        Mockito.when(repo.isPrivate()).thenReturn(true);
+        assertThat(source.loadPermission(repo, "bob"), is(GHPermissionType.NONE));
+        Mockito.verify(repo, Mockito.never()).getPermission("bob");
+    }
 }
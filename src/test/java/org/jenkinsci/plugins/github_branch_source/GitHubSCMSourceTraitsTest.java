@@ -2024,4 +2024,31 @@ public class GitHubSCMSourceTraitsTest {
                 )
         );
     }
+
+    @Test
+    public void given__compiledTraits__when__traitsUnchanged__then__sameViewReused() {
+        GitHubSCMSource instance = new GitHubSCMSource("repo-owner", "repo", null, false);
+        instance.setTraits(Arrays.asList(new BranchDiscoveryTrait(true, false),
+                new OriginPullRequestDiscoveryTrait(EnumSet.of(ChangeRequestCheckoutStrategy.HEAD))));
+        CompiledTraits compiled = instance.compiledTraits();
+        assertThat(compiled.wantBranches(), is(true));
+        assertThat(compiled.wantTags(), is(false));
+        assertThat(compiled.wantOriginPRs(), is(true));
+        assertThat(compiled.wantForkPRs(), is(false));
+        assertThat(compiled.originPRStrategies(), contains(ChangeRequestCheckoutStrategy.HEAD));
+        assertThat(compiled.notificationsDisabled(), is(false));
+        assertThat(instance.compiledTraits(), Matchers.sameInstance(compiled));
+    }
+
+    @Test
+    public void given__compiledTraits__when__traitsChanged__then__viewRecompiled() {
+        GitHubSCMSource instance = new GitHubSCMSource("repo-owner", "repo", null, false);
+        instance.setTraits(Collections.singletonList(new BranchDiscoveryTrait(true, false)));
+        assertThat(instance.compiledTraits().wantTags(), is(false));
+        instance.setTraits(Arrays.asList(new BranchDiscoveryTrait(true, false), new TagDiscoveryTrait()));
+        assertThat(instance.compiledTraits().wantTags(), is(true));
+        // the legacy setters change the traits in place
+        instance.setBuildOriginBranch(false);
+        assertThat(instance.compiledTraits().wantBranches(), is(false));
+    }
 }
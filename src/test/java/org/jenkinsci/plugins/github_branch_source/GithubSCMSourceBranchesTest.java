@@ -1,9 +1,14 @@
 package org.jenkinsci.plugins.github_branch_source;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.Set;
+import java.util.TreeSet;
+import jenkins.scm.api.SCMHead;
 import jenkins.scm.api.SCMHeadObserver;
+import jenkins.scm.api.trait.SCMSourceTrait;
 import org.junit.Test;
 import org.kohsuke.github.GHFileNotFoundException;
 import org.kohsuke.github.GHRepository;
@@ -149,6 +154,13 @@ public class GithubSCMSourceBranchesTest extends GitSCMSourceBase {
                                 aResponse()
                                         .withHeader("Content-Type", "application/json; charset=utf-8")
                                         .withBodyFile("../branches/_files/body-yolo-branches-existent-multiple-branches-no-master.json")));
+        githubApi.stubFor(
+                get(urlEqualTo("/repos/cloudbeers/yolo/branches/master"))
+                        .willReturn(
+                                aResponse()
+                                        .withStatus(404)
+                                        .withHeader("Content-Type", "application/json; charset=utf-8")
+                                        .withBodyFile("../branches/_files/body-yolo-branches-non-existent-branch.json")));
         SCMHeadObserver mockSCMHeadObserver = Mockito.mock(SCMHeadObserver.class);
         GitHubSCMSourceContext context = new GitHubSCMSourceContext(null, mockSCMHeadObserver);
         context.wantTags(true);
@@ -177,9 +189,11 @@ public class GithubSCMSourceBranchesTest extends GitSCMSourceBase {
         GHRepository repoSpy = Mockito.spy(repo);
         IOException error = new IOException("Thrown Branch Error");
         Mockito.when(repoSpy.getBranches()).thenThrow(error);
-        // Expected: In the iterator will throw an error when calling getBranches
+        // Expected: In the iterator will throw an error when calling getBranches after the default branch
+        Iterator<GHBranch> branches = new GitHubSCMSource.LazyBranches(request, repoSpy).iterator();
+        assertEquals("master", branches.next().getName());
         try{
-            Iterator<GHBranch> branches = new GitHubSCMSource.LazyBranches(request, repoSpy).iterator();
+            branches.hasNext();
             fail("This should throw an exception");
         }
         catch(Exception e){
@@ -187,4 +201,62 @@ public class GithubSCMSourceBranchesTest extends GitSCMSourceBase {
             assertEquals("java.io.IOException: Thrown Branch Error", e.getMessage());
         }
     }
+
+    @Test
+    public void testDefaultBranchReturnedBeforeListingOthers() throws IOException {
+        // Situation: Hitting github for multiple branches, where the default branch can be processed on its own
+        githubApi.stubFor(
+                get(urlEqualTo("/repos/cloudbeers/yolo/branches"))
+                        .willReturn(
+                                aResponse()
+                                        .withHeader("Content-Type", "application/json; charset=utf-8")
+                                        .withBodyFile("../branches/_files/body-yolo-branches-existent-multiple-branches-master2.json")));
+        SCMHeadObserver mockSCMHeadObserver = Mockito.mock(SCMHeadObserver.class);
+        GitHubSCMSourceContext context = new GitHubSCMSourceContext(null, mockSCMHeadObserver);
+        context.wantBranches(true);
+        GitHubSCMSourceRequest request = context.newRequest(new GitHubSCMSource("cloudbeers", "yolo", null, false), null);
+        GHRepository repoSpy = Mockito.spy(repo);
+        Iterator<GHBranch> branches = new GitHubSCMSource.LazyBranches(request, repoSpy).iterator();
+        // Expected: The default branch is returned before the other branches are listed, and is not repeated
+        assertEquals("master", branches.next().getName());
+        Mockito.verify(repoSpy, Mockito.never()).getBranches();
+        assertTrue(branches.hasNext());
+        assertEquals("existent-branch2", branches.next().getName());
+        assertFalse(branches.hasNext());
+        Mockito.verify(repoSpy, Mockito.times(1)).getBranches();
+    }
+
+    @Test
+    public void testOtherBranchesStreamedFromRefs() throws Exception {
+        // Situation: A scan of all the branches
+        source.setTraits(Collections.<SCMSourceTrait>singletonList(new BranchDiscoveryTrait(true, false)));
+        SCMHeadObserver.Collector collector = SCMHeadObserver.collect();
+        source.fetch(null, collector, null, null);
+        // Expected: The default branch is fetched on its own and the others are listed from the refs a page at a time
+        Set<String> names = new TreeSet<>();
+        for (SCMHead head : collector.result().keySet()) {
+            names.add(head.getName());
+        }
+        assertEquals(new TreeSet<>(Arrays.asList("master", "stephenc-patch-1")), names);
+        githubApi.verify(getRequestedFor(urlEqualTo("/repos/cloudbeers/yolo/branches/master")));
+        githubApi.verify(getRequestedFor(urlEqualTo("/repos/cloudbeers/yolo/git/refs/heads?per_page=100")));
+        githubApi.verify(0, getRequestedFor(urlEqualTo("/repos/cloudbeers/yolo/branches")));
+    }
+
+    @Test
+    public void testOtherBranchesNotListedOnceComplete() throws Exception {
+        // Situation: A scan that only needs the first branch it is given
+        source.setTraits(Collections.<SCMSourceTrait>singletonList(new BranchDiscoveryTrait(true, false)));
+        SCMHeadObserver.Collector collector = SCMHeadObserver.collect();
+        source.fetch(null, new SCMHeadObserver.Wrapped<SCMHeadObserver.Collector>(collector) {
+            @Override
+            public boolean isObserving() {
+                return collector.result().isEmpty();
+            }
+        }, null, null);
+        // Expected: The default branch completes the request so the refs are never listed
+        assertEquals(1, collector.result().size());
+        assertEquals("master", collector.result().keySet().iterator().next().getName());
+        githubApi.verify(0, getRequestedFor(urlPathEqualTo("/repos/cloudbeers/yolo/git/refs/heads")));
+    }
 }
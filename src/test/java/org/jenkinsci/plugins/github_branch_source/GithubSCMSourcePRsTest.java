@@ -231,4 +231,52 @@ public class GithubSCMSourcePRsTest extends GitSCMSourceBase {
         assertEquals(2, pullRequest.next().getId());
         assertFalse(pullRequest.hasNext());
     }
+
+    @Test
+    public void testOpenPRsListedByTargetBranch() throws IOException {
+        // Situation: Only the pull requests targeting main are wanted
+        githubApi.stubFor(
+                get(urlPathEqualTo("/repos/cloudbeers/yolo/pulls"))
+                        .withQueryParam("state", equalTo("open"))
+                        .withQueryParam("base", equalTo("main"))
+                        .willReturn(
+                                aResponse()
+                                        .withHeader("Content-Type", "application/json; charset=utf-8")
+                                        .withBodyFile("../PRs/_files/body-yolo-pulls-open-multiple-PRs.json")));
+        GitHubSCMSourceContext context = new GitHubSCMSourceContext(null, SCMHeadObserver.collect());
+        context.wantOriginPRs(true);
+        context.withPullRequestTargets(Collections.singleton("main"));
+        GitHubSCMSourceRequest request = context.newRequest(new GitHubSCMSource("cloudbeers", "yolo", null, false), null);
+        Iterator<GHPullRequest> pullRequest = new GitHubSCMSource("cloudbeers", "yolo", null, false)
+                .new LazyPullRequests(request, repo).iterator();
+        // Expected: The pull requests are listed by their base branch
+        assertTrue(pullRequest.hasNext());
+        assertEquals(1, pullRequest.next().getId());
+        assertTrue(pullRequest.hasNext());
+        assertEquals(2, pullRequest.next().getId());
+        assertFalse(pullRequest.hasNext());
+        githubApi.verify(getRequestedFor(urlPathEqualTo("/repos/cloudbeers/yolo/pulls"))
+                .withQueryParam("state", equalTo("open"))
+                .withQueryParam("base", equalTo("main")));
+        // Expected: Every open pull request is never listed
+        githubApi.verify(0, getRequestedFor(urlPathEqualTo("/repos/cloudbeers/yolo/pulls"))
+                .withQueryParam("base", absent()));
+    }
+
+    @Test
+    public void testOpenPRsTargetingOtherBranchesNotLookedUp() throws IOException {
+        // Situation: Only the pull requests targeting release branches are wanted, but every open one targets master
+        GitHubSCMSourceContext context = new GitHubSCMSourceContext(null, SCMHeadObserver.collect());
+        context.wantOriginPRs(true);
+        context.wantForkPRs(true);
+        context.withPullRequestTargets(Collections.singleton("release-*"));
+        GitHubSCMSourceRequest request = context.newRequest(new GitHubSCMSource("cloudbeers", "yolo", null, false), null);
+        Iterator<GHPullRequest> pullRequest = new GitHubSCMSource("cloudbeers", "yolo", null, false)
+                .new LazyPullRequests(request, repo).iterator();
+        // Expected: The wildcard cannot be sent to GitHub, so every open pull request is listed and then dropped
+        assertFalse(pullRequest.hasNext());
+        githubApi.verify(getRequestedFor(urlEqualTo("/repos/cloudbeers/yolo/pulls?state=open")));
+        // Expected: The contributors of the dropped pull requests are never looked up
+        githubApi.verify(0, getRequestedFor(urlPathMatching("/users/.*")));
+    }
 }
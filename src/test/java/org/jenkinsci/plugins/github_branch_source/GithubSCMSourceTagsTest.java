@@ -1,5 +1,7 @@
 package org.jenkinsci.plugins.github_branch_source;
 
+import hudson.model.TaskListener;
+import jenkins.scm.api.SCMHead;
 import jenkins.scm.api.SCMHeadObserver;
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -8,6 +10,10 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeSet;
+import jenkins.scm.api.trait.SCMSourceTrait;
+import jenkins.scm.impl.trait.WildcardSCMHeadFilterTrait;
 import org.junit.Test;
 import org.jvnet.hudson.test.Issue;
 import org.kohsuke.github.GHFileNotFoundException;
@@ -18,6 +24,9 @@ import org.kohsuke.github.PagedIterator;
 import org.kohsuke.github.PagedIterable;
 import org.mockito.Mockito;
 
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.assertEquals;
@@ -343,4 +352,35 @@ public class GithubSCMSourceTagsTest extends GitSCMSourceBase {
             assertEquals("Bad Tag Request", e.getMessage());
         }
     }
+
+    @Test
+    public void testOnlyRefsUnderWildcardPrefixesListed() throws Exception {
+        // Situation: The name filters only allow branches and tags under release/
+        source.setTraits(Arrays.<SCMSourceTrait>asList(new BranchDiscoveryTrait(true, false), new TagDiscoveryTrait(),
+                new WildcardSCMHeadFilterTrait("release/*", "")));
+        SCMHeadObserver.Collector collector = SCMHeadObserver.collect();
+        source.fetch(null, collector, null, null);
+        Set<String> names = new TreeSet<>();
+        for (SCMHead head : collector.result().keySet()) {
+            names.add(head.getName());
+        }
+        // Expected: Only the refs under release/ are listed
+        assertEquals(Collections.singleton("release/1.0"), names);
+        verifyOnlyReleaseRefsListed();
+
+        githubApi.resetRequests();
+        // Expected: Listing the revisions lists the same refs
+        assertEquals(Collections.singleton("release/1.0"), source.fetchRevisions(TaskListener.NULL, null));
+        verifyOnlyReleaseRefsListed();
+    }
+
+    private void verifyOnlyReleaseRefsListed() {
+        githubApi.verify(getRequestedFor(urlPathMatching("/repos/cloudbeers/yolo/git/refs/heads/release/?")));
+        githubApi.verify(getRequestedFor(urlPathMatching("/repos/cloudbeers/yolo/git/refs/tags/release/?")));
+        githubApi.verify(0, getRequestedFor(urlPathEqualTo("/repos/cloudbeers/yolo/git/refs")));
+        githubApi.verify(0, getRequestedFor(urlPathEqualTo("/repos/cloudbeers/yolo/git/refs/heads")));
+        githubApi.verify(0, getRequestedFor(urlPathEqualTo("/repos/cloudbeers/yolo/git/refs/tags")));
+        githubApi.verify(0, getRequestedFor(urlPathEqualTo("/repos/cloudbeers/yolo/branches")));
+        githubApi.verify(0, getRequestedFor(urlPathEqualTo("/repos/cloudbeers/yolo/tags")));
+    }
 }
@@ -0,0 +1,79 @@
+package org.jenkinsci.plugins.github_branch_source;
+
+import hudson.model.Actionable;
+import jenkins.scm.api.SCMHeadOrigin;
+import jenkins.scm.api.SCMRevision;
+import jenkins.scm.api.SCMRevisionAction;
+import jenkins.scm.api.mixin.ChangeRequestCheckoutStrategy;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.mockito.Mockito;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.*;
+
+public class JobScheduledListenerTest {
+
+    @ClassRule
+    public static JenkinsRule r = new JenkinsRule();
+
+    private static final PullRequestSCMHead ORIGIN = new PullRequestSCMHead("PR-1", "cloudbeers", "yolo", "feature",
+            1, new BranchSCMHead("master"), SCMHeadOrigin.DEFAULT, ChangeRequestCheckoutStrategy.HEAD);
+
+    private static final PullRequestSCMHead FORK = new PullRequestSCMHead("PR-2", "stephenc", "yolo", "feature",
+            2, new BranchSCMHead("master"), new SCMHeadOrigin.Fork("stephenc"), ChangeRequestCheckoutStrategy.HEAD);
+
+    private GitHubSCMSource source;
+
+    @Before
+    public void setUp() {
+        source = Mockito.spy(new GitHubSCMSource("cloudbeers", "yolo", null, false));
+        Mockito.doReturn(revision(ORIGIN, "1111111111111111111111111111111111111111"))
+                .when(source).getLastScannedRevision(ORIGIN);
+        Mockito.doReturn(revision(FORK, "2222222222222222222222222222222222222222"))
+                .when(source).getLastScannedRevision(FORK);
+    }
+
+    @Test
+    public void scheduledRevisionWins() {
+        SCMRevision scheduled = revision(FORK, "3333333333333333333333333333333333333333");
+        Item item = new Item();
+        item.addAction(new SCMRevisionAction(source, scheduled));
+        assertThat(GitHubBuildStatusNotification.JobScheduledListener.knownRevision(source, FORK, item),
+                is(scheduled));
+        assertThat(GitHubBuildStatusNotification.JobScheduledListener.knownRevision(source, ORIGIN, item),
+                is(scheduled));
+    }
+
+    @Test
+    public void originFallsBackToLastScan() {
+        assertThat(GitHubBuildStatusNotification.JobScheduledListener.knownRevision(source, ORIGIN, new Item()),
+                is(revision(ORIGIN, "1111111111111111111111111111111111111111")));
+    }
+
+    @Test
+    public void forkDoesNotFallBackToLastScan() {
+        assertThat(GitHubBuildStatusNotification.JobScheduledListener.knownRevision(source, FORK, new Item()),
+                is(nullValue()));
+        Mockito.verify(source, Mockito.never()).getLastScannedRevision(FORK);
+    }
+
+    private static SCMRevision revision(PullRequestSCMHead head, String hash) {
+        return new PullRequestSCMRevision(head, "0000000000000000000000000000000000000000", hash);
+    }
+
+    private static class Item extends Actionable {
+        @Override
+        public String getDisplayName() {
+            return "item";
+        }
+
+        @Override
+        public String getSearchUrl() {
+            return "item";
+        }
+    }
+}
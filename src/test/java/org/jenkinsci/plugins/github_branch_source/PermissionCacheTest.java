@@ -0,0 +1,91 @@
+package org.jenkinsci.plugins.github_branch_source;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import org.kohsuke.github.GHPermissionType;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.*;
+
+public class PermissionCacheTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private GHPermissionType load(GHPermissionType permission) {
+        loads.incrementAndGet();
+        return permission;
+    }
+
+    @Test
+    public void getPermission_loadsOncePerUser() throws Exception {
+        assertThat(PermissionCache.getPermission(null, "cached-org", "repo", "alice",
+                () -> load(GHPermissionType.WRITE)), is(GHPermissionType.WRITE));
+        assertThat(PermissionCache.getPermission(GitHubSCMSource.GITHUB_URL, "Cached-Org", "Repo", "Alice",
+                () -> load(GHPermissionType.NONE)), is(GHPermissionType.WRITE));
+        assertThat(PermissionCache.getPermission(null, "cached-org", "repo", "bob",
+                () -> load(GHPermissionType.READ)), is(GHPermissionType.READ));
+        assertThat(loads.get(), is(2));
+    }
+
+    @Test
+    public void invalidate_dropsUserAcrossRepositories() throws Exception {
+        PermissionCache.getPermission(null, "member-org", "one", "alice", () -> load(GHPermissionType.WRITE));
+        PermissionCache.getPermission(null, "member-org", "two", "alice", () -> load(GHPermissionType.WRITE));
+        PermissionCache.getPermission(null, "member-org", "one", "bob", () -> load(GHPermissionType.WRITE));
+        PermissionCache.invalidate("MEMBER-ORG", null, "alice");
+        PermissionCache.getPermission(null, "member-org", "one", "alice", () -> load(GHPermissionType.NONE));
+        PermissionCache.getPermission(null, "member-org", "two", "alice", () -> load(GHPermissionType.NONE));
+        PermissionCache.getPermission(null, "member-org", "one", "bob", () -> load(GHPermissionType.NONE));
+        assertThat(loads.get(), is(5));
+    }
+
+    @Test
+    public void getTrustPermission_confirmsWriteAccess() throws Exception {
+        PermissionCache.getPermission(null, "trust-org", "repo", "alice", () -> load(GHPermissionType.WRITE));
+        PermissionCache.getPermission(null, "trust-org", "repo", "bob", () -> load(GHPermissionType.READ));
+        assertThat(PermissionCache.getTrustPermission(null, "trust-org", "repo", "alice",
+                () -> load(GHPermissionType.NONE)), is(GHPermissionType.NONE));
+        assertThat(PermissionCache.getTrustPermission(null, "trust-org", "repo", "bob",
+                () -> load(GHPermissionType.WRITE)), is(GHPermissionType.READ));
+        assertThat(loads.get(), is(3));
+        // the revoked access replaced the cached write access
+        assertThat(PermissionCache.getPermission(null, "trust-org", "repo", "alice",
+                () -> load(GHPermissionType.WRITE)), is(GHPermissionType.NONE));
+        assertThat(loads.get(), is(3));
+    }
+
+    @Test
+    public void getTrustPermission_doesNotCacheWriteAccess() throws Exception {
+        assertThat(PermissionCache.getTrustPermission(null, "admin-org", "repo", "alice",
+                () -> load(GHPermissionType.ADMIN)), is(GHPermissionType.ADMIN));
+        assertThat(PermissionCache.getTrustPermission(null, "admin-org", "repo", "alice",
+                () -> load(GHPermissionType.ADMIN)), is(GHPermissionType.ADMIN));
+        assertThat(PermissionCache.getPermission(null, "admin-org", "repo", "alice",
+                () -> load(GHPermissionType.WRITE)), is(GHPermissionType.WRITE));
+        assertThat(loads.get(), is(3));
+    }
+
+    @Test
+    public void collaborators_cachedUntilRepositoryInvalidated() {
+        assertThat(PermissionCache.getCollaborators(null, "collab-org", "repo"), nullValue());
+        PermissionCache.putCollaborators(null, "collab-org", "repo", Arrays.asList("alice", "Bob"));
+        assertThat(PermissionCache.getCollaborators(null, "collab-org", "repo"), containsInAnyOrder("alice", "Bob"));
+        assertThat(PermissionCache.getCollaborators(null, "collab-org", "repo").contains("bob"), is(true));
+        PermissionCache.invalidate("collab-org", "other", null);
+        assertThat(PermissionCache.getCollaborators(null, "collab-org", "repo").size(), is(2));
+        PermissionCache.invalidate("collab-org", "repo", "alice");
+        assertThat(PermissionCache.getCollaborators(null, "collab-org", "repo"), nullValue());
+    }
+
+    @Test
+    public void unlistable_clearedWithRepository() {
+        assertThat(PermissionCache.isUnlistable(null, "private-org", "repo"), is(false));
+        PermissionCache.putUnlistable(null, "private-org", "repo");
+        assertThat(PermissionCache.isUnlistable(GitHubSCMSource.GITHUB_URL, "Private-Org", "repo"), is(true));
+        PermissionCache.invalidate("private-org", null, "alice");
+        assertThat(PermissionCache.isUnlistable(null, "private-org", "repo"), is(false));
+    }
+}
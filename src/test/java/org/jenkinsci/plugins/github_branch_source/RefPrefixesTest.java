@@ -0,0 +1,60 @@
+package org.jenkinsci.plugins.github_branch_source;
+
+import java.util.Arrays;
+import java.util.Collections;
+import jenkins.scm.api.trait.SCMSourceTrait;
+import jenkins.scm.impl.trait.RegexSCMHeadFilterTrait;
+import jenkins.scm.impl.trait.WildcardSCMHeadFilterTrait;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.*;
+
+public class RefPrefixesTest {
+
+    @Test
+    public void wildcards() {
+        assertThat(RefPrefixes.ofWildcards("release/*"), is(Collections.singletonList("release/")));
+        assertThat(RefPrefixes.ofWildcards("release/1.* hotfix/*"), is(Arrays.asList("hotfix/", "release/")));
+        assertThat(RefPrefixes.ofWildcards("release/* release/v2/*"), is(Collections.singletonList("release/")));
+        assertThat(RefPrefixes.ofWildcards("team/a/feature-*"), is(Collections.singletonList("team/a/")));
+    }
+
+    @Test
+    public void wildcardsWithoutDirectory() {
+        assertThat(RefPrefixes.ofWildcards("*"), is(nullValue()));
+        assertThat(RefPrefixes.ofWildcards("master release/*"), is(nullValue()));
+        assertThat(RefPrefixes.ofWildcards("rel*/x"), is(nullValue()));
+        assertThat(RefPrefixes.ofWildcards(""), is(nullValue()));
+    }
+
+    @Test
+    public void regex() {
+        assertThat(RefPrefixes.ofRegex("release/.*"), is("release/"));
+        assertThat(RefPrefixes.ofRegex("release/1\\.0/.*"), is("release/1.0/"));
+        assertThat(RefPrefixes.ofRegex("team/a/b?.*"), is("team/a/"));
+        assertThat(RefPrefixes.ofRegex("team/a/?.*"), is("team/"));
+    }
+
+    @Test
+    public void regexWithoutDirectory() {
+        assertThat(RefPrefixes.ofRegex(".*"), is(nullValue()));
+        assertThat(RefPrefixes.ofRegex("release/.*|master"), is(nullValue()));
+        assertThat(RefPrefixes.ofRegex("(?i)release/.*"), is(nullValue()));
+        assertThat(RefPrefixes.ofRegex("\\d+/.*"), is(nullValue()));
+        assertThat(RefPrefixes.ofRegex("release.*"), is(nullValue()));
+    }
+
+    @Test
+    public void traits() {
+        assertThat(RefPrefixes.of(Collections.<SCMSourceTrait>emptyList()), is(nullValue()));
+        assertThat(RefPrefixes.of(Arrays.<SCMSourceTrait>asList(
+                new BranchDiscoveryTrait(true, false),
+                new WildcardSCMHeadFilterTrait("*", ""),
+                new RegexSCMHeadFilterTrait("release/.*"))), is(Collections.singletonList("release/")));
+        assertThat(RefPrefixes.of(Collections.<SCMSourceTrait>singletonList(
+                new WildcardSCMHeadFilterTrait("release/* hotfix/*", "release/old/*"))),
+                is(Arrays.asList("hotfix/", "release/")));
+    }
+}
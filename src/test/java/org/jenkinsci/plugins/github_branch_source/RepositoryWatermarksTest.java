@@ -0,0 +1,132 @@
+package org.jenkinsci.plugins.github_branch_source;
+
+import hudson.model.Item;
+import hudson.model.ItemGroup;
+import java.io.File;
+import jenkins.plugins.git.AbstractGitSCMSource;
+import jenkins.scm.api.SCMHeadObserver;
+import jenkins.scm.api.SCMSourceOwner;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+public class RepositoryWatermarksTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void snapshot_replaysRecordedHeads() throws Exception {
+        SCMHeadObserver.Collector collector = SCMHeadObserver.collect();
+        RepositoryWatermarks.RecordingObserver recorder = new RepositoryWatermarks.RecordingObserver(collector);
+        BranchSCMHead head = new BranchSCMHead("master");
+        recorder.observe(head, new AbstractGitSCMSource.SCMRevisionImpl(head, "8f1314fc7cd3cd3b0a3a3d22a3bc8f4f2f3e6d1a"));
+        assertThat(collector.result().keySet(), contains(head));
+
+        RepositoryWatermarks.Snapshot snapshot = recorder.snapshot("1:2:0", "config");
+        SCMHeadObserver.Collector replayed = SCMHeadObserver.collect();
+        assertThat(snapshot.replay(replayed), is(1));
+        assertThat(replayed.result(), is(collector.result()));
+    }
+
+    @Test
+    public void snapshot_isCurrentOnlyForSameWatermark() {
+        RepositoryWatermarks.Snapshot snapshot = new RepositoryWatermarks.RecordingObserver(SCMHeadObserver.none())
+                .snapshot("1:2:0", "config");
+        assertTrue(snapshot.isCurrent("1:2:0"));
+        assertFalse(snapshot.isCurrent("1:3:0"));
+        assertFalse(snapshot.isCurrent("1:2:1"));
+        assertFalse(snapshot.isCurrent(null));
+    }
+
+    @Test
+    public void listed_isTakenOnce() {
+        Item folder = folder("org");
+        SCMSourceOwner owner = child(folder);
+        RepositoryWatermarks.put(folder, "Repo", "1:2:0");
+        assertTrue(RepositoryWatermarks.takeListed(owner, "repo"));
+        // a later scan of the repository itself was not triggered by the organization scan
+        assertFalse(RepositoryWatermarks.takeListed(owner, "repo"));
+        assertThat(RepositoryWatermarks.get(owner, "repo"), is("1:2:0"));
+        assertFalse(RepositoryWatermarks.takeListed(null, "repo"));
+    }
+
+    @Test
+    public void forget_removesWatermarksOfFolderAndDescendants() {
+        Item folder = folder("forget");
+        Item nested = folder("forget/nested");
+        Item sibling = folder("forgetting");
+        RepositoryWatermarks.put(folder, "repo", "1:2:0");
+        RepositoryWatermarks.put(nested, "repo", "1:2:0");
+        RepositoryWatermarks.put(sibling, "repo", "1:2:0");
+        RepositoryWatermarks.forget("forget");
+        assertThat(RepositoryWatermarks.get(child(folder), "repo"), is(nullValue()));
+        assertThat(RepositoryWatermarks.get(child(nested), "repo"), is(nullValue()));
+        assertFalse(RepositoryWatermarks.takeListed(child(folder), "repo"));
+        assertThat(RepositoryWatermarks.get(child(sibling), "repo"), is("1:2:0"));
+    }
+
+    @Test
+    public void watermarks_savedInFolder() throws Exception {
+        Item folder = folder("saved", tmp.newFolder());
+        assertThat(RepositoryWatermarks.nextScan(folder), is(0));
+        assertThat(RepositoryWatermarks.nextScan(folder), is(1));
+        RepositoryWatermarks.put(folder, "Repo", "1:2:0");
+        RepositoryWatermarks.save(folder);
+        assertTrue(new File(folder.getRootDir(), RepositoryWatermarks.FILENAME).isFile());
+
+        // as after a restart
+        RepositoryWatermarks.forget("saved");
+        assertThat(RepositoryWatermarks.get(child(folder), "repo"), is("1:2:0"));
+        assertThat(RepositoryWatermarks.nextScan(folder), is(2));
+    }
+
+    @Test
+    public void snapshot_savedNextToOwner() throws Exception {
+        SCMSourceOwner owner = child(folder("snapshots"));
+        when(owner.getRootDir()).thenReturn(tmp.newFolder());
+        BranchSCMHead head = new BranchSCMHead("master");
+        RepositoryWatermarks.RecordingObserver recorder = new RepositoryWatermarks.RecordingObserver(
+                SCMHeadObserver.collect());
+        recorder.observe(head, new AbstractGitSCMSource.SCMRevisionImpl(head, "8f1314fc7cd3cd3b0a3a3d22a3bc8f4f2f3e6d1a"));
+        RepositoryWatermarks.saveSnapshot(owner, "source", recorder.snapshot("1:2:0", "config"));
+
+        RepositoryWatermarks.Snapshot snapshot = RepositoryWatermarks.loadSnapshot(owner, "source", "config");
+        assertTrue(snapshot.isCurrent("1:2:0"));
+        assertThat(snapshot.get(head),
+                is(new AbstractGitSCMSource.SCMRevisionImpl(head, "8f1314fc7cd3cd3b0a3a3d22a3bc8f4f2f3e6d1a")));
+        // taken with other traits
+        assertThat(RepositoryWatermarks.loadSnapshot(owner, "source", "other"), is(nullValue()));
+        assertThat(RepositoryWatermarks.loadSnapshot(owner, "other", "config"), is(nullValue()));
+
+        RepositoryWatermarks.saveSnapshot(owner, "source", null);
+        assertThat(RepositoryWatermarks.loadSnapshot(owner, "source", "config"), is(nullValue()));
+    }
+
+    private static Item folder(String fullName) {
+        return folder(fullName, null);
+    }
+
+    private static Item folder(String fullName, File rootDir) {
+        Item folder = mock(Item.class, withSettings().extraInterfaces(ItemGroup.class));
+        when(folder.getFullName()).thenReturn(fullName);
+        when(folder.getRootDir()).thenReturn(rootDir);
+        return folder;
+    }
+
+    private static SCMSourceOwner child(Item folder) {
+        SCMSourceOwner owner = mock(SCMSourceOwner.class);
+        doReturn(folder).when(owner).getParent();
+        return owner;
+    }
+
+}
@@ -0,0 +1,51 @@
+package org.jenkinsci.plugins.github_branch_source;
+
+import hudson.util.TextFile;
+import java.io.File;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.*;
+
+public class ScanCursorTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void defer_repositoriesUpToTheCursor() {
+        ScanCursor sut = new ScanCursor(null, "beta");
+        assertTrue(sut.defer("alpha"));
+        assertTrue(sut.defer("Beta"));
+        assertFalse(sut.defer("gamma"));
+        assertFalse(sut.defer("delta"));
+        assertThat(sut.deferred(), contains("alpha", "Beta"));
+    }
+
+    @Test
+    public void defer_nothingWhenNotResuming() {
+        ScanCursor sut = new ScanCursor(null, null);
+        assertFalse(sut.defer("alpha"));
+        assertThat(sut.deferred(), is(empty()));
+    }
+
+    @Test
+    public void close_savesLastProcessedUnlessCompleted() throws Exception {
+        File file = new File(tmp.getRoot(), ScanCursor.FILENAME);
+        ScanCursor sut = new ScanCursor(new TextFile(file), null);
+        sut.processed("alpha");
+        sut.processed("beta");
+        sut.close();
+        assertThat(new TextFile(file).readTrim(), is("beta"));
+
+        sut = new ScanCursor(new TextFile(file), "beta");
+        sut.completed();
+        sut.close();
+        assertFalse(file.exists());
+    }
+
+}
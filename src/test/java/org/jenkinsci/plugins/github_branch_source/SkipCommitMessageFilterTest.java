@@ -0,0 +1,71 @@
+package org.jenkinsci.plugins.github_branch_source;
+
+import java.io.IOException;
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.*;
+
+public class SkipCommitMessageFilterTest {
+
+    @Before
+    public void setUp() {
+        EventRoutingIndex.clear();
+    }
+
+    private static WebhookPayloadSummary push(String message) throws IOException {
+        String payload = IOUtils.toString(
+                SkipCommitMessageFilterTest.class.getResourceAsStream("EventsTest/pushEventUpdated.json"));
+        return WebhookPayloadSummary.parse(payload.replace("Update README.md", message.replace("\n", "\\n")));
+    }
+
+    @Test
+    public void defaultMarkers() throws Exception {
+        SkipCommitMessageFilter filter = new SkipCommitMessageFilter(SkipCommitMessageFilter.DEFAULT_MARKERS, false);
+        assertThat(filter.isSkipped(push("Update README.md")), is(false));
+        assertThat(filter.isSkipped(push("[skip-ci] Update README.md")), is(true));
+        assertThat(filter.isSkipped(push("Update README.md [skip ci]")), is(true));
+        assertThat(filter.isSkipped(push("Update README.md\n\n[CI SKIP]")), is(true));
+        assertThat(filter.isSkipped(push("Update README.md skip ci")), is(false));
+    }
+
+    @Test
+    public void neverWithoutTrait() throws Exception {
+        assertThat(SkipCommitMessageFilter.NEVER.isSkipped(push("[skip ci] Update README.md")), is(false));
+    }
+
+    @Test
+    public void customMarkers() throws Exception {
+        SkipCommitMessageFilter filter = new SkipCommitMessageFilter("***NO_CI***\n\n  [wip]  ", true);
+        assertThat(filter.isSkipped(push("***NO_CI*** Update README.md")), is(true));
+        assertThat(filter.isSkipped(push("[WIP] Update README.md")), is(true));
+        assertThat(filter.isSkipped(push("[skip ci] Update README.md")), is(false));
+    }
+
+    @Test
+    public void noMarkers() throws Exception {
+        assertThat(new SkipCommitMessageFilter("  ", false).isSkipped(push("[skip ci] Update README.md")),
+                is(false));
+    }
+
+    @Test
+    public void notSkippedUntilItemsAreIndexed() throws Exception {
+        long skipped = SkipCommitMessageFilter.getSkippedCount();
+        assertThat(SkipCommitMessageFilter.isSkipped("github.com", "baxterthehacker", "public-repo",
+                push("[skip ci] Update README.md")), is(false));
+        assertThat(SkipCommitMessageFilter.getSkippedCount(), is(skipped));
+    }
+
+    @Test
+    public void notSkippedWithoutInterestedItems() throws Exception {
+        EventRoutingIndex.setBuilt(true);
+        try {
+            assertThat(SkipCommitMessageFilter.isSkipped("github.com", "baxterthehacker", "public-repo",
+                    push("[skip ci] Update README.md")), is(false));
+        } finally {
+            EventRoutingIndex.clear();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package org.jenkinsci.plugins.github_branch_source;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+import jenkins.scm.api.SCMHeadObserver;
+import jenkins.scm.api.SCMHeadOrigin;
+import jenkins.scm.api.SCMSource;
+import jenkins.scm.api.mixin.ChangeRequestCheckoutStrategy;
+import jenkins.scm.api.trait.SCMHeadPrefilter;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+
+public class TargetBranchFilterTraitTest {
+
+    @Test
+    public void matches() {
+        Set<String> targets = TargetBranchFilterTrait.split(" main  release/* ");
+        assertThat(targets, is((Set<String>) new TreeSet<>(Arrays.asList("main", "release/*"))));
+        assertThat(TargetBranchFilterTrait.matches(targets, "main"), is(true));
+        assertThat(TargetBranchFilterTrait.matches(targets, "release/1.0"), is(true));
+        assertThat(TargetBranchFilterTrait.matches(targets, "mainline"), is(false));
+        assertThat(TargetBranchFilterTrait.matches(targets, "feature/release/1.0"), is(false));
+        assertThat(TargetBranchFilterTrait.matches(Collections.singleton("*-stable"), "2.x-stable"), is(true));
+        assertThat(TargetBranchFilterTrait.matches(Collections.singleton("v1.*"), "v1x2"), is(false));
+    }
+
+    @Test
+    public void blankTargetsLeaveContextAlone() {
+        GitHubSCMSourceContext ctx = new GitHubSCMSourceContext(null, SCMHeadObserver.none());
+        new TargetBranchFilterTrait("  ").decorateContext(ctx);
+        assertThat(ctx.pullRequestTargets(), is(nullValue()));
+        assertThat(ctx.prefilters(), is(Collections.<SCMHeadPrefilter>emptyList()));
+    }
+
+    @Test
+    public void targetsAreExposedAndPrefiltered() {
+        GitHubSCMSourceContext ctx = new GitHubSCMSourceContext(null, SCMHeadObserver.none());
+        new TargetBranchFilterTrait("main release/*").decorateContext(ctx);
+        new TargetBranchFilterTrait("develop").decorateContext(ctx);
+        assertThat(ctx.pullRequestTargets(), is((Set<String>) new TreeSet<>(Arrays.asList("main", "release/*"))));
+        assertThat(ctx.prefilters().size(), is(2));
+        SCMSource source = mock(SCMSource.class);
+        SCMHeadPrefilter prefilter = ctx.prefilters().get(0);
+        assertThat(prefilter.isExcluded(source, pullRequest("main")), is(false));
+        assertThat(prefilter.isExcluded(source, pullRequest("release/2.x")), is(false));
+        assertThat(prefilter.isExcluded(source, pullRequest("develop")), is(true));
+        assertThat(prefilter.isExcluded(source, new BranchSCMHead("develop")), is(false));
+    }
+
+    private static PullRequestSCMHead pullRequest(String target) {
+        return new PullRequestSCMHead("PR-1", "cloudbeers", "yolo", "feature", 1, new BranchSCMHead(target),
+                SCMHeadOrigin.DEFAULT, ChangeRequestCheckoutStrategy.HEAD);
+    }
+}
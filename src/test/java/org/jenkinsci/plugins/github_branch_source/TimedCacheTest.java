@@ -0,0 +1,69 @@
+package org.jenkinsci.plugins.github_branch_source;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.*;
+
+public class TimedCacheTest {
+
+    private final AtomicLong now = new AtomicLong(1000L);
+
+    @Test
+    public void get_returnsValueUntilExpired() {
+        TimedCache<String, String> sut = new TimedCache<>(100L, 10, now::get);
+        sut.put("key", "value");
+        now.addAndGet(99L);
+        assertThat(sut.get("key"), is("value"));
+        now.addAndGet(1L);
+        assertThat(sut.get("key"), nullValue());
+        assertThat(sut.size(), is(0));
+    }
+
+    @Test
+    public void put_evictsLeastRecentlyUsed() {
+        TimedCache<String, String> sut = new TimedCache<>(100L, 2, now::get);
+        sut.put("a", "1");
+        sut.put("b", "2");
+        assertThat(sut.get("a"), is("1"));
+        sut.put("c", "3");
+        assertThat(sut.get("a"), is("1"));
+        assertThat(sut.get("b"), nullValue());
+        assertThat(sut.get("c"), is("3"));
+    }
+
+    @Test
+    public void put_zeroTtlDisablesCaching() {
+        TimedCache<String, String> sut = new TimedCache<>(0L, 10, now::get);
+        sut.put("key", "value");
+        assertThat(sut.get("key"), nullValue());
+    }
+
+    @Test
+    public void invalidateIf_removesMatchingKeys() {
+        TimedCache<String, String> sut = new TimedCache<>(100L, 10, now::get);
+        sut.put("org/a", "1");
+        sut.put("org/b", "2");
+        sut.put("other/a", "3");
+        assertThat(sut.invalidateIf(key -> key.startsWith("org/")), is(2));
+        assertThat(sut.get("org/a"), nullValue());
+        assertThat(sut.get("other/a"), is("3"));
+        sut.invalidateAll();
+        assertThat(sut.size(), is(0));
+    }
+
+    @Test
+    public void remove_returnsValueOnlyOnce() {
+        TimedCache<String, String> sut = new TimedCache<>(100L, 10, now::get);
+        sut.put("a", "1");
+        sut.put("b", "2");
+        assertThat(sut.remove("a"), is("1"));
+        assertThat(sut.remove("a"), nullValue());
+        now.addAndGet(100L);
+        assertThat(sut.remove("b"), nullValue());
+        assertThat(sut.size(), is(0));
+    }
+
+}
@@ -0,0 +1,235 @@
+package org.jenkinsci.plugins.github_branch_source;
+
+import com.cloudbees.plugins.credentials.CredentialsScope;
+import com.cloudbees.plugins.credentials.SystemCredentialsProvider;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.scm.SCM;
+import hudson.util.Secret;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Map;
+import jenkins.plugins.git.AbstractGitSCMSource;
+import jenkins.scm.api.SCMHead;
+import jenkins.scm.api.SCMHeadEvent;
+import jenkins.scm.api.SCMHeadObserver;
+import jenkins.scm.api.SCMHeadOrigin;
+import jenkins.scm.api.SCMNavigator;
+import jenkins.scm.api.SCMRevision;
+import jenkins.scm.api.SCMSource;
+import jenkins.scm.api.mixin.ChangeRequestCheckoutStrategy;
+import jenkins.scm.api.trait.SCMSourceTrait;
+import org.jenkinsci.plugins.github.GitHubPlugin;
+import org.jenkinsci.plugins.github.config.HookSecretConfig;
+import org.jenkinsci.plugins.plaincredentials.impl.StringCredentialsImpl;
+import org.junit.After;
+import org.junit.Test;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static org.hamcrest.Matchers.hasProperty;
+import static org.hamcrest.Matchers.is;
+
+public class TrustedWebhookPayloadTest extends GitSCMSourceBase {
+
+    private static final String PUSHED_SHA = "1111111111111111111111111111111111111111";
+
+    private static final String FETCHED_SHA = "8f1314fc3c8284d8c6d5886d473db98f2126071c";
+
+    public TrustedWebhookPayloadTest() {
+        this.source = new GitHubSCMSource("cloudbeers", "yolo", null, false);
+    }
+
+    @After
+    public void resetConfiguration() {
+        GitHubConfiguration.get().setTrustWebhookPayloads(false);
+        GitHubPlugin.configuration().setHookSecretConfig(new HookSecretConfig(null));
+        SystemCredentialsProvider.getInstance().getCredentials().clear();
+    }
+
+    @Test
+    public void trustedWhenSecretConfigured() throws Exception {
+        configureSecret();
+        assertTrue(GitHubConfiguration.get().isWebhookPayloadTrusted());
+
+        SCMRevision revision = fetchMaster();
+        assertThat(revision, hasProperty("hash", is(PUSHED_SHA)));
+        githubApi.verify(0, getRequestedFor(urlEqualTo("/repos/cloudbeers/yolo/branches/master")));
+    }
+
+    @Test
+    public void fetchedWhenReplayed() throws Exception {
+        configureSecret();
+        SCMRevision revision = fetchMaster(new PushEvent(null, true));
+        assertThat(revision, hasProperty("hash", is(FETCHED_SHA)));
+        githubApi.verify(getRequestedFor(urlEqualTo("/repos/cloudbeers/yolo/branches/master")));
+    }
+
+    @Test
+    public void trustedOnlyWhenFollowingLastSeenRevision() throws Exception {
+        SCMRevision revision = fetchMaster();
+        assertThat(revision, hasProperty("hash", is(FETCHED_SHA)));
+        configureSecret();
+        // a push that does not follow on from the revision last seen was delivered out of order
+        revision = fetchMaster(new PushEvent("2222222222222222222222222222222222222222", false));
+        assertThat(revision, hasProperty("hash", is(FETCHED_SHA)));
+        githubApi.verify(2, getRequestedFor(urlEqualTo("/repos/cloudbeers/yolo/branches/master")));
+        revision = fetchMaster(new PushEvent(FETCHED_SHA, false));
+        assertThat(revision, hasProperty("hash", is(PUSHED_SHA)));
+        githubApi.verify(2, getRequestedFor(urlEqualTo("/repos/cloudbeers/yolo/branches/master")));
+        // the pushed revision is now the one last seen, so a push from an older revision is not trusted
+        revision = fetchMaster(new PushEvent(FETCHED_SHA, false));
+        assertThat(revision, hasProperty("hash", is(FETCHED_SHA)));
+        githubApi.verify(3, getRequestedFor(urlEqualTo("/repos/cloudbeers/yolo/branches/master")));
+    }
+
+    @Test
+    public void pullRequestHeadTrusted() throws Exception {
+        source.setTraits(Collections.<SCMSourceTrait>singletonList(new ForkPullRequestDiscoveryTrait(
+                EnumSet.of(ChangeRequestCheckoutStrategy.HEAD), new ForkPullRequestDiscoveryTrait.TrustEveryone())));
+        configureSecret();
+        PullRequestSCMHead head = new PullRequestSCMHead("PR-3", "stephenc", "yolo", "master", 3,
+                new BranchSCMHead("master"), new SCMHeadOrigin.Fork("stephenc"), ChangeRequestCheckoutStrategy.HEAD);
+        SCMRevision reported = new PullRequestSCMRevision(head, FETCHED_SHA, PUSHED_SHA);
+        SCMHeadObserver.Selector selector = SCMHeadObserver.select(head);
+        source.fetch(null, selector, new PullRequestEvent(head, reported, null), null);
+        assertThat(selector.result(), is(reported));
+        // the pull request was last seen at the head fetched from GitHub, which the next event does not follow on from
+        selector = SCMHeadObserver.select(head);
+        source.fetch(null, selector, new PullRequestEvent(head, reported, PUSHED_SHA), null);
+        assertThat(selector.result(), hasProperty("pullHash", is("c0e024f89969b976da165eecaa71e09dc60c3da1")));
+    }
+
+    @Test
+    public void fetchedWithoutSecret() throws Exception {
+        GitHubConfiguration.get().setTrustWebhookPayloads(true);
+        assertFalse(GitHubConfiguration.get().isWebhookPayloadTrusted());
+
+        SCMRevision revision = fetchMaster();
+        assertThat(revision, hasProperty("hash", is("8f1314fc3c8284d8c6d5886d473db98f2126071c")));
+        githubApi.verify(getRequestedFor(urlEqualTo("/repos/cloudbeers/yolo/branches/master")));
+    }
+
+    @Test
+    public void fetchedWhenNotEnabled() throws Exception {
+        SystemCredentialsProvider.getInstance().getCredentials().add(new StringCredentialsImpl(
+                CredentialsScope.GLOBAL, "hook-secret", "", Secret.fromString("s3cr3t")));
+        GitHubPlugin.configuration().setHookSecretConfig(new HookSecretConfig("hook-secret"));
+        assertFalse(GitHubConfiguration.get().isWebhookPayloadTrusted());
+
+        SCMRevision revision = fetchMaster();
+        assertThat(revision, hasProperty("hash", is("8f1314fc3c8284d8c6d5886d473db98f2126071c")));
+        githubApi.verify(getRequestedFor(urlEqualTo("/repos/cloudbeers/yolo/branches/master")));
+    }
+
+    private static void configureSecret() {
+        SystemCredentialsProvider.getInstance().getCredentials().add(new StringCredentialsImpl(
+                CredentialsScope.GLOBAL, "hook-secret", "", Secret.fromString("s3cr3t")));
+        GitHubPlugin.configuration().setHookSecretConfig(new HookSecretConfig("hook-secret"));
+        GitHubConfiguration.get().setTrustWebhookPayloads(true);
+    }
+
+    private SCMRevision fetchMaster() throws Exception {
+        return fetchMaster(new PushEvent(null, false));
+    }
+
+    private SCMRevision fetchMaster(PushEvent event) throws Exception {
+        SCMHeadObserver.Selector selector = SCMHeadObserver.select(new BranchSCMHead("master"));
+        source.fetch(null, selector, event, null);
+        return selector.result();
+    }
+
+    private static class PushEvent extends SCMHeadEvent<WebhookPayloadSummary> implements WebhookHeadEvent {
+        private final BranchSCMHead head = new BranchSCMHead("master");
+        private final String before;
+        private final boolean replayed;
+
+        PushEvent(String before, boolean replayed) throws Exception {
+            super(Type.UPDATED, WebhookPayloadSummary.parse(
+                    "{\"ref\":\"refs/heads/master\",\"after\":\"" + PUSHED_SHA + "\","
+                            + "\"repository\":{\"name\":\"yolo\",\"owner\":{\"login\":\"cloudbeers\"}}}"),
+                    "test");
+            this.before = before;
+            this.replayed = replayed;
+        }
+
+        @Override
+        public boolean isReplayed() {
+            return replayed;
+        }
+
+        @Override
+        public String getBeforeHash() {
+            return before;
+        }
+
+        @Override
+        public boolean isMatch(@NonNull SCMNavigator navigator) {
+            return false;
+        }
+
+        @NonNull
+        @Override
+        public String getSourceName() {
+            return "yolo";
+        }
+
+        @NonNull
+        @Override
+        public Map<SCMHead, SCMRevision> heads(@NonNull SCMSource source) {
+            return Collections.singletonMap(head, new AbstractGitSCMSource.SCMRevisionImpl(head, PUSHED_SHA));
+        }
+
+        @Override
+        public boolean isMatch(@NonNull SCM scm) {
+            return false;
+        }
+    }
+
+    private static class PullRequestEvent extends SCMHeadEvent<WebhookPayloadSummary> implements WebhookHeadEvent {
+        private final SCMHead head;
+        private final SCMRevision revision;
+        private final String before;
+
+        PullRequestEvent(SCMHead head, SCMRevision revision, String before) throws Exception {
+            super(Type.UPDATED, WebhookPayloadSummary.parse(
+                    "{\"action\":\"synchronize\",\"number\":3,"
+                            + "\"repository\":{\"name\":\"yolo\",\"owner\":{\"login\":\"cloudbeers\"}}}"),
+                    "test");
+            this.head = head;
+            this.revision = revision;
+            this.before = before;
+        }
+
+        @Override
+        public boolean isReplayed() {
+            return false;
+        }
+
+        @Override
+        public String getBeforeHash() {
+            return before;
+        }
+
+        @Override
+        public boolean isMatch(@NonNull SCMNavigator navigator) {
+            return false;
+        }
+
+        @NonNull
+        @Override
+        public String getSourceName() {
+            return "yolo";
+        }
+
+        @NonNull
+        @Override
+        public Map<SCMHead, SCMRevision> heads(@NonNull SCMSource source) {
+            return Collections.singletonMap(head, revision);
+        }
+
+        @Override
+        public boolean isMatch(@NonNull SCM scm) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package org.jenkinsci.plugins.github_branch_source;
+
+import jenkins.scm.api.metadata.ContributorMetadataAction;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.*;
+
+public class UserProfileCacheTest {
+
+    @Test
+    public void get_sharedAcrossRepositoriesOfEndpoint() {
+        assertThat(UserProfileCache.get(null, "octocat"), nullValue());
+        UserProfileCache.put(null, "octocat", "The Octocat", "octocat@example.com");
+        assertThat(UserProfileCache.get(GitHubSCMSource.GITHUB_URL, "OctoCat"), notNullValue());
+        assertThat(UserProfileCache.get("https://github.example.com/api/v3", "octocat"), nullValue());
+    }
+
+    @Test
+    public void isDescribedBy_comparesEveryField() {
+        UserProfileCache.Profile profile = UserProfileCache.put(null, "hubot", "Hubot", null);
+        assertThat(profile.isDescribedBy(profile.toAction()), is(true));
+        assertThat(profile.isDescribedBy(new ContributorMetadataAction("hubot", "Hubot", "hubot@example.com")),
+                is(false));
+        assertThat(profile.isDescribedBy(new ContributorMetadataAction("monalisa", "Hubot", null)), is(false));
+        assertThat(profile.isDescribedBy(null), is(false));
+    }
+
+    @Test
+    public void put_seededFromContributorOfSameUser() {
+        ContributorMetadataAction action = new ContributorMetadataAction("mona", "Mona Lisa", "mona@example.com");
+        assertThat(UserProfileCache.put(null, "mona", action).isDescribedBy(action), is(true));
+        assertThat(UserProfileCache.get(null, "mona").isDescribedBy(action), is(true));
+        assertThat(UserProfileCache.put(null, "lisa", action), nullValue());
+        assertThat(UserProfileCache.get(null, "lisa"), nullValue());
+        assertThat(UserProfileCache.put(null, "lisa", (ContributorMetadataAction) null), nullValue());
+    }
+}
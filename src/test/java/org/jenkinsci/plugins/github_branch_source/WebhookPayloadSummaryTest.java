@@ -0,0 +1,119 @@
+package org.jenkinsci.plugins.github_branch_source;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.*;
+
+public class WebhookPayloadSummaryTest {
+
+    @After
+    public void tearDown() {
+        EventRoutingIndex.clear();
+    }
+
+    private static WebhookPayloadSummary load(String name) throws IOException {
+        return WebhookPayloadSummary.parse(
+                IOUtils.toString(WebhookPayloadSummaryTest.class.getResourceAsStream("EventsTest/" + name)));
+    }
+
+    @Test
+    public void push() throws Exception {
+        WebhookPayloadSummary summary = load("pushEventUpdated.json");
+        assertThat(summary.getRef(), is("refs/heads/changes"));
+        assertThat(summary.getAfter(), is("0d1a26e67d8f5eaf1f6ba5c57fc3c7d91ac0fd1c"));
+        assertThat(summary.isDeleted(), is(false));
+        assertThat(summary.getRepositoryOwner(), is("baxterthehacker"));
+        assertThat(summary.getRepositoryName(), is("public-repo"));
+        assertThat(summary.getRepositoryUrl(), is("https://github.com/baxterthehacker/public-repo"));
+        assertThat(summary.getPullRequestHeadSha(), nullValue());
+        assertThat(summary.isCreated(), is(false));
+        assertThat(summary.getCommits().size(), is(1));
+        WebhookPayloadSummary.Commit commit = summary.getCommits().get(0);
+        assertThat(commit.getSha(), is("0d1a26e67d8f5eaf1f6ba5c57fc3c7d91ac0fd1c"));
+        assertThat(commit.getMessage(), is("Update README.md"));
+        assertThat(commit.getPaths(), is(Collections.singletonList("README.md")));
+    }
+
+    @Test
+    public void pushCreated() throws Exception {
+        assertThat(load("pushEventCreated.json").isCreated(), is(true));
+    }
+
+    @Test
+    public void pushRemoved() throws Exception {
+        assertThat(load("pushEventRemoved.json").isDeleted(), is(true));
+    }
+
+    @Test
+    public void pullRequest() throws Exception {
+        WebhookPayloadSummary summary = load("pullRequestEventUpdated.json");
+        assertThat(summary.getNumber(), is(1));
+        assertThat(summary.getPullRequestHeadSha(), is("0d1a26e67d8f5eaf1f6ba5c57fc3c7d91ac0fd1c"));
+        assertThat(summary.getPullRequestBaseSha(), is("9049f1265b7d61be4a8904a9a27120d2064dab3b"));
+        assertThat(summary.getRepositoryOwner(), is("baxterthehacker"));
+        assertThat(summary.getRepositoryUrl(), is("https://github.com/baxterthehacker/public-repo"));
+        assertThat(summary.getPullRequestHeadRef(), is("changes"));
+        assertThat(summary.getPullRequestHeadUser(), is("baxterthehacker"));
+        assertThat(summary.getPullRequestSourceOwner(), is("baxterthehacker"));
+        assertThat(summary.getPullRequestSourceRepository(), is("public-repo"));
+        assertThat(summary.getPullRequestSourceFullName(), is("baxterthehacker/public-repo"));
+        assertThat(summary.getPullRequestBaseRef(), is("master"));
+        assertThat(summary.getPullRequestBaseRepository(), is("public-repo"));
+    }
+
+    @Test
+    public void pullRequestFromDeletedFork() throws Exception {
+        WebhookPayloadSummary summary = WebhookPayloadSummary.parse("{\"number\":2,\"pull_request\":{"
+                + "\"head\":{\"ref\":\"feature\",\"repo\":null},\"base\":{\"ref\":\"master\"}}}");
+        assertThat(summary.getPullRequestHeadRef(), is("feature"));
+        assertThat(summary.getPullRequestSourceOwner(), nullValue());
+        assertThat(summary.getPullRequestSourceFullName(), nullValue());
+    }
+
+    @Test
+    public void repository() throws Exception {
+        WebhookPayloadSummary summary = load("repositoryEventCreated.json");
+        assertThat(summary.getAction(), is("created"));
+        assertThat(summary.isRepositoryFork(), is(true));
+        assertThat(load("repositoryEventNotFiredNotFork.json").isRepositoryFork(), is(false));
+    }
+
+    @Test
+    public void commitsSkipWhatIsNotNeeded() throws Exception {
+        WebhookPayloadSummary summary = WebhookPayloadSummary.parse("{\"commits\":[{\"id\":\"a\","
+                + "\"author\":{\"message\":\"x\"},\"added\":[\"b\",{\"c\":1}],\"removed\":[\"d\"],"
+                + "\"message\":\"m\"},\"e\"],\"after\":\"a\"}");
+        assertThat(summary.getCommits().size(), is(1));
+        assertThat(summary.getCommits().get(0).getMessage(), is("m"));
+        assertThat(summary.getCommits().get(0).getPaths(), is(Arrays.asList("b", "d")));
+        assertThat(summary.getAfter(), is("a"));
+    }
+
+    @Test
+    public void nestedFieldsDoNotLeakIntoTheTopLevel() throws Exception {
+        WebhookPayloadSummary summary = WebhookPayloadSummary.parse(
+                "{\"commits\":[{\"ref\":\"x\"}],\"sender\":{\"action\":\"y\"},\"action\":\"opened\"}");
+        assertThat(summary.getAction(), is("opened"));
+        assertThat(summary.getRef(), nullValue());
+    }
+
+    @Test(expected = IOException.class)
+    public void notAnObject() throws Exception {
+        WebhookPayloadSummary.parse("[]");
+    }
+
+    @Test
+    public void routing() throws Exception {
+        WebhookPayloadSummary summary = load("pushEventUpdated.json");
+        assertThat(summary.isRouted(), is(true));
+        EventRoutingIndex.setBuilt(true);
+        assertThat(summary.isRouted(), is(false));
+    }
+}